@@ -0,0 +1,25 @@
+package com.example.moneyhelper;
+
+import android.os.Bundle;
+
+import androidx.test.runner.AndroidJUnitRunner;
+
+import com.example.moneyhelper.parser.PdfBoxWarmUp;
+
+/**
+ * Раннер инструментальных тестов
+ * Аргумент "-e pdfboxWarmUp off" отключает прогрев PDFBox при старте приложения:
+ * onCreate раннера вызывается раньше Application.onCreate
+ */
+public class MoneyHelperTestRunner extends AndroidJUnitRunner {
+
+    static final String ARG_PDFBOX_WARM_UP = "pdfboxWarmUp";
+
+    @Override
+    public void onCreate(Bundle arguments) {
+        if (arguments != null && "off".equals(arguments.getString(ARG_PDFBOX_WARM_UP))) {
+            PdfBoxWarmUp.setScheduledWarmUpEnabled(false);
+        }
+        super.onCreate(arguments);
+    }
+}
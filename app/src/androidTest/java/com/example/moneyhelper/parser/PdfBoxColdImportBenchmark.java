@@ -0,0 +1,62 @@
+package com.example.moneyhelper.parser;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+/**
+ * Первый импорт без прогрева PDFBox: холодный разбор одной страницы и повторный
+ * Нужен свежий процесс, в котором PDFBox еще не использовался, поэтому тест
+ * запускается отдельно и с отключенным прогревом, иначе пропускается:
+ * am instrument -w -e class com.example.moneyhelper.parser.PdfBoxColdImportBenchmark
+ *     -e pdfboxWarmUp off com.example.moneyhelper.test/com.example.moneyhelper.MoneyHelperTestRunner
+ */
+@RunWith(AndroidJUnit4.class)
+public class PdfBoxColdImportBenchmark {
+
+    private static final String TAG = "ColdImportBenchmark";
+
+    @Test
+    public void firstImportLatency_withoutWarmUp() throws Exception {
+        assumeTrue("Запускать отдельно с -e pdfboxWarmUp off",
+                "off".equals(InstrumentationRegistry.getArguments().getString("pdfboxWarmUp")));
+        assumeFalse(PdfBoxWarmUp.isDone());
+
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        File file = new File(context.getCacheDir(), "cold_import_statement.pdf");
+        try {
+            // Сам генератор тоже грузит классы PDFBox и шрифт, но не экстрактор текста
+            StatementPdfFixtures.writeStatement(file, 1);
+
+            SberbankStatementParser parser = new SberbankStatementParser(context);
+            long start = SystemClock.elapsedRealtime();
+            List<SberbankStatementParser.Transaction> transactions =
+                    parser.parseStatement(Uri.fromFile(file));
+            long coldMs = SystemClock.elapsedRealtime() - start;
+
+            start = SystemClock.elapsedRealtime();
+            parser.parseStatement(Uri.fromFile(file));
+            long repeatMs = SystemClock.elapsedRealtime() - start;
+
+            assertEquals(StatementPdfFixtures.ROWS_PER_PAGE, transactions.size());
+            Log.i(TAG, String.format(Locale.US,
+                    "Первый разбор без прогрева: %d мс; повторный разбор: %d мс", coldMs, repeatMs));
+        } finally {
+            file.delete();
+        }
+    }
+}
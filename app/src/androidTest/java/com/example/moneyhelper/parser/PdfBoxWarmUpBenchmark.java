@@ -0,0 +1,56 @@
+package com.example.moneyhelper.parser;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * Первый импорт после прогрева PDFBox: время прогрева и разбора одной страницы
+ * Холодный первый импорт замеряет PdfBoxColdImportBenchmark в отдельном процессе.
+ * Инструментальный, а не Robolectric: Robolectric в проекте нет,
+ * а pdfbox-android при разборе страниц обращается к нативному android.graphics
+ */
+@RunWith(AndroidJUnit4.class)
+public class PdfBoxWarmUpBenchmark {
+
+    private static final String TAG = "WarmUpBenchmark";
+
+    @Test
+    public void firstImportLatency_afterWarmUp() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+
+        boolean warmedByApplication = PdfBoxWarmUp.isDone();
+        long warmUpMs = PdfBoxWarmUp.warmUpNow(context);
+        assertTrue(PdfBoxWarmUp.isDone());
+
+        File file = new File(context.getCacheDir(), "warm_up_statement.pdf");
+        try {
+            StatementPdfFixtures.writeStatement(file, 1);
+
+            SberbankStatementParser parser = new SberbankStatementParser(context);
+            long start = SystemClock.elapsedRealtime();
+            List<SberbankStatementParser.Transaction> transactions =
+                    parser.parseStatement(Uri.fromFile(file));
+            long parseMs = SystemClock.elapsedRealtime() - start;
+
+            assertEquals(StatementPdfFixtures.ROWS_PER_PAGE, transactions.size());
+            Log.i(TAG, String.format(Locale.US, "Прогрев: %d мс%s; первый разбор после прогрева: %d мс",
+                    warmUpMs, warmedByApplication ? " (выполнен приложением)" : "", parseMs));
+        } finally {
+            file.delete();
+        }
+    }
+}
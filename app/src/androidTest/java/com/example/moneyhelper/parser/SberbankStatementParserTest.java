@@ -0,0 +1,183 @@
+package com.example.moneyhelper.parser;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.tom_roush.pdfbox.android.PDFBoxResourceLoader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Инструментальные тесты парсера на синтетической многостраничной выписке
+ */
+@RunWith(AndroidJUnit4.class)
+public class SberbankStatementParserTest {
+
+    private static final String TAG = "ParserTest";
+    private static final int PAGES = 400;
+    // Крупная выписка для проверки лимита памяти
+    private static final int LARGE_PAGES = 5;
+    private static final int PAYLOAD_BYTES = 24 * 1024 * 1024;
+    // Запас сверх бюджета: парсер, шрифты и буферы чтения файла
+    private static final long HEAP_MARGIN_BYTES = 8L * 1024 * 1024;
+
+    private Context context;
+    private File statementFile;
+
+    @Before
+    public void setUp() throws Exception {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        PDFBoxResourceLoader.init(context);
+        statementFile = new File(context.getCacheDir(), "synthetic_statement.pdf");
+        StatementPdfFixtures.writeStatement(statementFile, PAGES);
+    }
+
+    @After
+    public void tearDown() {
+        statementFile.delete();
+    }
+
+    @Test
+    public void boundedMemoryLoad_keepsHeapWithinBudget() throws Exception {
+        // Крупный файл: несколько страниц операций и несжимаемый поток на 24 МБ.
+        // Без лимита PDFBox держит в куче весь файл, с лимитом - не больше бюджета
+        File largeFile = new File(context.getCacheDir(), "large_statement.pdf");
+        StatementPdfFixtures.writeLargeStatement(largeFile, LARGE_PAGES, PAYLOAD_BYTES);
+        try {
+            // Все файлы кэша до разбора: после него не должно появиться ни одного нового,
+            // в том числе временных файлов буфера PDFBox с любым именем
+            Set<String> before = listCacheDir();
+
+            SberbankStatementParser legacyParser = new SberbankStatementParser(context);
+            legacyParser.setMaxMainMemoryBytes(0);
+            HeapUsage legacy = measureHeap(legacyParser, largeFile);
+
+            long budget = SberbankStatementParser.DEFAULT_MAX_MAIN_MEMORY_BYTES;
+            SberbankStatementParser boundedParser = new SberbankStatementParser(context);
+            boundedParser.setMaxMainMemoryBytes(budget);
+            HeapUsage bounded = measureHeap(boundedParser, largeFile);
+
+            Log.i(TAG, String.format(Locale.US,
+                    "Файл: %d КБ; удержано кучей при открытом документе: в памяти %d КБ, "
+                            + "с лимитом %d КБ; пик кучи: в памяти %d КБ, с лимитом %d КБ",
+                    largeFile.length() / 1024, legacy.retained / 1024, bounded.retained / 1024,
+                    legacy.peak / 1024, bounded.peak / 1024));
+
+            assertTrue("С лимитом удержано " + bounded.retained / 1024 + " КБ при бюджете "
+                            + budget / 1024 + " КБ",
+                    bounded.retained < budget + HEAP_MARGIN_BYTES);
+            Set<String> leftovers = listCacheDir();
+            leftovers.removeAll(before);
+            assertTrue("В кэше остались файлы: " + leftovers, leftovers.isEmpty());
+        } finally {
+            largeFile.delete();
+        }
+    }
+
+    @Test
+    public void columnExtraction_matchesGeneratedAmounts() throws Exception {
+        SberbankStatementParser parser = new SberbankStatementParser(context);
+
+        long start = System.nanoTime();
+        List<SberbankStatementParser.Transaction> transactions =
+                parser.parseStatement(Uri.fromFile(statementFile));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        int mismatches = 0;
+        for (SberbankStatementParser.Transaction transaction : transactions) {
+            int code = Integer.parseInt(transaction.id);
+            if (transaction.amountKopecks != StatementPdfFixtures.expectedKopecks(code)) {
+                mismatches++;
+            }
+        }
+
+        Log.i(TAG, String.format(Locale.US,
+                "Строк: %d за %d мс (%.0f строк/с), расхождений: %d",
+                transactions.size(), elapsedMs,
+                transactions.size() * 1000.0 / Math.max(elapsedMs, 1), mismatches));
+
+        assertEquals(PAGES * StatementPdfFixtures.ROWS_PER_PAGE, transactions.size());
+        assertEquals(0, mismatches);
+    }
+
+    private Set<String> listCacheDir() {
+        Set<String> names = new HashSet<>();
+        String[] files = context.getCacheDir().list();
+        if (files != null) {
+            Collections.addAll(names, files);
+        }
+        return names;
+    }
+
+    /**
+     * Парсит выписку, замеряя кучу: пик занятой памяти (вместе с еще не собранным мусором)
+     * и память, которую удерживает открытый документ - после сборки мусора в конце страницы
+     */
+    private HeapUsage measureHeap(SberbankStatementParser parser, File file) throws Exception {
+        Runtime runtime = Runtime.getRuntime();
+        long baseline = usedAfterGc(runtime);
+
+        long[] peak = {0};
+        long[] retained = {0};
+        Thread sampler = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peak[0] = Math.max(peak[0], runtime.totalMemory() - runtime.freeMemory());
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        sampler.start();
+
+        List<SberbankStatementParser.Transaction> transactions;
+        try {
+            transactions = parser.parseStatement(Uri.fromFile(file), null,
+                    new SberbankStatementParser.Listener() {
+                        @Override
+                        public void onPage(int pageNo, int pageCount, int rowCount) {
+                            retained[0] = Math.max(retained[0], usedAfterGc(runtime) - baseline);
+                        }
+                    }, null);
+        } finally {
+            sampler.interrupt();
+            sampler.join();
+        }
+        assertEquals(LARGE_PAGES * StatementPdfFixtures.ROWS_PER_PAGE, transactions.size());
+        return new HeapUsage(peak[0], retained[0]);
+    }
+
+    private static long usedAfterGc(Runtime runtime) {
+        for (int i = 0; i < 3; i++) {
+            runtime.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static final class HeapUsage {
+        final long peak;
+        final long retained;
+
+        HeapUsage(long peak, long retained) {
+            this.peak = peak;
+            this.retained = retained;
+        }
+    }
+}
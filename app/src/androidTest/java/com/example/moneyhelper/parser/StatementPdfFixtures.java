@@ -0,0 +1,98 @@
+package com.example.moneyhelper.parser;
+
+import com.tom_roush.pdfbox.cos.COSName;
+import com.tom_roush.pdfbox.pdmodel.PDDocument;
+import com.tom_roush.pdfbox.pdmodel.PDPage;
+import com.tom_roush.pdfbox.pdmodel.PDPageContentStream;
+import com.tom_roush.pdfbox.pdmodel.common.PDStream;
+import com.tom_roush.pdfbox.pdmodel.font.PDType1Font;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Синтетические выписки для инструментальных тестов парсера
+ * Строки в формате Сбербанка (латиница - стандартный шрифт Helvetica не содержит кириллицы),
+ * колонки выводятся отдельными фрагментами на своих x-координатах, как в настоящей выписке
+ */
+final class StatementPdfFixtures {
+
+    static final int ROWS_PER_PAGE = 40;
+    static final int FIRST_CODE = 100000;
+
+    private StatementPdfFixtures() {
+    }
+
+    static void writeStatement(File file, int pages) throws Exception {
+        try (PDDocument document = new PDDocument()) {
+            addStatementPages(document, pages);
+            document.save(file);
+        }
+    }
+
+    /**
+     * Выписка с несжимаемым потоком в каталоге документа:
+     * поток не нужен парсеру, но делает файл большим
+     */
+    static void writeLargeStatement(File file, int pages, int payloadBytes) throws Exception {
+        try (PDDocument document = new PDDocument()) {
+            addStatementPages(document, pages);
+            byte[] payload = new byte[payloadBytes];
+            new Random(1).nextBytes(payload);
+            PDStream stream = new PDStream(document, new ByteArrayInputStream(payload));
+            document.getDocumentCatalog().getCOSObject()
+                    .setItem(COSName.getPDFName("Payload"), stream.getCOSObject());
+            document.save(file);
+        }
+    }
+
+    /**
+     * Сумма операции зависит от кода, чтобы проверять каждую строку
+     */
+    static long expectedKopecks(int code) {
+        return 100 + (code * 7919L) % 2_000_000;
+    }
+
+    private static void addStatementPages(PDDocument document, int pages) throws Exception {
+        int code = FIRST_CODE;
+        for (int p = 0; p < pages; p++) {
+            PDPage page = new PDPage();
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                content.setFont(PDType1Font.HELVETICA, 8);
+                float y = 760;
+                for (int r = 0; r < ROWS_PER_PAGE; r++) {
+                    showTextAt(content, 30, y, String.format(Locale.US,
+                            "%02d.11.2025 13:%02d %d", 1 + r % 28, r % 60, code));
+                    showTextAt(content, 150, y, "Supermarket");
+                    showTextAt(content, 400, y, formatMoney(expectedKopecks(code)));
+                    showTextAt(content, 500, y, "36 975,65");
+                    y -= 18;
+                    code++;
+                }
+            }
+        }
+    }
+
+    private static void showTextAt(PDPageContentStream content, float x, float y, String text)
+            throws Exception {
+        content.beginText();
+        content.newLineAtOffset(x, y);
+        content.showText(text);
+        content.endText();
+    }
+
+    /**
+     * Форматирует копейки как в выписке: "12 345,67"
+     */
+    private static String formatMoney(long kopecks) {
+        long rubles = kopecks / 100;
+        StringBuilder sb = new StringBuilder(String.valueOf(rubles));
+        for (int i = sb.length() - 3; i > 0; i -= 3) {
+            sb.insert(i, ' ');
+        }
+        return sb.append(String.format(Locale.US, ",%02d", kopecks % 100)).toString();
+    }
+}
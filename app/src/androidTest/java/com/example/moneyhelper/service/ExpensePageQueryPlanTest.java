@@ -0,0 +1,85 @@
+package com.example.moneyhelper.service;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.moneyhelper.DatabaseHelper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Планы запросов постраничной выборки на схеме приложения:
+ * глубокая страница должна читать индекс с ключа, а не пролистывать все,
+ * что было на предыдущих страницах
+ */
+@RunWith(AndroidJUnit4.class)
+public class ExpensePageQueryPlanTest {
+
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        db = DatabaseHelper.getInstance(
+                InstrumentationRegistry.getInstrumentation().getTargetContext()).getReadableDatabase();
+    }
+
+    @Test
+    public void allMonthsOfCategory_deepPageSeeksByKey() {
+        assertDeepPageSeeks("me.user_cat_id = ?", false, "month_key<?", "1");
+    }
+
+    @Test
+    public void monthOfCategory_deepPageSeeksByKey() {
+        assertDeepPageSeeks("me.user_cat_id = ? AND me.month_key = ?", true, "id<?", "1", "202501");
+    }
+
+    @Test
+    public void monthOfUser_deepPageSeeksByKey() {
+        assertDeepPageSeeks("me.month_key = ? AND uc.user_id = ?", true, "id<?", "202501", "1");
+    }
+
+    private void assertDeepPageSeeks(String where, boolean singleMonth, String keyBound,
+                                     String... whereArgs) {
+        List<String> firstArgs = new ArrayList<>(Arrays.asList(whereArgs));
+        firstArgs.add("21");
+        String firstPlan = plan(CategoryService.expensePageQuery(where), firstArgs);
+
+        List<String> deepArgs = new ArrayList<>(Arrays.asList(whereArgs));
+        if (!singleMonth) {
+            deepArgs.add("202501");
+            deepArgs.add("202501");
+        }
+        deepArgs.add("100000");
+        deepArgs.add("21");
+        String deepPlan = plan(CategoryService.expensePageQuery(
+                where + " AND " + CategoryService.expensePageKeyCondition(singleMonth)), deepArgs);
+
+        // Порядок берется из индекса, без сортировки всей выборки
+        assertFalse(firstPlan, firstPlan.contains("TEMP B-TREE"));
+        assertFalse(deepPlan, deepPlan.contains("TEMP B-TREE"));
+        // Ключ - граница диапазона индекса, а не фильтр по прочитанным строкам
+        assertTrue(deepPlan, deepPlan.contains(keyBound));
+    }
+
+    private String plan(String query, List<String> args) {
+        StringBuilder plan = new StringBuilder();
+        try (Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN " + query, args.toArray(new String[0]))) {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(detail)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.moneyhelper.service;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+/**
+ * Разбор дат выписки на устройстве: MonthKeyCodec против SimpleDateFormat
+ * Только пишет время в лог; правильность кодека проверяет MonthKeyCodecTest
+ */
+@RunWith(AndroidJUnit4.class)
+public class MonthKeyCodecBenchmark {
+
+    private static final String TAG = "MonthKeyCodecBenchmark";
+    private static final int COUNT = 200_000;
+
+    @After
+    public void restoreZone() {
+        MonthKeyCodec.setTimeZone(TimeZone.getDefault());
+    }
+
+    @Test
+    public void statementDates_codecVsSimpleDateFormat() throws Exception {
+        TimeZone zone = TimeZone.getTimeZone("Europe/Moscow");
+        MonthKeyCodec.setTimeZone(zone);
+        SimpleDateFormat dateTime = new SimpleDateFormat("dd.MM.yyyy HH:mm", Locale.ROOT);
+        dateTime.setTimeZone(zone);
+        SimpleDateFormat day = new SimpleDateFormat("dd.MM.yyyy", Locale.ROOT);
+        day.setTimeZone(zone);
+        Calendar cal = Calendar.getInstance(zone);
+
+        String[] samples = new String[COUNT];
+        Random random = new Random(3);
+        for (int i = 0; i < COUNT; i++) {
+            samples[i] = String.format(Locale.ROOT, "%02d.%02d.%04d %02d:%02d",
+                    1 + random.nextInt(28), 1 + random.nextInt(12), 2000 + random.nextInt(30),
+                    random.nextInt(24), random.nextInt(60));
+        }
+
+        // Прогрев JIT
+        long sink = 0;
+        for (int round = 0; round < 2; round++) {
+            sink += parseWithCodec(samples);
+            sink += parseWithFormat(samples, dateTime, day, cal);
+        }
+
+        long start = SystemClock.elapsedRealtimeNanos();
+        sink += parseWithCodec(samples);
+        long codecNanos = SystemClock.elapsedRealtimeNanos() - start;
+
+        start = SystemClock.elapsedRealtimeNanos();
+        sink += parseWithFormat(samples, dateTime, day, cal);
+        long formatNanos = SystemClock.elapsedRealtimeNanos() - start;
+
+        Log.i(TAG, String.format(Locale.US,
+                "MonthKeyCodec: %d нс/строка, SimpleDateFormat: %d нс/строка (%d)",
+                codecNanos / COUNT, formatNanos / COUNT, sink & 1));
+    }
+
+    // Строка выписки -> строка месяца, как при импорте
+    private static long parseWithCodec(String[] samples) {
+        long sink = 0;
+        for (String sample : samples) {
+            long millis = MonthKeyCodec.parseDateTime(sample);
+            sink += MonthKeyCodec.toLegacyString(MonthKeyCodec.fromMillis(millis)).length();
+        }
+        return sink;
+    }
+
+    private static long parseWithFormat(String[] samples, SimpleDateFormat dateTime,
+                                        SimpleDateFormat day, Calendar cal) throws Exception {
+        long sink = 0;
+        for (String sample : samples) {
+            cal.setTime(dateTime.parse(sample));
+            cal.set(Calendar.DAY_OF_MONTH, 1);
+            sink += day.format(cal.getTime()).length();
+        }
+        return sink;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.moneyhelper.service;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.moneyhelper.DatabaseHelper;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * getSpendMatrix на 10 годах x 200 категорий в БД приложения
+ * Данные вставляются в транзакции, которая в конце откатывается: БД устройства не меняется.
+ * Время только пишется в лог
+ */
+@RunWith(AndroidJUnit4.class)
+public class SpendMatrixBenchmark {
+
+    private static final String TAG = "SpendMatrixBenchmark";
+    private static final int CATEGORIES = 200;
+    private static final int FROM_MONTH = MonthKeyCodec.of(2015, 1);
+    private static final int MONTHS = 120;
+
+    @Test
+    public void tenYearsOfTwoHundredCategories_singleScan() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        SQLiteDatabase db = DatabaseHelper.getInstance(context).getWritableDatabase();
+        CategoryService service = new CategoryService(context);
+        long userId = UserSession.getInstance(context).getUserId();
+        int toMonth = MonthKeyCodec.plusMonths(FROM_MONTH, MONTHS - 1);
+
+        db.beginTransaction();
+        try {
+            long[] ids = new long[CATEGORIES];
+            long[] expectedTotals = new long[CATEGORIES];
+            long catId = anyCategoryId(db);
+            for (int c = 0; c < CATEGORIES; c++) {
+                ContentValues category = new ContentValues();
+                category.put("user_id", userId);
+                category.put("cat_id", catId);
+                category.put("name", "Benchmark " + c);
+                category.put("fixed", 0);
+                ids[c] = db.insert("user_categories", null, category);
+
+                // Каждый четвертый месяц без расходов - строка матрицы с нулями
+                for (int m = 0; m < MONTHS; m++) {
+                    if ((c + m) % 4 == 0) continue;
+                    long kopecks = 100 + (c * 7919L + m * 104_729L) % 1_000_000;
+                    ContentValues total = new ContentValues();
+                    total.put("user_cat_id", ids[c]);
+                    total.put("month_key", MonthKeyCodec.plusMonths(FROM_MONTH, m));
+                    total.put("expense_sum", kopecks / 100.0);
+                    total.put("tx_count", 1);
+                    db.insert("category_month_totals", null, total);
+                    expectedTotals[c] += kopecks;
+                }
+            }
+
+            // Первый вызов компилирует запрос и прогревает кэш страниц
+            service.getSpendMatrix(MonthKeyCodec.toDate(FROM_MONTH), MonthKeyCodec.toDate(toMonth));
+            long start = SystemClock.elapsedRealtimeNanos();
+            SpendMatrix matrix = service.getSpendMatrix(
+                    MonthKeyCodec.toDate(FROM_MONTH), MonthKeyCodec.toDate(toMonth));
+            double elapsedMs = (SystemClock.elapsedRealtimeNanos() - start) / 1e6;
+
+            assertEquals(MONTHS, matrix.getMonthCount());
+            for (int c = 0; c < CATEGORIES; c++) {
+                int row = matrix.rowOf(ids[c]);
+                assertTrue(row >= 0);
+                assertEquals(expectedTotals[c], matrix.getRowTotal(row));
+            }
+
+            Log.i(TAG, String.format(Locale.US, "getSpendMatrix %dx%d: %.2f мс",
+                    matrix.getCategoryCount(), matrix.getMonthCount(), elapsedMs));
+        } finally {
+            // Без setTransactionSuccessful: вставленные строки откатываются
+            db.endTransaction();
+        }
+    }
+
+    private static long anyCategoryId(SQLiteDatabase db) {
+        try (Cursor cursor = db.rawQuery("SELECT MIN(id) FROM categories", null)) {
+            assertTrue(cursor.moveToFirst());
+            return cursor.getLong(0);
+        }
+    }
+}
@@ -12,6 +12,7 @@ import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.moneyhelper.R;
+import com.example.moneyhelper.concurrent.TaskScope;
 import com.example.moneyhelper.parser.SberbankStatementParser;
 import com.tom_roush.pdfbox.android.PDFBoxResourceLoader;
 
@@ -28,6 +29,7 @@ public class ParserTestActivity extends AppCompatActivity {
     private TextView tvResults;
     private Button btnSelectFile;
     private SberbankStatementParser parser;
+    private TaskScope tasks;
 
     private final ActivityResultLauncher<String> filePickerLauncher = registerForActivityResult(
             new ActivityResultContracts.GetContent(),
@@ -43,6 +45,7 @@ public class ParserTestActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_parser_test);
         PDFBoxResourceLoader.init(getApplicationContext());
+        tasks = TaskScope.of(this);
 
         tvResults = findViewById(R.id.tvResults);
         btnSelectFile = findViewById(R.id.btnSelectFile);
@@ -58,36 +61,30 @@ public class ParserTestActivity extends AppCompatActivity {
     private void testParser(Uri pdfUri) {
         tvResults.setText("Парсинг...");
 
-        new Thread(() -> {
-            try {
-                List<SberbankStatementParser.Transaction> transactions =
-                        parser.parseStatement(pdfUri);
-
-                StringBuilder result = new StringBuilder();
-                result.append("=== РЕЗУЛЬТАТЫ ПАРСИНГА ===\n\n");
-                result.append("Всего транзакций: ").append(transactions.size()).append("\n\n");
-
-                int count = 0;
-                for (SberbankStatementParser.Transaction t : transactions) {
-                    count++;
-                    result.append("--- Транзакция #").append(count).append(" ---\n");
-                    result.append("Дата: ").append(t.date).append("\n");
-                    result.append("Сумма: ").append(String.format("%s", t.amount)).append(" руб.\n");
-                    result.append("Категория: ").append(t.category != null ? t.category : "НЕ НАЙДЕНА").append("\n");
-                    result.append("Описание: ").append(t.description != null ? t.description : "НЕ НАЙДЕНО").append("\n");
-                    result.append("Тип: ").append(t.isIncome ? "Доход" : "Расход").append("\n");
-                    result.append("\n");
-                }
-
-                runOnUiThread(() -> tvResults.setText(result.toString()));
-
-            } catch (Exception e) {
-                Log.e(TAG, "Ошибка парсинга", e);
-                runOnUiThread(() ->
-                        tvResults.setText("Ошибка: " + e.getMessage() + "\n\n" +
-                                "Смотрите логи с тегом: SberbankParser")
-                );
+        tasks.launch("parse", () -> {
+            List<SberbankStatementParser.Transaction> transactions =
+                    parser.parseStatement(pdfUri);
+
+            StringBuilder result = new StringBuilder();
+            result.append("=== РЕЗУЛЬТАТЫ ПАРСИНГА ===\n\n");
+            result.append("Всего транзакций: ").append(transactions.size()).append("\n\n");
+
+            int count = 0;
+            for (SberbankStatementParser.Transaction t : transactions) {
+                count++;
+                result.append("--- Транзакция #").append(count).append(" ---\n");
+                result.append("Дата: ").append(t.date).append("\n");
+                result.append("Сумма: ").append(String.format("%s", t.amount)).append(" руб.\n");
+                result.append("Категория: ").append(t.category != null ? t.category : "НЕ НАЙДЕНА").append("\n");
+                result.append("Описание: ").append(t.description != null ? t.description : "НЕ НАЙДЕНО").append("\n");
+                result.append("Тип: ").append(t.isIncome ? "Доход" : "Расход").append("\n");
+                result.append("\n");
             }
-        }).start();
+            return result.toString();
+        }, tvResults::setText, e -> {
+            Log.e(TAG, "Ошибка парсинга", e);
+            tvResults.setText("Ошибка: " + e.getMessage() + "\n\n" +
+                    "Смотрите логи с тегом: SberbankParser");
+        });
     }
 }
\ No newline at end of file
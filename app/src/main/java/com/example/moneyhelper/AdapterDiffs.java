@@ -0,0 +1,102 @@
+package com.example.moneyhelper;
+
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.example.moneyhelper.DataTypes.Category;
+import com.example.moneyhelper.DataTypes.Expense;
+import com.example.moneyhelper.DataTypes.UpcomingExpense;
+import com.example.moneyhelper.concurrent.AppExecutors;
+
+import java.util.Objects;
+
+/**
+ * Сравнение строк списков для ListAdapter
+ * Разница считается в пуле compute, адаптер перерисовывает только изменившиеся строки.
+ * Строки совпадают по id из БД, содержимое сравнивается по тому, что видно на экране
+ */
+final class AdapterDiffs {
+
+    private AdapterDiffs() {
+    }
+
+    static <T> AsyncDifferConfig<T> config(DiffUtil.ItemCallback<T> callback) {
+        return new AsyncDifferConfig.Builder<>(callback)
+                .setBackgroundThreadExecutor(AppExecutors.compute())
+                .build();
+    }
+
+    /**
+     * Категории: строка - user_category; содержимое - название, иконка,
+     * признак фиксированной, расходы и прогноз месяца
+     */
+    static final DiffUtil.ItemCallback<Category> CATEGORY = new DiffUtil.ItemCallback<Category>() {
+        @Override
+        public boolean areItemsTheSame(Category a, Category b) {
+            return a.getUserCategoryId() == b.getUserCategoryId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(Category a, Category b) {
+            return a.isFixed() == b.isFixed()
+                    && Double.compare(a.getCurrentExpense(), b.getCurrentExpense()) == 0
+                    && Double.compare(a.getBudget(), b.getBudget()) == 0
+                    && Objects.equals(a.getName(), b.getName())
+                    && Objects.equals(a.getIcon(), b.getIcon());
+        }
+    };
+
+    /**
+     * Готовые строки категорий: содержимое сравнивается по уже отформатированным полям
+     */
+    static final DiffUtil.ItemCallback<CategoryRowModel> CATEGORY_ROW =
+            new DiffUtil.ItemCallback<CategoryRowModel>() {
+        @Override
+        public boolean areItemsTheSame(CategoryRowModel a, CategoryRowModel b) {
+            return a.userCategoryId == b.userCategoryId;
+        }
+
+        @Override
+        public boolean areContentsTheSame(CategoryRowModel a, CategoryRowModel b) {
+            return a.equals(b);
+        }
+    };
+
+    /**
+     * Операции: строка - запись monthly_expenses
+     */
+    static final DiffUtil.ItemCallback<Expense> EXPENSE = new DiffUtil.ItemCallback<Expense>() {
+        @Override
+        public boolean areItemsTheSame(Expense a, Expense b) {
+            return a.getId() == b.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(Expense a, Expense b) {
+            return a.getUserCategoryId() == b.getUserCategoryId()
+                    && a.isIncome() == b.isIncome()
+                    && Double.compare(a.getAmount(), b.getAmount()) == 0
+                    && Objects.equals(a.getCategoryName(), b.getCategoryName())
+                    && Objects.equals(a.getCategoryIcon(), b.getCategoryIcon());
+        }
+    };
+
+    /**
+     * Предстоящие платежи по id строки upcoming_expenses
+     */
+    static final DiffUtil.ItemCallback<UpcomingExpense> UPCOMING =
+            new DiffUtil.ItemCallback<UpcomingExpense>() {
+        @Override
+        public boolean areItemsTheSame(UpcomingExpense a, UpcomingExpense b) {
+            return a.getId() == b.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(UpcomingExpense a, UpcomingExpense b) {
+            return a.getAmount() == b.getAmount()
+                    && Objects.equals(a.getTitle(), b.getTitle())
+                    && Objects.equals(a.getDate(), b.getDate())
+                    && Objects.equals(a.getNote(), b.getNote());
+        }
+    };
+}
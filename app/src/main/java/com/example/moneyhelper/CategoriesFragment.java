@@ -3,6 +3,7 @@ package com.example.moneyhelper;
 import android.content.Intent;
 import android.os.Bundle;
 import android.text.InputType;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -22,7 +23,11 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.moneyhelper.DataTypes.Category;
+import com.example.moneyhelper.concurrent.TaskScope;
+import com.example.moneyhelper.service.AdjacentMonthPrefetcher;
 import com.example.moneyhelper.service.CategoryService;
+import com.example.moneyhelper.service.DataVersions;
+import com.example.moneyhelper.service.MonthKeyCodec;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -33,6 +38,8 @@ import java.util.Locale;
 
 public class CategoriesFragment extends Fragment {
 
+    private static final String TAG = "CategoriesFragment";
+
     private RecyclerView categoriesRecyclerView;
     private CategoryAdapter categoryAdapter;
     private Button addButton;
@@ -47,6 +54,21 @@ public class CategoriesFragment extends Fragment {
     private SimpleDateFormat monthFormat;
     private Calendar selectedMonth;
 
+    // Категории с расходами и прогнозами выбранного месяца
+    private static final DataVersions.Slice DATA_SLICE = DataVersions.slice(
+            DataVersions.Table.CATEGORIES, DataVersions.Table.PREDICTIONS);
+    private DataVersions versions;
+    private DataVersions.Subscription subscription;
+    private long loadedStamp = -1;
+    private int loadedMonthKey;
+    // Последний загруженный месяц, переживает пересоздание фрагмента
+    private ScreenState<MonthData> state;
+    // Соседние месяцы, загруженные впрок для листания
+    private AdjacentMonthPrefetcher<MonthData> prefetcher;
+    private TaskScope tasks;
+    // Текущая загрузка месяца; новая загрузка отменяет предыдущую
+    private TaskScope.Task loadTask;
+
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container,
@@ -75,9 +97,27 @@ public class CategoriesFragment extends Fragment {
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
 
+        versions = DataVersions.getInstance();
+        state = ScreenState.of(this);
+        if (state.peek() != null) {
+            // Возвращаемся к месяцу, который был открыт до пересоздания
+            selectedMonth.setTime(MonthKeyCodec.toDate(state.getMonthKey()));
+        }
+        tasks = TaskScope.of(getViewLifecycleOwner());
+        CategoryService service = categoryService;
+        prefetcher = new AdjacentMonthPrefetcher<>(
+                monthKey -> MonthData.load(service, MonthKeyCodec.toDate(monthKey)),
+                monthKey -> versions.stamp(DATA_SLICE.withMonth(monthKey)));
         initViews(view);
         setupRecyclerView();
-        loadCategories();
+        restoreOrLoad();
+
+        // Подписка на все расходы; другие месяцы отсекает refreshIfChanged
+        subscription = versions.subscribe(DATA_SLICE.withTables(DataVersions.Table.EXPENSES), () -> {
+            if (isResumed()) {
+                refreshIfChanged();
+            }
+        });
     }
 
     private void initViews(View view) {
@@ -113,6 +153,7 @@ public class CategoriesFragment extends Fragment {
             }
         });
         categoriesRecyclerView.setAdapter(categoryAdapter);
+        ScrollJankMonitor.attach(categoriesRecyclerView, "categories");
     }
     
     private void openCategoryDetails(Category category) {
@@ -124,49 +165,78 @@ public class CategoriesFragment extends Fragment {
         startActivity(intent);
     }
 
+    /**
+     * Перезагружает список, только если данные выбранного месяца изменились
+     */
+    private void refreshIfChanged() {
+        int monthKey = MonthKeyCodec.fromDate(selectedMonth.getTime());
+        if (monthKey != loadedMonthKey
+                || versions.stamp(DATA_SLICE.withMonth(monthKey)) != loadedStamp) {
+            loadCategories();
+        }
+    }
+
+    /**
+     * После пересоздания фрагмента показывает сохраненный месяц;
+     * запрос к БД идет, только если данные с тех пор менялись
+     */
+    private void restoreOrLoad() {
+        int monthKey = MonthKeyCodec.fromDate(selectedMonth.getTime());
+        long stamp = versions.stamp(DATA_SLICE.withMonth(monthKey));
+        MonthData cached = state.get(monthKey, stamp);
+        if (cached == null) {
+            loadCategories();
+            return;
+        }
+        loadedMonthKey = monthKey;
+        loadedStamp = stamp;
+        showMonthData(cached);
+    }
+
     private void loadCategories() {
+        // Версии запоминаются до запроса: запись во время загрузки вызовет еще одну
+        int monthKey = MonthKeyCodec.fromDate(selectedMonth.getTime());
+        long stamp = versions.stamp(DATA_SLICE.withMonth(monthKey));
+        loadedMonthKey = monthKey;
+        loadedStamp = stamp;
         progressBar.setVisibility(View.VISIBLE);
         categoriesRecyclerView.setVisibility(View.GONE);
         emptyTextView.setVisibility(View.GONE);
 
-        new Thread(() -> {
-            try {
-                Date monthDate = selectedMonth.getTime();
-                List<Category> categories = categoryService.getCategoriesForMonth(monthDate);
-
-                CategoryService.CategoryStats stats =
-                        categoryService.getCategoryStats(monthDate);
-
-                if (getActivity() != null) {
-                    getActivity().runOnUiThread(() -> {
-                        progressBar.setVisibility(View.GONE);
-
-                        if (categories.isEmpty()) {
-                            showEmptyState();
-                        } else {
-                            showCategories(categories, stats);
-                        }
-                    });
-                }
-
-            } catch (Exception e) {
-                if (getActivity() != null) {
-                    getActivity().runOnUiThread(() -> {
-                        progressBar.setVisibility(View.GONE);
-                        Toast.makeText(getContext(),
-                                "Ошибка загрузки категорий: " + e.getMessage(),
-                                Toast.LENGTH_SHORT).show();
-                    });
-                }
-            }
-        }).start();
+        if (loadTask != null) {
+            loadTask.cancel();
+        }
+        Date monthDate = selectedMonth.getTime();
+        loadTask = tasks.launch("categories", () -> MonthData.load(categoryService, monthDate), data -> {
+            state.put(monthKey, stamp, data);
+            prefetcher.put(monthKey, stamp, data);
+            showMonthData(data);
+        }, e -> {
+            progressBar.setVisibility(View.GONE);
+            loadedStamp = -1;
+            Toast.makeText(getContext(),
+                    "Ошибка загрузки категорий: " + e.getMessage(),
+                    Toast.LENGTH_SHORT).show();
+        });
     }
     
-    private void showCategories(List<Category> categories, CategoryService.CategoryStats stats) {
+    private void showMonthData(MonthData data) {
+        progressBar.setVisibility(View.GONE);
+
+        if (data.rows.isEmpty()) {
+            showEmptyState();
+        } else {
+            showCategories(data.rows, data.stats);
+        }
+        // Следующее листание в любую сторону будет из памяти
+        prefetcher.prefetchAround(loadedMonthKey);
+    }
+
+    private void showCategories(List<CategoryRowModel> rows, CategoryService.CategoryStats stats) {
         categoriesRecyclerView.setVisibility(View.VISIBLE);
         emptyTextView.setVisibility(View.GONE);
 
-        categoryAdapter.updateCategories(categories);
+        categoryAdapter.updateRows(rows);
 
         updateStats(stats);
     }
@@ -202,7 +272,22 @@ public class CategoriesFragment extends Fragment {
     private void navigateMonth(int direction) {
         selectedMonth.add(Calendar.MONTH, direction);
         updateMonthDisplay();
-        loadCategories();
+
+        int monthKey = MonthKeyCodec.fromDate(selectedMonth.getTime());
+        AdjacentMonthPrefetcher.Prefetched<MonthData> prefetched = prefetcher.take(monthKey);
+        if (prefetched == null) {
+            loadCategories();
+            return;
+        }
+        // Месяц загружен впрок и с тех пор не менялся; штамп - тот, при котором он загружен,
+        // чтобы запись после take вызвала перезагрузку
+        if (loadTask != null) {
+            loadTask.cancel();
+        }
+        loadedMonthKey = monthKey;
+        loadedStamp = prefetched.stamp;
+        state.put(monthKey, loadedStamp, prefetched.data);
+        showMonthData(prefetched.data);
     }
 
     private void updateMonthDisplay() {
@@ -213,22 +298,16 @@ public class CategoriesFragment extends Fragment {
     }
 
     private void showAddCategoryDialog() {
-        new Thread(() -> {
-            List<Category> categories = categoryService.getAllUserCategories();
-            
-            if (getActivity() != null) {
-                getActivity().runOnUiThread(() -> {
-                    if (categories.isEmpty()) {
-                        Toast.makeText(getContext(),
-                                "Нет доступных категорий. Сначала создайте категорию.",
-                                Toast.LENGTH_SHORT).show();
-                        return;
-                    }
-                    
-                    showAddExpenseDialog(categories);
-                });
+        tasks.launch("user_categories", categoryService::getAllUserCategories, categories -> {
+            if (categories.isEmpty()) {
+                Toast.makeText(getContext(),
+                        "Нет доступных категорий. Сначала создайте категорию.",
+                        Toast.LENGTH_SHORT).show();
+                return;
             }
-        }).start();
+
+            showAddExpenseDialog(categories);
+        });
     }
 
     private void showAddExpenseDialog(List<Category> categories) {
@@ -300,52 +379,73 @@ public class CategoriesFragment extends Fragment {
     }
 
     private void addExpense(long userCategoryId, double amount) {
-        new Thread(() -> {
-            Date monthDate = selectedMonth.getTime();
-            boolean success = categoryService.addExpense(userCategoryId, amount, monthDate);
-            
-            if (getActivity() != null) {
-                getActivity().runOnUiThread(() -> {
-                    if (success) {
-                        Toast.makeText(getContext(),
-                                "Расход добавлен",
-                                Toast.LENGTH_SHORT).show();
-                        loadCategories();
-                    } else {
-                        Toast.makeText(getContext(),
-                                "Ошибка добавления расхода",
-                                Toast.LENGTH_SHORT).show();
-                    }
-                });
+        Date monthDate = selectedMonth.getTime();
+        tasks.launchWrite("add_expense",
+                () -> categoryService.addExpense(userCategoryId, amount, monthDate), success -> {
+            if (success) {
+                // Список обновится по уведомлению DataVersions
+                Toast.makeText(getContext(),
+                        "Расход добавлен",
+                        Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(getContext(),
+                        "Ошибка добавления расхода",
+                        Toast.LENGTH_SHORT).show();
             }
-        }).start();
+        });
     }
 
     private void createCategory(String name, String icon, boolean isFixed) {
-        new Thread(() -> {
-            long categoryId = categoryService.createCategory(name, icon, isFixed);
-
-            if (getActivity() != null) {
-                getActivity().runOnUiThread(() -> {
-                    if (categoryId > 0) {
-                        Toast.makeText(getContext(),
-                                "Категория создана",
-                                Toast.LENGTH_SHORT).show();
-                        loadCategories();
-                    } else {
-                        Toast.makeText(getContext(),
-                                "Ошибка создания категории",
-                                Toast.LENGTH_SHORT).show();
-                    }
-                });
+        tasks.launchWrite("create_category",
+                () -> categoryService.createCategory(name, icon, isFixed), categoryId -> {
+            if (categoryId > 0) {
+                Toast.makeText(getContext(),
+                        "Категория создана",
+                        Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(getContext(),
+                        "Ошибка создания категории",
+                        Toast.LENGTH_SHORT).show();
             }
-        }).start();
+        });
     }
 
 
     @Override
     public void onResume() {
         super.onResume();
-        loadCategories();
+        refreshIfChanged();
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (subscription != null) {
+            subscription.unsubscribe();
+            subscription = null;
+        }
+        Log.d(TAG, "Предзагрузка месяцев: " + prefetcher.getStats());
+        prefetcher.clear();
+    }
+
+    /**
+     * Строки и статистика месяца, подготовленные одной задачей
+     */
+    private static final class MonthData {
+        final List<CategoryRowModel> rows;
+        final CategoryService.CategoryStats stats;
+
+        MonthData(List<CategoryRowModel> rows, CategoryService.CategoryStats stats) {
+            this.rows = rows;
+            this.stats = stats;
+        }
+
+        /**
+         * Читает и форматирует месяц; вызывать в фоновом потоке
+         */
+        static MonthData load(CategoryService service, Date month) {
+            return new MonthData(CategoryRowModel.listOf(service.getCategoriesForMonth(month)),
+                    service.getCategoryStats(month));
+        }
     }
 }
\ No newline at end of file
@@ -1,7 +1,7 @@
 package com.example.moneyhelper;
 import com.example.moneyhelper.DataTypes.Category;
 
-import android.graphics.Color;
+import android.content.res.ColorStateList;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -9,18 +9,22 @@ import android.widget.ImageButton;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
 
-public class CategoryAdapter extends RecyclerView.Adapter<CategoryAdapter.CategoryViewHolder> {
+public class CategoryAdapter extends ListAdapter<CategoryRowModel, CategoryAdapter.CategoryViewHolder> {
 
-    private List<Category> categories;
     private CategoryClickListener clickListener;
 
-    public CategoryAdapter(List<Category> categories, CategoryClickListener clickListener) {
-        this.categories = categories;
+    public CategoryAdapter(List<CategoryRowModel> rows, CategoryClickListener clickListener) {
+        super(AdapterDiffs.config(AdapterDiffs.CATEGORY_ROW));
         this.clickListener = clickListener;
+        setHasStableIds(true);
+        submitList(new ArrayList<>(rows));
     }
 
     @NonNull
@@ -33,18 +37,21 @@ public class CategoryAdapter extends RecyclerView.Adapter<CategoryAdapter.Catego
 
     @Override
     public void onBindViewHolder(@NonNull CategoryViewHolder holder, int position) {
-        Category category = categories.get(position);
-        holder.bind(category, clickListener);
+        holder.bind(getItem(position), clickListener);
     }
 
     @Override
-    public int getItemCount() {
-        return categories.size();
+    public long getItemId(int position) {
+        return getItem(position).userCategoryId;
     }
 
-    public void updateCategories(List<Category> newCategories) {
-        this.categories = newCategories;
-        notifyDataSetChanged();
+    /**
+     * Новый список строк, построенных в фоновом потоке;
+     * перерисовываются только изменившиеся строки
+     */
+    public void updateRows(List<CategoryRowModel> rows) {
+        // Копия: ListAdapter сравнивает списки по ссылке, а вызывающий может менять свой
+        submitList(new ArrayList<>(rows));
     }
 
     /**
@@ -56,6 +63,9 @@ public class CategoryAdapter extends RecyclerView.Adapter<CategoryAdapter.Catego
     }
 
     static class CategoryViewHolder extends RecyclerView.ViewHolder {
+        // Оттенки прогресса; строк много, а цветов всего три
+        private static final Map<Integer, ColorStateList> TINTS = new HashMap<>();
+
         private TextView iconTextView;
         private TextView categoryNameTextView;
         private TextView expenseTextView;
@@ -75,50 +85,20 @@ public class CategoryAdapter extends RecyclerView.Adapter<CategoryAdapter.Catego
             budgetProgressBar = itemView.findViewById(R.id.budgetProgressBar);
         }
 
-        public void bind(Category category, CategoryClickListener listener) {
-            // Иконка
+        public void bind(CategoryRowModel row, CategoryClickListener listener) {
             if (iconTextView != null) {
-                iconTextView.setText(category.getIcon());
+                iconTextView.setText(row.icon);
             }
-            else {
+            categoryNameTextView.setText(row.name);
+            expenseTextView.setText(row.expenseText);
 
-            }
+            // Процент текущих расходов от прогноза
+            percentageTextView.setText(row.percentText);
+            percentageTextView.setTextColor(row.percentColor);
 
-            // Название
-            categoryNameTextView.setText(category.getName());
-
-            // Текущие расходы
-            expenseTextView.setText(String.format(Locale.getDefault(),
-                    "%.0f ₽", category.getCurrentExpense()));
-
-            // Процент текущих расходов от предсказанных
-            if (category.getBudget() > 0) {
-                // Вычисляем процент: (текущие расходы / прогноз) * 100
-                double percentageValue = (category.getCurrentExpense() / category.getBudget()) * 100;
-                percentageTextView.setText(String.format(Locale.getDefault(),
-                        "%.0f%%", percentageValue));
-                
-                // Устанавливаем цвет в зависимости от процента
-                if (percentageValue < 90) {
-                    // Меньше 90% - зеленый
-                    percentageTextView.setTextColor(Color.parseColor("#4CAF50")); // Зеленый
-                } else if (percentageValue <= 100) {
-                    // От 90% до 100% - желтый
-                    percentageTextView.setTextColor(Color.parseColor("#FFC107")); // Желтый
-                } else {
-                    // Выше 100% - красный
-                    percentageTextView.setTextColor(Color.parseColor("#F44336")); // Красный
-                }
-            } else {
-                percentageTextView.setText("");
-                percentageTextView.setTextColor(Color.parseColor("#757575")); // Серый по умолчанию
-            }
-
-            // Бюджет
             if (budgetTextView != null) {
-                if (category.getBudget() > 0) {
-                    budgetTextView.setText(String.format(Locale.getDefault(),
-                            "Бюджет: %.0f ₽", category.getBudget()));
+                if (row.hasBudget) {
+                    budgetTextView.setText(row.budgetText);
                     budgetTextView.setVisibility(View.VISIBLE);
                 } else {
                     budgetTextView.setVisibility(View.GONE);
@@ -126,79 +106,56 @@ public class CategoryAdapter extends RecyclerView.Adapter<CategoryAdapter.Catego
             }
 
             // Разница (перерасход/экономия)
-            if (differenceTextView != null && category.getBudget() > 0) {
-                double diff = category.getDifference();
-
-                if (diff > 0) {
-                    // Перерасход
-                    differenceTextView.setText(String.format(Locale.getDefault(),
-                            "+%.0f ₽", diff));
-                    differenceTextView.setTextColor(Color.parseColor("#F44336")); // Красный
-                } else if (diff < 0) {
-                    // Экономия
-                    differenceTextView.setText(String.format(Locale.getDefault(),
-                            "%.0f ₽", diff));
-                    differenceTextView.setTextColor(Color.parseColor("#4CAF50")); // Зеленый
+            if (differenceTextView != null) {
+                if (row.hasBudget) {
+                    differenceTextView.setText(row.differenceText);
+                    differenceTextView.setTextColor(row.differenceColor);
+                    differenceTextView.setVisibility(View.VISIBLE);
                 } else {
-                    // В рамках бюджета
-                    differenceTextView.setText("±0 ₽");
-                    differenceTextView.setTextColor(Color.parseColor("#757575")); // Серый
+                    differenceTextView.setVisibility(View.GONE);
                 }
-
-                differenceTextView.setVisibility(View.VISIBLE);
-            } else if (differenceTextView != null) {
-                differenceTextView.setVisibility(View.GONE);
             }
 
             // ProgressBar заполняется пропорционально текущим расходам относительно прогноза
-            if (budgetProgressBar != null && category.getBudget() > 0) {
-                // Вычисляем прогресс: (текущие расходы / прогноз) * 100
-                double progressValue = (category.getCurrentExpense() / category.getBudget()) * 100;
-                int progress = (int) Math.min(progressValue, 100);
-                budgetProgressBar.setProgress(progress);
-
-                // Меняем цвет в зависимости от процента выполнения прогноза
-                if (progressValue > 100) {
-                    // Перерасход - красный
-                    budgetProgressBar.setProgressTintList(
-                            android.content.res.ColorStateList.valueOf(
-                                    Color.parseColor("#F44336"))); // Красный
-                } else if (progressValue > 80) {
-                    // Близко к прогнозу - оранжевый
-                    budgetProgressBar.setProgressTintList(
-                            android.content.res.ColorStateList.valueOf(
-                                    Color.parseColor("#FF9800"))); // Оранжевый
+            if (budgetProgressBar != null) {
+                if (row.hasBudget) {
+                    budgetProgressBar.setProgress(row.progress);
+                    budgetProgressBar.setProgressTintList(tint(row.progressColor));
+                    budgetProgressBar.setVisibility(View.VISIBLE);
                 } else {
-                    // В пределах нормы - зеленый
-                    budgetProgressBar.setProgressTintList(
-                            android.content.res.ColorStateList.valueOf(
-                                    Color.parseColor("#4CAF50"))); // Зеленый
+                    budgetProgressBar.setVisibility(View.GONE);
                 }
-
-                budgetProgressBar.setVisibility(View.VISIBLE);
-            } else if (budgetProgressBar != null) {
-                budgetProgressBar.setVisibility(View.GONE);
             }
 
             // Обработка кликов
             if (listener != null) {
-                itemView.setOnClickListener(v -> listener.onCategoryClick(category));
+                itemView.setOnClickListener(v -> listener.onCategoryClick(row.category));
                 itemView.setOnLongClickListener(v -> {
-                    listener.onCategoryLongClick(category);
+                    listener.onCategoryLongClick(row.category);
                     return true;
                 });
             }
         }
+
+        private static ColorStateList tint(int color) {
+            ColorStateList tint = TINTS.get(color);
+            if (tint == null) {
+                tint = ColorStateList.valueOf(color);
+                TINTS.put(color, tint);
+            }
+            return tint;
+        }
     }
 
-    public static class SimpleCategoryAdapter extends RecyclerView.Adapter<SimpleCategoryAdapter.ViewHolder> {
+    public static class SimpleCategoryAdapter extends ListAdapter<Category, SimpleCategoryAdapter.ViewHolder> {
 
-        private List<Category> categories;
         private CategoryClickListener clickListener;
 
         public SimpleCategoryAdapter(List<Category> categories, CategoryClickListener clickListener) {
-            this.categories = categories;
+            super(AdapterDiffs.config(AdapterDiffs.CATEGORY));
             this.clickListener = clickListener;
+            setHasStableIds(true);
+            submitList(new ArrayList<>(categories));
         }
 
         @NonNull
@@ -211,18 +168,17 @@ public class CategoryAdapter extends RecyclerView.Adapter<CategoryAdapter.Catego
 
         @Override
         public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-            Category category = categories.get(position);
+            Category category = getItem(position);
             holder.bind(category, clickListener);
         }
 
         @Override
-        public int getItemCount() {
-            return categories.size();
+        public long getItemId(int position) {
+            return getItem(position).getUserCategoryId();
         }
 
         public void updateCategories(List<Category> newCategories) {
-            this.categories = newCategories;
-            notifyDataSetChanged();
+            submitList(new ArrayList<>(newCategories));
         }
 
         public interface CategoryClickListener {
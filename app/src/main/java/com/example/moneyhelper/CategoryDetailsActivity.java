@@ -19,7 +19,9 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.moneyhelper.DataTypes.Category;
 import com.example.moneyhelper.DataTypes.Expense;
+import com.example.moneyhelper.concurrent.TaskScope;
 import com.example.moneyhelper.service.CategoryService;
+import com.example.moneyhelper.service.ExpensePage;
 
 import java.util.ArrayList;
 import java.util.Date;
@@ -41,6 +43,8 @@ public class CategoryDetailsActivity extends AppCompatActivity {
     private TextView totalAmountTextView;
 
     private CategoryService categoryService;
+    private ExpensePageLoader pageLoader;
+    private TaskScope tasks;
     private long userCategoryId;
     private Date monthDate;
 
@@ -67,6 +71,7 @@ public class CategoryDetailsActivity extends AppCompatActivity {
         }
 
         categoryService = new CategoryService(this);
+        tasks = TaskScope.of(this);
 
         initViews();
         
@@ -117,54 +122,55 @@ public class CategoryDetailsActivity extends AppCompatActivity {
             }
         });
         expensesRecyclerView.setAdapter(expenseAdapter);
-    }
-
-    private void loadExpenses() {
-        progressBar.setVisibility(View.VISIBLE);
-        expensesRecyclerView.setVisibility(View.GONE);
-        emptyTextView.setVisibility(View.GONE);
-
-        new Thread(() -> {
-            try {
-                List<Expense> expenses = categoryService.getExpensesByCategory(userCategoryId, monthDate);
-
-                // Вычисляем общую сумму
-                double totalAmount = expenses.stream().mapToDouble(Expense::getAmount).sum();
 
-                if (getApplicationContext() != null) {
-                    runOnUiThread(() -> {
+        // Операции подгружаются страницами при прокрутке
+        pageLoader = new ExpensePageLoader(tasks, expenseAdapter,
+                (after, limit) -> categoryService.getExpensePageByCategory(
+                        userCategoryId, monthDate, after, limit),
+                new ExpensePageLoader.Listener() {
+                    @Override
+                    public void onFirstPageLoaded(ExpensePage page) {
                         progressBar.setVisibility(View.GONE);
-
-                        if (expenses.isEmpty()) {
+                        if (page.expenses.isEmpty()) {
                             showEmptyState();
                         } else {
-                            showExpenses(expenses, totalAmount);
+                            showExpenses();
                         }
-                    });
-                }
+                    }
 
-            } catch (Exception e) {
-                if (getApplicationContext() != null) {
-                    runOnUiThread(() -> {
+                    @Override
+                    public void onError(Exception e) {
                         progressBar.setVisibility(View.GONE);
-                        Toast.makeText(this,
+                        Toast.makeText(CategoryDetailsActivity.this,
                                 "Ошибка загрузки транзакций: " + e.getMessage(),
                                 Toast.LENGTH_SHORT).show();
-                    });
-                }
-            }
-        }).start();
+                    }
+                });
+        expensesRecyclerView.addOnScrollListener(pageLoader);
     }
 
-    private void showExpenses(List<Expense> expenses, double totalAmount) {
-        expensesRecyclerView.setVisibility(View.VISIBLE);
+    private void loadExpenses() {
+        progressBar.setVisibility(View.VISIBLE);
+        expensesRecyclerView.setVisibility(View.GONE);
         emptyTextView.setVisibility(View.GONE);
 
-        expenseAdapter.updateExpenses(expenses);
+        pageLoader.reload();
+        refreshMonthTotal();
+    }
+
+    /**
+     * Итог берется из category_month_totals, а не суммированием всех строк
+     */
+    private void refreshMonthTotal() {
+        tasks.launch("month_total",
+                () -> categoryService.getCategoryMonthTotal(userCategoryId, monthDate),
+                totalAmount -> totalAmountTextView.setText(String.format(Locale.getDefault(),
+                        "Всего: %.0f ₽", totalAmount)));
+    }
 
-        // Обновляем общую сумму
-        totalAmountTextView.setText(String.format(Locale.getDefault(), 
-                "Всего: %.0f ₽", totalAmount));
+    private void showExpenses() {
+        expensesRecyclerView.setVisibility(View.VISIBLE);
+        emptyTextView.setVisibility(View.GONE);
         totalAmountTextView.setVisibility(View.VISIBLE);
     }
 
@@ -176,116 +182,112 @@ public class CategoryDetailsActivity extends AppCompatActivity {
     }
 
     private void showEditExpenseDialog(Expense expense) {
-        new Thread(() -> {
-            List<Category> categories = categoryService.getAllUserCategories();
+        tasks.launch("user_categories", categoryService::getAllUserCategories, categories -> {
+            if (categories.isEmpty()) {
+                Toast.makeText(this,
+                        "Нет доступных категорий.",
+                        Toast.LENGTH_SHORT).show();
+                return;
+            }
 
-            runOnUiThread(() -> {
-                if (categories.isEmpty()) {
+            AlertDialog.Builder builder = new AlertDialog.Builder(this);
+            builder.setTitle("Редактировать расход");
+
+            View dialogView = getLayoutInflater()
+                    .inflate(android.R.layout.simple_list_item_1, null);
+
+            android.widget.LinearLayout container =
+                    new android.widget.LinearLayout(this);
+            container.setOrientation(android.widget.LinearLayout.VERTICAL);
+            container.setPadding(50, 40, 50, 10);
+
+            TextView categoryLabel = new TextView(this);
+            categoryLabel.setText("Категория:");
+            categoryLabel.setTextSize(16);
+            categoryLabel.setPadding(0, 0, 0, 10);
+            container.addView(categoryLabel);
+
+            Spinner categorySpinner = new Spinner(this);
+            List<String> categoryNames = new ArrayList<>();
+            int selectedIndex = 0;
+            for (int i = 0; i < categories.size(); i++) {
+                Category cat = categories.get(i);
+                categoryNames.add(cat.getIcon() + " " + cat.getName());
+                if (cat.getUserCategoryId() == expense.getUserCategoryId()) {
+                    selectedIndex = i;
+                }
+            }
+            ArrayAdapter<String> adapter = new ArrayAdapter<>(
+                    this,
+                    android.R.layout.simple_spinner_item,
+                    categoryNames
+            );
+            adapter.setDropDownViewResource(
+                    android.R.layout.simple_spinner_dropdown_item);
+            categorySpinner.setAdapter(adapter);
+            categorySpinner.setSelection(selectedIndex);
+            container.addView(categorySpinner);
+
+            TextView amountLabel = new TextView(this);
+            amountLabel.setText("Сумма (₽):");
+            amountLabel.setTextSize(16);
+            amountLabel.setPadding(0, 30, 0, 10);
+            container.addView(amountLabel);
+
+            EditText amountEditText = new EditText(this);
+            amountEditText.setInputType(
+                    InputType.TYPE_CLASS_NUMBER
+                            | InputType.TYPE_NUMBER_FLAG_DECIMAL
+            );
+            amountEditText.setText(String.format(
+                    Locale.getDefault(),
+                    "%.2f",
+                    expense.getAmount()
+            ));
+            container.addView(amountEditText);
+
+            builder.setView(container);
+
+            builder.setPositiveButton("Сохранить", (dialog, which) -> {
+                String amountStr = amountEditText.getText()
+                        .toString()
+                        .trim();
+                if (amountStr.isEmpty()) {
                     Toast.makeText(this,
-                            "Нет доступных категорий.",
+                            "Введите сумму",
                             Toast.LENGTH_SHORT).show();
                     return;
                 }
 
-                AlertDialog.Builder builder = new AlertDialog.Builder(this);
-                builder.setTitle("Редактировать расход");
-
-                View dialogView = getLayoutInflater()
-                        .inflate(android.R.layout.simple_list_item_1, null);
-
-                android.widget.LinearLayout container =
-                        new android.widget.LinearLayout(this);
-                container.setOrientation(android.widget.LinearLayout.VERTICAL);
-                container.setPadding(50, 40, 50, 10);
-
-                TextView categoryLabel = new TextView(this);
-                categoryLabel.setText("Категория:");
-                categoryLabel.setTextSize(16);
-                categoryLabel.setPadding(0, 0, 0, 10);
-                container.addView(categoryLabel);
-
-                Spinner categorySpinner = new Spinner(this);
-                List<String> categoryNames = new ArrayList<>();
-                int selectedIndex = 0;
-                for (int i = 0; i < categories.size(); i++) {
-                    Category cat = categories.get(i);
-                    categoryNames.add(cat.getIcon() + " " + cat.getName());
-                    if (cat.getUserCategoryId() == expense.getUserCategoryId()) {
-                        selectedIndex = i;
-                    }
-                }
-                ArrayAdapter<String> adapter = new ArrayAdapter<>(
-                        this,
-                        android.R.layout.simple_spinner_item,
-                        categoryNames
-                );
-                adapter.setDropDownViewResource(
-                        android.R.layout.simple_spinner_dropdown_item);
-                categorySpinner.setAdapter(adapter);
-                categorySpinner.setSelection(selectedIndex);
-                container.addView(categorySpinner);
-
-                TextView amountLabel = new TextView(this);
-                amountLabel.setText("Сумма (₽):");
-                amountLabel.setTextSize(16);
-                amountLabel.setPadding(0, 30, 0, 10);
-                container.addView(amountLabel);
-
-                EditText amountEditText = new EditText(this);
-                amountEditText.setInputType(
-                        InputType.TYPE_CLASS_NUMBER
-                                | InputType.TYPE_NUMBER_FLAG_DECIMAL
-                );
-                amountEditText.setText(String.format(
-                        Locale.getDefault(),
-                        "%.2f",
-                        expense.getAmount()
-                ));
-                container.addView(amountEditText);
-
-                builder.setView(container);
-
-                builder.setPositiveButton("Сохранить", (dialog, which) -> {
-                    String amountStr = amountEditText.getText()
-                            .toString()
-                            .trim();
-                    if (amountStr.isEmpty()) {
+                try {
+                    double amount = Double.parseDouble(amountStr);
+                    if (amount <= 0) {
                         Toast.makeText(this,
-                                "Введите сумму",
+                                "Сумма должна быть больше 0",
                                 Toast.LENGTH_SHORT).show();
                         return;
                     }
 
-                    try {
-                        double amount = Double.parseDouble(amountStr);
-                        if (amount <= 0) {
-                            Toast.makeText(this,
-                                    "Сумма должна быть больше 0",
-                                    Toast.LENGTH_SHORT).show();
-                            return;
-                        }
-
-                        int selectedPosition =
-                                categorySpinner.getSelectedItemPosition();
-                        if (selectedPosition >= 0
-                                && selectedPosition < categories.size()) {
-                            Category selectedCategory =
-                                    categories.get(selectedPosition);
-                            updateExpense(expense.getId(),
-                                    selectedCategory.getUserCategoryId(),
-                                    amount);
-                        }
-                    } catch (NumberFormatException e) {
-                        Toast.makeText(this,
-                                "Некорректная сумма",
-                                Toast.LENGTH_SHORT).show();
+                    int selectedPosition =
+                            categorySpinner.getSelectedItemPosition();
+                    if (selectedPosition >= 0
+                            && selectedPosition < categories.size()) {
+                        Category selectedCategory =
+                                categories.get(selectedPosition);
+                        updateExpense(expense,
+                                selectedCategory.getUserCategoryId(),
+                                amount);
                     }
-                });
-
-                builder.setNegativeButton("Отмена", null);
-                builder.show();
+                } catch (NumberFormatException e) {
+                    Toast.makeText(this,
+                            "Некорректная сумма",
+                            Toast.LENGTH_SHORT).show();
+                }
             });
-        }).start();
+
+            builder.setNegativeButton("Отмена", null);
+            builder.show();
+        });
     }
 
     private void showDeleteExpenseConfirmation(Expense expense) {
@@ -302,44 +304,52 @@ public class CategoryDetailsActivity extends AppCompatActivity {
     }
 
     private void deleteExpense(Expense expense) {
-        new Thread(() -> {
-            boolean success = categoryService.deleteExpense(expense.getId());
-
-            runOnUiThread(() -> {
-                if (success) {
-                    Toast.makeText(this,
-                            "Транзакция удалена",
-                            Toast.LENGTH_SHORT).show();
-                    loadExpenses(); // Перезагружаем список
+        tasks.launchWrite("delete_expense",
+                () -> categoryService.deleteExpense(expense.getId()), success -> {
+            if (success) {
+                Toast.makeText(this,
+                        "Транзакция удалена",
+                        Toast.LENGTH_SHORT).show();
+                // Страницы выбираются по ключу (month_key, id), поэтому удаление
+                // строки не сдвигает следующие страницы и список правится на месте
+                if (expenseAdapter.removeExpense(expense.getId()) == 0) {
+                    loadExpenses(); // Последняя показанная строка: возможно, список пуст
                 } else {
-                    Toast.makeText(this,
-                            "Ошибка удаления транзакции",
-                            Toast.LENGTH_SHORT).show();
+                    refreshMonthTotal();
                 }
-            });
-        }).start();
+            } else {
+                Toast.makeText(this,
+                        "Ошибка удаления транзакции",
+                        Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
-    private void updateExpense(long expenseId, long userCategoryId, double amount) {
-        new Thread(() -> {
-            boolean success = categoryService.updateExpense(
-                    expenseId,
-                    userCategoryId,
-                    amount
-            );
-
-            runOnUiThread(() -> {
-                if (success) {
-                    Toast.makeText(this,
-                            "Расход обновлен",
-                            Toast.LENGTH_SHORT).show();
-                    loadExpenses();
+    private void updateExpense(Expense expense, long newUserCategoryId, double amount) {
+        tasks.launchWrite("update_expense", () -> categoryService.updateExpense(
+                expense.getId(),
+                newUserCategoryId,
+                amount
+        ), success -> {
+            if (success) {
+                Toast.makeText(this,
+                        "Расход обновлен",
+                        Toast.LENGTH_SHORT).show();
+                if (newUserCategoryId != userCategoryId) {
+                    // Операция ушла в другую категорию и пропадает с этого экрана
+                    if (expenseAdapter.removeExpense(expense.getId()) == 0) {
+                        loadExpenses();
+                        return;
+                    }
                 } else {
-                    Toast.makeText(this,
-                            "Ошибка обновления расхода",
-                            Toast.LENGTH_SHORT).show();
+                    expenseAdapter.replaceExpense(expense.withAmount(amount));
                 }
-            });
-        }).start();
+                refreshMonthTotal();
+            } else {
+                Toast.makeText(this,
+                        "Ошибка обновления расхода",
+                        Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 }
@@ -0,0 +1,144 @@
+package com.example.moneyhelper;
+
+import com.example.moneyhelper.DataTypes.Category;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Готовая к показу строка категории
+ * Строки, цвета и прогресс считаются в фоновом потоке при загрузке данных,
+ * поэтому bind в адаптере только раскладывает поля по view
+ */
+public final class CategoryRowModel {
+
+    static final int COLOR_GREEN = 0xFF4CAF50;
+    static final int COLOR_YELLOW = 0xFFFFC107;
+    static final int COLOR_ORANGE = 0xFFFF9800;
+    static final int COLOR_RED = 0xFFF44336;
+    static final int COLOR_GREY = 0xFF757575;
+
+    /** Исходная категория для обработчиков кликов; в сравнении не участвует */
+    public final Category category;
+    public final long userCategoryId;
+
+    public final String icon;
+    public final String name;
+    /** Текущие расходы, "1 250 ₽" */
+    public final String expenseText;
+    /** Прогноз, для списка прогнозов на главном экране */
+    public final String forecastText;
+
+    /** Есть ли прогноз: без него бюджет, разница и прогресс скрыты */
+    public final boolean hasBudget;
+    public final String percentText;
+    public final int percentColor;
+    public final String budgetText;
+    public final String differenceText;
+    public final int differenceColor;
+    public final int progress;
+    public final int progressColor;
+
+    private CategoryRowModel(Category category, Locale locale) {
+        this.category = category;
+        this.userCategoryId = category.getUserCategoryId();
+        this.icon = category.getIcon();
+        this.name = category.getName();
+        this.expenseText = String.format(locale, "%.0f ₽", category.getCurrentExpense());
+        this.forecastText = String.format(locale, "%.0f ₽", category.getBudget());
+
+        double budget = category.getBudget();
+        this.hasBudget = budget > 0;
+        if (!hasBudget) {
+            percentText = "";
+            percentColor = COLOR_GREY;
+            budgetText = null;
+            differenceText = null;
+            differenceColor = COLOR_GREY;
+            progress = 0;
+            progressColor = COLOR_GREEN;
+            return;
+        }
+
+        // Процент текущих расходов от прогноза
+        double percentValue = (category.getCurrentExpense() / budget) * 100;
+        percentText = String.format(locale, "%.0f%%", percentValue);
+        if (percentValue < 90) {
+            percentColor = COLOR_GREEN;
+        } else if (percentValue <= 100) {
+            percentColor = COLOR_YELLOW;
+        } else {
+            percentColor = COLOR_RED;
+        }
+
+        budgetText = String.format(locale, "Бюджет: %.0f ₽", budget);
+
+        // Разница: плюс - перерасход, минус - экономия
+        double diff = category.getDifference();
+        if (diff > 0) {
+            differenceText = String.format(locale, "+%.0f ₽", diff);
+            differenceColor = COLOR_RED;
+        } else if (diff < 0) {
+            differenceText = String.format(locale, "%.0f ₽", diff);
+            differenceColor = COLOR_GREEN;
+        } else {
+            differenceText = "±0 ₽";
+            differenceColor = COLOR_GREY;
+        }
+
+        progress = (int) Math.min(percentValue, 100);
+        if (percentValue > 100) {
+            progressColor = COLOR_RED;
+        } else if (percentValue > 80) {
+            progressColor = COLOR_ORANGE;
+        } else {
+            progressColor = COLOR_GREEN;
+        }
+    }
+
+    public static CategoryRowModel of(Category category) {
+        return new CategoryRowModel(category, Locale.getDefault());
+    }
+
+    /**
+     * Строки для списка; вызывать в фоновом потоке
+     */
+    public static List<CategoryRowModel> listOf(List<Category> categories) {
+        Locale locale = Locale.getDefault();
+        List<CategoryRowModel> rows = new ArrayList<>(categories.size());
+        for (Category category : categories) {
+            rows.add(new CategoryRowModel(category, locale));
+        }
+        return rows;
+    }
+
+    /**
+     * Совпадает все, что видно на экране
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CategoryRowModel)) return false;
+        CategoryRowModel other = (CategoryRowModel) o;
+        return userCategoryId == other.userCategoryId
+                && hasBudget == other.hasBudget
+                && percentColor == other.percentColor
+                && differenceColor == other.differenceColor
+                && progress == other.progress
+                && progressColor == other.progressColor
+                && Objects.equals(icon, other.icon)
+                && Objects.equals(name, other.name)
+                && Objects.equals(expenseText, other.expenseText)
+                && Objects.equals(forecastText, other.forecastText)
+                && Objects.equals(percentText, other.percentText)
+                && Objects.equals(budgetText, other.budgetText)
+                && Objects.equals(differenceText, other.differenceText);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userCategoryId, name, expenseText, forecastText, differenceText);
+    }
+}
@@ -11,6 +11,7 @@ public class Expense {
     private double amount;  // Сумма расхода
     private boolean isIncome;  // Доход или расход
     private Date date;  // Дата расхода
+    private String merchantName;  // Продавец из справочника merchants (может быть null)
 
     // Конструктор для создания из БД
     public Expense(long id, String transactionId, long userCategoryId, 
@@ -38,6 +39,15 @@ public class Expense {
         this.date = new Date();
     }
 
+    // Копия с другой суммой: строки ExpenseAdapter не меняются на месте,
+    // иначе DiffUtil не увидит изменения
+    public Expense withAmount(double newAmount) {
+        Expense copy = new Expense(id, transactionId, userCategoryId,
+                categoryName, categoryIcon, newAmount, isIncome, date);
+        copy.merchantName = merchantName;
+        return copy;
+    }
+
     // Геттеры
     public long getId() { return id; }
     public String getTransactionId() { return transactionId; }
@@ -48,10 +58,12 @@ public class Expense {
     public double getAmount() { return amount; }
     public boolean isIncome() { return isIncome; }
     public Date getDate() { return date; }
+    public String getMerchantName() { return merchantName; }
 
     // Сеттеры
     public void setAmount(double amount) { this.amount = amount; }
     public void setCategoryName(String categoryName) { this.categoryName = categoryName; }
     public void setUserCategoryId(long userCategoryId) { this.userCategoryId = userCategoryId; }
     public void setDate(Date date) { this.date = date; }
+    public void setMerchantName(String merchantName) { this.merchantName = merchantName; }
 }
\ No newline at end of file
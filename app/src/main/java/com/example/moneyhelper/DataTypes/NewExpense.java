@@ -0,0 +1,29 @@
+package com.example.moneyhelper.DataTypes;
+
+import java.util.Date;
+
+/**
+ * Расход для пакетного добавления через CategoryService.addExpenses
+ */
+public class NewExpense {
+    private final long userCategoryId;
+    private final double amount;
+    private final Date month;  // Месяц расхода (null - текущий)
+    private final boolean isIncome;
+
+    public NewExpense(long userCategoryId, double amount, Date month, boolean isIncome) {
+        this.userCategoryId = userCategoryId;
+        this.amount = amount;
+        this.month = month;
+        this.isIncome = isIncome;
+    }
+
+    public NewExpense(long userCategoryId, double amount, Date month) {
+        this(userCategoryId, amount, month, false);
+    }
+
+    public long getUserCategoryId() { return userCategoryId; }
+    public double getAmount() { return amount; }
+    public Date getMonth() { return month; }
+    public boolean isIncome() { return isIncome; }
+}
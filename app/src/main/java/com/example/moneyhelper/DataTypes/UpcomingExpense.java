@@ -1,18 +1,21 @@
 package com.example.moneyhelper.DataTypes;
 
 public class UpcomingExpense {
+    private long id;  // ID из таблицы upcoming_expenses
     private String title;
     private int amount;
     private String date;
     private String note;
 
-    public UpcomingExpense(String title, int amount, String date, String note) {
+    public UpcomingExpense(long id, String title, int amount, String date, String note) {
+        this.id = id;
         this.title = title;
         this.amount = amount;
         this.date = date;
         this.note = note;
     }
 
+    public long getId() { return id; }
     public String getTitle() { return title; }
     public int getAmount() { return amount; }
     public String getDate() { return date; }
@@ -20,22 +20,31 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     private static final String TAG = "DatabaseHelper";
     private static final String DB_NAME = "money_helper.db";
     private static final int DB_VERSION = 6;
+    // Версия схемы поверх БД из assets (PRAGMA user_version)
+    private static final int SCHEMA_VERSION = 6;
+
+    // Ключ месяца yyyyMM из dates.date: встречаются и dd.MM.yyyy, и yyyy-MM-dd
+    private static final String MONTH_KEY_OF_DATE =
+            "CASE WHEN substr(date, 5, 1) = '-' " +
+                    "THEN CAST(substr(date, 1, 4) AS INTEGER) * 100 + CAST(substr(date, 6, 2) AS INTEGER) " +
+                    "ELSE CAST(substr(date, 7, 4) AS INTEGER) * 100 + CAST(substr(date, 4, 2) AS INTEGER) END";
 
     private static DatabaseHelper instance;
     private static final Object instanceLock = new Object();
 
     private final Context context;
-    private final String dbPath;
+    // Берется при первом открытии: getDatabasePath создает папку databases
+    private String dbPath;
     private SQLiteDatabase database;
+    // Миграция требует пересчитать регулярные платежи по истории
+    private boolean upcomingRebuildPending;
 
     // Приватный конструктор для Singleton
     private DatabaseHelper(Context context) {
         super(context.getApplicationContext(), DB_NAME, null, DB_VERSION);
         this.context = context.getApplicationContext();
-        this.dbPath = context.getDatabasePath(DB_NAME).getPath();
-
-        // Проверяем и копируем БД при создании
-        checkAndCopyDatabase();
+        // Конструктор не трогает диск: экземпляр создается и в главном потоке,
+        // а проверка и копирование БД выполняются при первом открытии
     }
 
     /**
@@ -96,11 +105,18 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         }
     }
 
+    private synchronized String dbPath() {
+        if (dbPath == null) {
+            dbPath = context.getDatabasePath(DB_NAME).getPath();
+        }
+        return dbPath;
+    }
+
     /**
      * Проверяем существует ли БД
      */
     private boolean checkDatabaseExists() {
-        File dbFile = new File(dbPath);
+        File dbFile = new File(dbPath());
         return dbFile.exists();
     }
 
@@ -109,7 +125,7 @@ public class DatabaseHelper extends SQLiteOpenHelper {
      */
     private void copyDatabase() throws IOException {
         // Убедимся, что папка databases существует
-        File dbFile = new File(dbPath);
+        File dbFile = new File(dbPath());
         File dbDir = dbFile.getParentFile();
         if (dbDir != null && !dbDir.exists()) {
             dbDir.mkdirs();
@@ -119,7 +135,7 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         InputStream inputStream = context.getAssets().open(DB_NAME);
 
         // Создаем поток для записи
-        OutputStream outputStream = new FileOutputStream(dbPath);
+        OutputStream outputStream = new FileOutputStream(dbPath());
 
         // Копируем файл
         byte[] buffer = new byte[8192]; // Увеличенный буфер для скорости
@@ -145,19 +161,12 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         }
 
         // Убедимся, что БД скопирована
-        if (!checkDatabaseExists()) {
-            try {
-                copyDatabase();
-            } catch (IOException e) {
-                Log.e(TAG, "Error copying database", e);
-                throw new RuntimeException("Error copying database", e);
-            }
-        }
+        checkAndCopyDatabase();
 
         try {
             // Открываем БД с флагами для предотвращения блокировок
             database = SQLiteDatabase.openDatabase(
-                    dbPath,
+                    dbPath(),
                     null,
                     SQLiteDatabase.OPEN_READWRITE |
                             SQLiteDatabase.CREATE_IF_NECESSARY |
@@ -172,6 +181,8 @@ public class DatabaseHelper extends SQLiteOpenHelper {
 
             Log.d(TAG, "Database opened in WAL mode");
 
+            migrate(database);
+
         } catch (SQLException e) {
             Log.e(TAG, "Error opening database", e);
             throw e;
@@ -180,6 +191,170 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         return database;
     }
 
+    /**
+     * Дополняет схему готовой БД таблицами и индексами, которых нет в assets
+     * onUpgrade не вызывается, так как БД открывается напрямую
+     */
+    private void migrate(SQLiteDatabase db) {
+        int version = db.getVersion();
+        if (version >= SCHEMA_VERSION) {
+            return;
+        }
+
+        db.beginTransaction();
+        try {
+            if (version < 1) {
+                // Периоды импортированных выписок по счетам
+                db.execSQL("CREATE TABLE IF NOT EXISTS statement_periods (" +
+                        "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                        "account TEXT NOT NULL, " +
+                        "day_from INTEGER NOT NULL, " +
+                        "day_to INTEGER NOT NULL, " +
+                        "imported_at INTEGER NOT NULL)");
+                db.execSQL("CREATE INDEX IF NOT EXISTS idx_statement_periods_account " +
+                        "ON statement_periods(account)");
+            }
+            if (version < 2) {
+                // Справочник продавцов: расход хранит id вместо строки описания
+                db.execSQL("CREATE TABLE IF NOT EXISTS merchants (" +
+                        "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                        "name TEXT NOT NULL, " +
+                        "normalized TEXT NOT NULL UNIQUE)");
+                db.execSQL("ALTER TABLE monthly_expenses ADD COLUMN merchant_id INTEGER");
+                db.execSQL("CREATE INDEX IF NOT EXISTS idx_monthly_expenses_merchant " +
+                        "ON monthly_expenses(merchant_id)");
+
+                // Полнотекстовый индекс по названиям (FTS5 в SQLite Android недоступен)
+                db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS merchants_fts " +
+                        "USING fts4(content=\"merchants\", name, tokenize=unicode61)");
+                db.execSQL("CREATE TRIGGER IF NOT EXISTS merchants_fts_insert " +
+                        "AFTER INSERT ON merchants BEGIN " +
+                        "INSERT INTO merchants_fts(docid, name) VALUES (new.id, new.name); END");
+                db.execSQL("CREATE TRIGGER IF NOT EXISTS merchants_fts_delete " +
+                        "BEFORE DELETE ON merchants BEGIN " +
+                        "DELETE FROM merchants_fts WHERE docid = old.id; END");
+                db.execSQL("CREATE TRIGGER IF NOT EXISTS merchants_fts_update_before " +
+                        "BEFORE UPDATE ON merchants BEGIN " +
+                        "DELETE FROM merchants_fts WHERE docid = old.id; END");
+                db.execSQL("CREATE TRIGGER IF NOT EXISTS merchants_fts_update_after " +
+                        "AFTER UPDATE ON merchants BEGIN " +
+                        "INSERT INTO merchants_fts(docid, name) VALUES (new.id, new.name); END");
+            }
+            if (version < 3) {
+                // День операции (номер дня с 01.01.1970): dates хранит только месяц
+                db.execSQL("ALTER TABLE monthly_expenses ADD COLUMN tx_day INTEGER");
+                db.execSQL("CREATE INDEX IF NOT EXISTS idx_monthly_expenses_merchant_day " +
+                        "ON monthly_expenses(merchant_id, tx_day)");
+
+                // Ожидаемые регулярные списания
+                db.execSQL("CREATE TABLE IF NOT EXISTS upcoming_expenses (" +
+                        "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                        "merchant_id INTEGER NOT NULL, " +
+                        "user_cat_id INTEGER, " +
+                        "amount INTEGER NOT NULL, " +
+                        "period_days INTEGER NOT NULL, " +
+                        "occurrences INTEGER NOT NULL, " +
+                        "last_day INTEGER NOT NULL, " +
+                        "next_day INTEGER NOT NULL)");
+                db.execSQL("CREATE INDEX IF NOT EXISTS idx_upcoming_expenses_merchant " +
+                        "ON upcoming_expenses(merchant_id)");
+                db.execSQL("CREATE INDEX IF NOT EXISTS idx_upcoming_expenses_next_day " +
+                        "ON upcoming_expenses(next_day)");
+            }
+            if (version < 4) {
+                // Итоги категория x месяц, поддерживаются триггерами на monthly_expenses
+                db.execSQL("CREATE TABLE IF NOT EXISTS category_month_totals (" +
+                        "user_cat_id INTEGER NOT NULL, " +
+                        "month_key INTEGER NOT NULL, " +
+                        "expense_sum REAL NOT NULL DEFAULT 0, " +
+                        "income_sum REAL NOT NULL DEFAULT 0, " +
+                        "tx_count INTEGER NOT NULL DEFAULT 0, " +
+                        "PRIMARY KEY (user_cat_id, month_key))");
+                db.execSQL("CREATE INDEX IF NOT EXISTS idx_category_month_totals_month " +
+                        "ON category_month_totals(month_key)");
+
+                db.execSQL("DELETE FROM category_month_totals");
+                db.execSQL("INSERT INTO category_month_totals " +
+                        "(user_cat_id, month_key, expense_sum, income_sum, tx_count) " +
+                        "SELECT me.user_cat_id, (SELECT " + MONTH_KEY_OF_DATE +
+                        " FROM dates WHERE id = me.date_id) AS mk, " +
+                        "SUM(CASE WHEN COALESCE(me.is_income, 0) = 0 THEN me.expenses ELSE 0 END), " +
+                        "SUM(CASE WHEN me.is_income = 1 THEN me.expenses ELSE 0 END), " +
+                        "COUNT(*) " +
+                        "FROM monthly_expenses me " +
+                        "WHERE me.user_cat_id IS NOT NULL " +
+                        "GROUP BY me.user_cat_id, mk " +
+                        "HAVING mk IS NOT NULL");
+
+                db.execSQL("CREATE TRIGGER IF NOT EXISTS category_month_totals_insert " +
+                        "AFTER INSERT ON monthly_expenses " +
+                        "WHEN new.user_cat_id IS NOT NULL BEGIN " +
+                        addToTotals("new", "1") + " END");
+                db.execSQL("CREATE TRIGGER IF NOT EXISTS category_month_totals_delete " +
+                        "AFTER DELETE ON monthly_expenses " +
+                        "WHEN old.user_cat_id IS NOT NULL BEGIN " +
+                        addToTotals("old", "-1") +
+                        " DELETE FROM category_month_totals WHERE tx_count <= 0" +
+                        " AND user_cat_id = old.user_cat_id; END");
+                db.execSQL("CREATE TRIGGER IF NOT EXISTS category_month_totals_update " +
+                        "AFTER UPDATE OF user_cat_id, date_id, expenses, is_income " +
+                        "ON monthly_expenses BEGIN " +
+                        addToTotals("old", "-1") + " " + addToTotals("new", "1") +
+                        " DELETE FROM category_month_totals WHERE tx_count <= 0" +
+                        " AND user_cat_id = old.user_cat_id; END");
+            }
+            if (version < 5) {
+                // Ключ месяца в самой операции - для постраничной выборки по (month_key, id)
+                db.execSQL("ALTER TABLE monthly_expenses ADD COLUMN month_key INTEGER");
+                db.execSQL("UPDATE monthly_expenses SET month_key = (SELECT " + MONTH_KEY_OF_DATE +
+                        " FROM dates WHERE id = monthly_expenses.date_id)");
+                db.execSQL("CREATE INDEX IF NOT EXISTS idx_monthly_expenses_cat_month " +
+                        "ON monthly_expenses(user_cat_id, month_key, id)");
+                db.execSQL("CREATE INDEX IF NOT EXISTS idx_monthly_expenses_month " +
+                        "ON monthly_expenses(month_key, id)");
+
+                // Кто не указал month_key при вставке, получает его из dates
+                db.execSQL("CREATE TRIGGER IF NOT EXISTS monthly_expenses_month_key_insert " +
+                        "AFTER INSERT ON monthly_expenses WHEN new.month_key IS NULL BEGIN " +
+                        "UPDATE monthly_expenses SET month_key = (SELECT " + MONTH_KEY_OF_DATE +
+                        " FROM dates WHERE id = new.date_id) WHERE id = new.id; END");
+                db.execSQL("CREATE TRIGGER IF NOT EXISTS monthly_expenses_month_key_update " +
+                        "AFTER UPDATE OF date_id ON monthly_expenses BEGIN " +
+                        "UPDATE monthly_expenses SET month_key = (SELECT " + MONTH_KEY_OF_DATE +
+                        " FROM dates WHERE id = new.date_id) WHERE id = new.id; END");
+            }
+            if (version < 6) {
+                // upcoming_expenses заполнялась только после импорта: история,
+                // загруженная раньше, пересчитывается один раз после открытия БД
+                upcomingRebuildPending = true;
+            }
+
+            db.setVersion(SCHEMA_VERSION);
+            db.setTransactionSuccessful();
+            Log.d(TAG, "Schema migrated from " + version + " to " + SCHEMA_VERSION);
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Тело триггера: прибавляет (sign = 1) или вычитает (sign = -1) строку расхода
+     * @param row new или old
+     */
+    private static String addToTotals(String row, String sign) {
+        String monthKey = "(SELECT " + MONTH_KEY_OF_DATE + " FROM dates WHERE id = " + row + ".date_id)";
+        return "INSERT OR IGNORE INTO category_month_totals (user_cat_id, month_key) " +
+                "SELECT " + row + ".user_cat_id, " + monthKey +
+                " WHERE " + row + ".user_cat_id IS NOT NULL AND " + monthKey + " IS NOT NULL; " +
+                "UPDATE category_month_totals SET " +
+                "expense_sum = expense_sum + " + sign + " * (CASE WHEN COALESCE(" + row +
+                ".is_income, 0) = 0 THEN COALESCE(" + row + ".expenses, 0) ELSE 0 END), " +
+                "income_sum = income_sum + " + sign + " * (CASE WHEN " + row +
+                ".is_income = 1 THEN COALESCE(" + row + ".expenses, 0) ELSE 0 END), " +
+                "tx_count = tx_count + " + sign + " " +
+                "WHERE user_cat_id = " + row + ".user_cat_id AND month_key = " + monthKey + ";";
+    }
+
     /**
      * Получить БД для чтения
      * В WAL режиме чтение не блокирует запись
@@ -204,6 +379,15 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         super.close();
     }
 
+    /**
+     * Нужен ли пересчет регулярных платежей после миграции; сбрасывает признак
+     */
+    public synchronized boolean takeUpcomingRebuild() {
+        boolean pending = upcomingRebuildPending;
+        upcomingRebuildPending = false;
+        return pending;
+    }
+
     /**
      * Проверка состояния БД
      */
@@ -7,21 +7,28 @@ import android.view.ViewGroup;
 import android.widget.ImageButton;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.moneyhelper.DataTypes.Expense;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 
-public class ExpenseAdapter extends RecyclerView.Adapter<ExpenseAdapter.ExpenseViewHolder> {
+public class ExpenseAdapter extends ListAdapter<Expense, ExpenseAdapter.ExpenseViewHolder> {
 
+    // Последний отправленный список: сравнение асинхронное, и getCurrentList()
+    // может еще не содержать предыдущую страницу
     private List<Expense> expenses;
     private ExpenseClickListener clickListener;
 
     public ExpenseAdapter(List<Expense> expenses, ExpenseClickListener clickListener) {
-        this.expenses = expenses;
+        super(AdapterDiffs.config(AdapterDiffs.EXPENSE));
         this.clickListener = clickListener;
+        setHasStableIds(true);
+        this.expenses = new ArrayList<>(expenses);
+        submitList(this.expenses);
     }
 
     @NonNull
@@ -34,18 +41,74 @@ public class ExpenseAdapter extends RecyclerView.Adapter<ExpenseAdapter.ExpenseV
 
     @Override
     public void onBindViewHolder(@NonNull ExpenseViewHolder holder, int position) {
-        Expense expense = expenses.get(position);
+        Expense expense = getItem(position);
         holder.bind(expense, clickListener);
     }
 
     @Override
-    public int getItemCount() {
-        return expenses.size();
+    public long getItemId(int position) {
+        return getItem(position).getId();
     }
 
+    /**
+     * Новый список; после правки одной операции перерисовывается одна строка
+     */
     public void updateExpenses(List<Expense> newExpenses) {
-        this.expenses = newExpenses;
-        notifyDataSetChanged();
+        this.expenses = new ArrayList<>(newExpenses);
+        submitList(this.expenses);
+    }
+
+    /**
+     * Дописывает следующую страницу, не перерисовывая уже показанные строки
+     */
+    public void appendExpenses(List<Expense> page) {
+        if (page.isEmpty()) {
+            return;
+        }
+        // Отправленный список не меняется: ListAdapter мог еще не закончить сравнение
+        List<Expense> next = new ArrayList<>(expenses.size() + page.size());
+        next.addAll(expenses);
+        next.addAll(page);
+        this.expenses = next;
+        submitList(next);
+    }
+
+    /**
+     * Заменяет операцию с тем же id; перерисовывается одна строка
+     */
+    public void replaceExpense(Expense expense) {
+        int index = indexOf(expense.getId());
+        if (index < 0) {
+            return;
+        }
+        List<Expense> next = new ArrayList<>(expenses);
+        next.set(index, expense);
+        this.expenses = next;
+        submitList(next);
+    }
+
+    /**
+     * Убирает операцию из списка; загруженные страницы не перечитываются
+     * @return сколько операций осталось в списке
+     */
+    public int removeExpense(long expenseId) {
+        int index = indexOf(expenseId);
+        if (index >= 0) {
+            List<Expense> next = new ArrayList<>(expenses);
+            next.remove(index);
+            this.expenses = next;
+            submitList(next);
+        }
+        return expenses.size();
+    }
+
+    private int indexOf(long expenseId) {
+        for (int i = 0; i < expenses.size(); i++) {
+            if (expenses.get(i).getId() == expenseId) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     /**
@@ -0,0 +1,117 @@
+package com.example.moneyhelper;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.moneyhelper.concurrent.TaskScope;
+import com.example.moneyhelper.service.ExpensePage;
+
+/**
+ * Подгрузка операций страницами при прокрутке списка
+ * Страницы читаются в фоновом потоке и дописываются в конец ExpenseAdapter
+ * Загрузки идут в TaskScope экрана и отменяются вместе с ним
+ */
+public class ExpensePageLoader extends RecyclerView.OnScrollListener {
+    private static final String TAG = "ExpensePageLoader";
+
+    public static final int PAGE_SIZE = 50;
+    // За сколько строк до конца списка запрашивать следующую страницу
+    private static final int PREFETCH_DISTANCE = 15;
+
+    /**
+     * Источник страниц, вызывается в фоновом потоке
+     */
+    public interface PageSource {
+        ExpensePage load(ExpensePage.Key after, int limit);
+    }
+
+    /**
+     * Вызывается в главном потоке после первой страницы
+     */
+    public interface Listener {
+        void onFirstPageLoaded(ExpensePage page);
+        void onError(Exception e);
+    }
+
+    private final ExpenseAdapter adapter;
+    private final PageSource source;
+    private final Listener listener;
+    private final TaskScope tasks;
+
+    private ExpensePage.Key nextKey;
+    private boolean loading;
+    private boolean hasMore;
+    // Номер загрузки: ответы от сброшенных загрузок отбрасываются
+    private int generation;
+
+    public ExpensePageLoader(TaskScope tasks, ExpenseAdapter adapter, PageSource source,
+                             Listener listener) {
+        this.tasks = tasks;
+        this.adapter = adapter;
+        this.source = source;
+        this.listener = listener;
+    }
+
+    /**
+     * Загружает список заново с первой страницы
+     */
+    public void reload() {
+        generation++;
+        nextKey = null;
+        hasMore = true;
+        loading = false;
+        loadNextPage();
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        if (dy <= 0 || loading || !hasMore) {
+            return;
+        }
+        RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        if (!(layoutManager instanceof LinearLayoutManager)) {
+            return;
+        }
+        int lastVisible = ((LinearLayoutManager) layoutManager).findLastVisibleItemPosition();
+        if (lastVisible >= adapter.getItemCount() - PREFETCH_DISTANCE) {
+            loadNextPage();
+        }
+    }
+
+    private void loadNextPage() {
+        if (loading || !hasMore || !tasks.isActive()) {
+            return;
+        }
+        loading = true;
+        final int requestGeneration = generation;
+        final ExpensePage.Key after = nextKey;
+
+        tasks.launch("expense_page", () -> source.load(after, PAGE_SIZE),
+                page -> onPageLoaded(requestGeneration, after == null, page),
+                e -> {
+                    Log.e(TAG, "Ошибка загрузки страницы", e);
+                    if (requestGeneration != generation) return;
+                    loading = false;
+                    listener.onError(e);
+                });
+    }
+
+    private void onPageLoaded(int requestGeneration, boolean first, ExpensePage page) {
+        if (requestGeneration != generation) {
+            return;
+        }
+        loading = false;
+        nextKey = page.next;
+        hasMore = page.hasMore();
+
+        if (first) {
+            adapter.updateExpenses(page.expenses);
+            listener.onFirstPageLoaded(page);
+        } else {
+            adapter.appendExpenses(page.expenses);
+        }
+    }
+}
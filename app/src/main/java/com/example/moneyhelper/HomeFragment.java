@@ -18,9 +18,14 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.moneyhelper.DatabaseHelper;
 import com.example.moneyhelper.DataTypes.Category;
+import com.example.moneyhelper.concurrent.TaskScope;
 import com.example.moneyhelper.predict.ExpensePredictor;
 import com.example.moneyhelper.predict.PredictionResult;
 import com.example.moneyhelper.service.CategoryService;
+import com.example.moneyhelper.service.DashboardSnapshot;
+import com.example.moneyhelper.service.DataVersions;
+import com.example.moneyhelper.service.MonthKeyCodec;
+import com.example.moneyhelper.service.UpcomingExpenseService;
 
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
@@ -28,22 +33,45 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class HomeFragment extends Fragment {
 
+    private static final String TAG = "HomeFragment";
+
     private TextView balanceTextView;
     private RecyclerView expensesRecyclerView;
     private PredictAdapter categoryAdapter;
     private Button predictionButton;
     private Button showButton;
-    private ExecutorService executorService;
+    private TaskScope tasks;
+    // Текущая загрузка; новая загрузка отменяет предыдущую
+    private TaskScope.Task loadTask;
     private CategoryService categoryService;
     private TextView emptyTextView;
+    private RecyclerView upcomingRecyclerView;
+    private TextView upcomingEmptyTextView;
+    private UpcomingExpenseAdapter upcomingAdapter;
+    private UpcomingExpenseService upcomingService;
+    private TaskScope.Task upcomingTask;
+
+    // Главный экран показывает доход, категории и прогнозы текущего месяца
+    private static final DataVersions.Slice DATA_SLICE = DataVersions.slice(
+            DataVersions.Table.USERS, DataVersions.Table.CATEGORIES,
+            DataVersions.Table.PREDICTIONS);
+    private DataVersions versions;
+    private DataVersions.Subscription subscription;
+    private long loadedStamp = -1;
+    private int loadedMonthKey;
+    // Ближайшие платежи зависят только от upcoming_expenses и грузятся отдельно
+    private static final DataVersions.Slice UPCOMING_SLICE =
+            DataVersions.slice(DataVersions.Table.UPCOMING);
+    private static final int UPCOMING_LIMIT = 5;
+    private long upcomingStamp = -1;
+    // Последний снимок главного экрана, переживает пересоздание фрагмента
+    private ScreenState<DashboardView> state;
     
-    private List<Category> allCategories;
-    private List<Category> displayedCategories;
+    private List<CategoryRowModel> allCategories;
+    private List<CategoryRowModel> displayedCategories;
     private static final int INITIAL_COUNT = 3;
     private static final int LOAD_MORE_COUNT = 5;
 
@@ -64,14 +92,26 @@ public class HomeFragment extends Fragment {
         super.onViewCreated(view, savedInstanceState);
 
         categoryService = new CategoryService(getContext());
+        upcomingService = new UpcomingExpenseService(requireContext());
+        versions = DataVersions.getInstance();
+        state = ScreenState.of(this);
+        // Загрузки отменяются вместе с view фрагмента
+        tasks = TaskScope.of(getViewLifecycleOwner());
         initViews(view);
         setupRecyclerView();
         setupPredictionButton();
         setupShowButton();
-        loadData();
-
-        // Создаем пул потоков
-        executorService = Executors.newSingleThreadExecutor();
+        restoreOrLoad();
+        refreshUpcomingIfChanged();
+
+        // Подписка на все расходы; лишние месяцы отсекает refreshIfChanged
+        subscription = versions.subscribe(DATA_SLICE.withTables(
+                DataVersions.Table.EXPENSES, DataVersions.Table.UPCOMING), () -> {
+            if (isResumed()) {
+                refreshIfChanged();
+                refreshUpcomingIfChanged();
+            }
+        });
     }
 
     private void initViews(View view) {
@@ -79,13 +119,15 @@ public class HomeFragment extends Fragment {
         expensesRecyclerView = view.findViewById(R.id.expensesRecyclerView);
         emptyTextView = view.findViewById(R.id.emptyTextView);
         showButton = view.findViewById(R.id.showButton);
+        upcomingRecyclerView = view.findViewById(R.id.upcomingRecyclerView);
+        upcomingEmptyTextView = view.findViewById(R.id.upcomingEmptyTextView);
     }
 
     private void setupRecyclerView() {
         expensesRecyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
 
         // Используем CategoryAdapter с item_category.xml
-        List<Category> emptyList = new ArrayList<>();
+        List<CategoryRowModel> emptyList = new ArrayList<>();
         categoryAdapter = new PredictAdapter(emptyList, new PredictAdapter.CategoryClickListener() {
             @Override
             public void onCategoryClick(Category category) {
@@ -98,66 +140,107 @@ public class HomeFragment extends Fragment {
             }
         });
         expensesRecyclerView.setAdapter(categoryAdapter);
+
+        upcomingRecyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
+        upcomingAdapter = new UpcomingExpenseAdapter(new ArrayList<>());
+        upcomingRecyclerView.setAdapter(upcomingAdapter);
+    }
+
+    /**
+     * Перезагружает экран, только если данные текущего месяца изменились
+     */
+    private void refreshIfChanged() {
+        int monthKey = MonthKeyCodec.fromMillis(System.currentTimeMillis());
+        if (monthKey != loadedMonthKey
+                || versions.stamp(DATA_SLICE.withMonth(monthKey)) != loadedStamp) {
+            loadData();
+        }
+    }
+
+    /**
+     * После пересоздания фрагмента показывает сохраненный снимок;
+     * запрос к БД идет, только если данные с тех пор менялись
+     */
+    private void restoreOrLoad() {
+        int monthKey = MonthKeyCodec.fromMillis(System.currentTimeMillis());
+        long stamp = versions.stamp(DATA_SLICE.withMonth(monthKey));
+        DashboardView cached = state.get(monthKey, stamp);
+        if (cached != null) {
+            loadedMonthKey = monthKey;
+            loadedStamp = stamp;
+            showDashboard(cached);
+            return;
+        }
+        // Устаревший снимок показываем до прихода новых данных
+        if (state.peek() != null) {
+            showDashboard(state.peek());
+        }
+        loadData();
     }
 
     private void loadData() {
+        // Версии запоминаются до запроса: запись во время загрузки вызовет еще одну
+        int monthKey = MonthKeyCodec.fromMillis(System.currentTimeMillis());
+        long stamp = versions.stamp(DATA_SLICE.withMonth(monthKey));
+        loadedMonthKey = monthKey;
+        loadedStamp = stamp;
+        if (loadTask != null) {
+            loadTask.cancel();
+        }
+        // Баланс, расходы и прогнозы за текущий месяц одним запросом в фоновом потоке,
+        // там же форматируются строки для экрана
+        loadTask = tasks.launch("dashboard",
+                () -> DashboardView.of(categoryService.getDashboardSnapshot(new Date())), dashboard -> {
+            state.put(monthKey, stamp, dashboard);
+            showDashboard(dashboard);
+        }, e -> {
+            loadedStamp = -1;
+            Toast.makeText(getContext(),
+                    "Ошибка загрузки данных: " + e.getMessage(),
+                    Toast.LENGTH_SHORT).show();
+        });
+    }
+
+    /**
+     * Перезагружает ближайшие платежи, только если upcoming_expenses изменилась
+     */
+    private void refreshUpcomingIfChanged() {
+        long stamp = versions.stamp(UPCOMING_SLICE);
+        if (stamp == upcomingStamp) {
+            return;
+        }
+        upcomingStamp = stamp;
+        if (upcomingTask != null) {
+            upcomingTask.cancel();
+        }
+        upcomingTask = tasks.launch("upcoming",
+                () -> upcomingService.getUpcomingExpenses(UPCOMING_LIMIT), expenses -> {
+            upcomingAdapter.updateExpenses(expenses);
+            upcomingEmptyTextView.setVisibility(expenses.isEmpty() ? View.VISIBLE : View.GONE);
+        }, e -> {
+            upcomingStamp = -1;
+            Log.e(TAG, "Ошибка загрузки ближайших расходов", e);
+        });
+    }
+
+    private void showDashboard(DashboardView dashboard) {
         resetEmptyState();
-        // Загружаем данные в фоновом потоке
-        new Thread(() -> {
-            try {
-                Date currentMonth = new Date();
-                
-                // Получаем баланс
-                double balance = categoryService.getBalance(currentMonth);
-                
-                // Получаем категории с текущими расходами за текущий месяц и прогнозами из predict
-                allCategories = categoryService.getCategoriesForMonthForPrediction(currentMonth);
-                
-                // Фильтруем категории с прогнозами > 0
-                List<Category> categoriesWithPredictions = new ArrayList<>();
-                for (Category category : allCategories) {
-                    if (category.getBudget() > 0) {
-                        categoriesWithPredictions.add(category);
-                        Log.d("MAIN", category.toString());
-                    }
-                }
-                allCategories = categoriesWithPredictions;
-                
-                // Сортируем по убыванию текущих расходов
-                allCategories.sort((c1, c2) -> {
-                    // Если нужно поднять те, где есть прогноз, выше:
-                    return Double.compare(c2.getBudget(), c1.getBudget());
-                });
-                
-                // Берем топ-3 для начального отображения
-                displayedCategories = new ArrayList<>();
-                int count = Math.min(INITIAL_COUNT, allCategories.size());
-                for (int i = 0; i < count; i++) {
-                    displayedCategories.add(allCategories.get(i));
-                }
-                
-                // Обновляем UI в главном потоке
-                if (getActivity() != null) {
-                    getActivity().runOnUiThread(() -> {
-                        updateBalance(balance);
-                        updateCategoriesList();
-                        updateShowButton();
-                        if (displayedCategories.isEmpty()){
-                            showEmptyState();
-                        }
-                    });
-                }
-                
-            } catch (Exception e) {
-                if (getActivity() != null) {
-                    getActivity().runOnUiThread(() -> {
-                        Toast.makeText(getContext(),
-                                "Ошибка загрузки данных: " + e.getMessage(),
-                                Toast.LENGTH_SHORT).show();
-                    });
-                }
-            }
-        }).start();
+        // Категории с прогнозами > 0, по убыванию прогноза
+        allCategories = dashboard.rows;
+
+        // Берем топ-3 для начального отображения
+        displayedCategories = new ArrayList<>();
+        int count = Math.min(INITIAL_COUNT, allCategories.size());
+        for (int i = 0; i < count; i++) {
+            displayedCategories.add(allCategories.get(i));
+        }
+
+        updateBalance(dashboard);
+        updateCategoriesList();
+        updateShowButton();
+        if (displayedCategories.isEmpty()){
+            showEmptyState();
+        }
     }
 
     private void showEmptyState() {
@@ -173,13 +256,11 @@ public class HomeFragment extends Fragment {
         emptyTextView.setVisibility(View.GONE);
     }
     
-    private void updateBalance(double balance) {
-        DecimalFormat df = new DecimalFormat("#,###", new DecimalFormatSymbols(Locale.getDefault()));
-        String balanceText = String.format(Locale.getDefault(), "%s₽", df.format(balance));
-        balanceTextView.setText(balanceText);
+    private void updateBalance(DashboardView dashboard) {
+        balanceTextView.setText(dashboard.balanceText);
         
         // Меняем цвет в зависимости от баланса
-        if (balance >= 0) {
+        if (dashboard.balancePositive) {
             balanceTextView.setTextColor(getResources().getColor(android.R.color.holo_green_dark, null));
         } else {
             balanceTextView.setTextColor(getResources().getColor(android.R.color.holo_red_dark, null));
@@ -188,7 +269,7 @@ public class HomeFragment extends Fragment {
     
     private void updateCategoriesList() {
         // Обновляем список категорий
-        categoryAdapter.updateCategories(displayedCategories);
+        categoryAdapter.updateRows(displayedCategories);
     }
     
     private void updateShowButton() {
@@ -231,46 +312,35 @@ public class HomeFragment extends Fragment {
         predictionButton.setOnClickListener(v -> {
             Toast.makeText(getContext(), "Запуск предсказания расходов...", Toast.LENGTH_SHORT).show();
 
-            if (executorService == null || executorService.isShutdown()) {
-                executorService = Executors.newSingleThreadExecutor();
-            }
+            DatabaseHelper dbHelper = DatabaseHelper.getInstance(requireContext());
+            // Прогноз пишется в таблицу predict: запись доводится до конца, даже если экран закрыт
+            tasks.launchWrite("predict", () -> {
+                ExpensePredictor predictor = new ExpensePredictor(dbHelper.getWritableDatabase());
+                return predictor.predictAllCategories();
+            }, results -> {
+                int successfulCount = 0;
+                for (PredictionResult result : results) {
+                    if (result.hasEnoughData()) {
+                        successfulCount++;
+                    }
+                }
+
+                if (successfulCount > 0) {
+                    String message = String.format("Предсказание завершено! Успешно: %d из %d категорий",
+                            successfulCount, results.size());
+                    Toast.makeText(getContext(), message, Toast.LENGTH_LONG).show();
 
-            executorService.execute(() -> {
-                try {
-                    DatabaseHelper dbHelper = DatabaseHelper.getInstance(requireContext());
-                    ExpensePredictor predictor = new ExpensePredictor(dbHelper.getWritableDatabase());
-
-                    List<PredictionResult> results = predictor.predictAllCategories();
-
-                    requireActivity().runOnUiThread(() -> {
-                        int successfulCount = 0;
-                        for (PredictionResult result : results) {
-                            if (result.hasEnoughData()) {
-                                successfulCount++;
-                            }
-                        }
-
-                        if (successfulCount > 0) {
-                            String message = String.format("Предсказание завершено! Успешно: %d из %d категорий",
-                                    successfulCount, results.size());
-                            Toast.makeText(getContext(), message, Toast.LENGTH_LONG).show();
-
-                            showPredictionResults(results);
-                        } else {
-                            Toast.makeText(getContext(),
-                                    "Недостаточно данных для предсказания. Нужны данные минимум за 2 месяца.",
-                                    Toast.LENGTH_LONG).show();
-                        }
-                    });
-
-                } catch (Exception e) {
-                    requireActivity().runOnUiThread(() -> {
-                        Toast.makeText(getContext(),
-                                "Ошибка при выполнении предсказания: " + e.getMessage(),
-                                Toast.LENGTH_LONG).show();
-                    });
-                    e.printStackTrace();
+                    showPredictionResults(results);
+                } else {
+                    Toast.makeText(getContext(),
+                            "Недостаточно данных для предсказания. Нужны данные минимум за 2 месяца.",
+                            Toast.LENGTH_LONG).show();
                 }
+            }, e -> {
+                Toast.makeText(getContext(),
+                        "Ошибка при выполнении предсказания: " + e.getMessage(),
+                        Toast.LENGTH_LONG).show();
+                Log.e(TAG, "Ошибка при выполнении предсказания", e);
             });
         });
     }
@@ -298,15 +368,39 @@ public class HomeFragment extends Fragment {
     @Override
     public void onResume() {
         super.onResume();
-        // Перезагружаем данные при возвращении на экран
-        loadData();
+        // Перезагружаем данные при возвращении на экран, если они менялись
+        refreshIfChanged();
+        refreshUpcomingIfChanged();
     }
 
     @Override
     public void onDestroyView() {
         super.onDestroyView();
-        if (executorService != null && !executorService.isShutdown()) {
-            executorService.shutdown();
+        if (subscription != null) {
+            subscription.unsubscribe();
+            subscription = null;
+        }
+    }
+
+    /**
+     * Главный экран, подготовленный к показу в фоновом потоке
+     */
+    private static final class DashboardView {
+        final List<CategoryRowModel> rows;
+        final String balanceText;
+        final boolean balancePositive;
+
+        private DashboardView(List<CategoryRowModel> rows, String balanceText, boolean balancePositive) {
+            this.rows = rows;
+            this.balanceText = balanceText;
+            this.balancePositive = balancePositive;
+        }
+
+        static DashboardView of(DashboardSnapshot snapshot) {
+            double balance = snapshot.getBalance();
+            DecimalFormat df = new DecimalFormat("#,###", new DecimalFormatSymbols(Locale.getDefault()));
+            return new DashboardView(CategoryRowModel.listOf(snapshot.forecastCategories),
+                    df.format(balance) + "₽", balance >= 0);
         }
     }
 }
\ No newline at end of file
@@ -5,11 +5,18 @@ import com.example.moneyhelper.scheduler.PredictionScheduler;
 import android.os.Bundle;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
+import androidx.fragment.app.FragmentTransaction;
+import androidx.lifecycle.Lifecycle;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
-import com.tom_roush.pdfbox.android.PDFBoxResourceLoader;
 
 public class MainActivity extends AppCompatActivity {
 
+    private static final String TAB_HOME = "tab_home";
+    private static final String TAB_CATEGORIES = "tab_categories";
+    private static final String TAB_PROFILE = "tab_profile";
+    private static final String[] TABS = {TAB_HOME, TAB_CATEGORIES, TAB_PROFILE};
+
     private BottomNavigationView bottomNavigationView;
 
     @Override
@@ -18,13 +25,13 @@ public class MainActivity extends AppCompatActivity {
         setContentView(R.layout.activity_main);
         // Инициализируем планировщик прогнозов
 //        PredictionScheduler.schedulePredictions(this);
-        PDFBoxResourceLoader.init(getApplicationContext());
 
         bottomNavigationView = findViewById(R.id.bottomNavigationView);
 
-        // Загружаем главный фрагмент по умолчанию
+        // Загружаем главный фрагмент по умолчанию;
+        // после пересоздания активити вкладки восстанавливает FragmentManager
         if (savedInstanceState == null) {
-            loadFragment(new HomeFragment());
+            showTab(TAB_HOME);
         }
 
 
@@ -36,30 +43,59 @@ public class MainActivity extends AppCompatActivity {
 
     private void setupBottomNavigation() {
         bottomNavigationView.setOnItemSelectedListener(item -> {
-            Fragment selectedFragment = new HomeFragment();
+            String tab = TAB_HOME;
             int itemId = item.getItemId();
 
             if (itemId == R.id.nav_categories) {
-                selectedFragment = new CategoriesFragment();
+                tab = TAB_CATEGORIES;
             } else if (itemId == R.id.nav_expenses) {
-                selectedFragment = new HomeFragment();
+                tab = TAB_HOME;
             } else if (itemId == R.id.nav_profile) {
-                selectedFragment = new ProfileFragment();
+                tab = TAB_PROFILE;
             }
 
-            if (selectedFragment != null) {
-                loadFragment(selectedFragment);
-                return true;
-            }
-            return false;
+            showTab(tab);
+            return true;
         });
     }
 
-    private void loadFragment(Fragment fragment) {
-        getSupportFragmentManager()
-                .beginTransaction()
-                .replace(R.id.fragmentContainer, fragment)
-                .commit();
+    /**
+     * Показывает вкладку, не пересоздавая уже открытые
+     * Скрытые вкладки остаются в STARTED: их view и данные живут,
+     * а onResume при возврате перечитывает только изменившееся
+     */
+    private void showTab(String tab) {
+        FragmentManager fragmentManager = getSupportFragmentManager();
+        FragmentTransaction transaction = fragmentManager.beginTransaction()
+                .setReorderingAllowed(true);
+
+        for (String other : TABS) {
+            Fragment fragment = fragmentManager.findFragmentByTag(other);
+            if (fragment != null && !other.equals(tab) && !fragment.isHidden()) {
+                transaction.hide(fragment)
+                        .setMaxLifecycle(fragment, Lifecycle.State.STARTED);
+            }
+        }
+
+        Fragment selected = fragmentManager.findFragmentByTag(tab);
+        if (selected == null) {
+            transaction.add(R.id.fragmentContainer, createTab(tab), tab);
+        } else {
+            transaction.show(selected)
+                    .setMaxLifecycle(selected, Lifecycle.State.RESUMED);
+        }
+        transaction.commit();
+    }
+
+    private static Fragment createTab(String tab) {
+        switch (tab) {
+            case TAB_CATEGORIES:
+                return new CategoriesFragment();
+            case TAB_PROFILE:
+                return new ProfileFragment();
+            default:
+                return new HomeFragment();
+        }
     }
 }
 
@@ -0,0 +1,73 @@
+package com.example.moneyhelper;
+
+import android.app.Application;
+import android.content.pm.ApplicationInfo;
+import android.os.StrictMode;
+import android.util.Log;
+
+import com.example.moneyhelper.concurrent.AppExecutors;
+import com.example.moneyhelper.parser.PdfBoxWarmUp;
+import com.example.moneyhelper.service.UpcomingExpenseService;
+import com.tom_roush.pdfbox.android.PDFBoxResourceLoader;
+
+/**
+ * Инициализация приложения
+ */
+public class MoneyHelperApplication extends Application {
+
+    private static final String TAG = "MoneyHelperApplication";
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        PDFBoxResourceLoader.init(this);
+        // Копирование БД из assets, миграция и разовый пересчет после нее - в фоне,
+        // пока строится первый экран
+        AppExecutors.io().execute(AppExecutors.named("open_database", () -> {
+            try {
+                DatabaseHelper dbHelper = DatabaseHelper.getInstance(this);
+                dbHelper.getWritableDatabase();
+                if (dbHelper.takeUpcomingRebuild()) {
+                    new UpcomingExpenseService(this).rebuild();
+                }
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Не удалось открыть БД", e);
+            }
+        }));
+        // Шрифты PDFBox прогреваем после отрисовки первого экрана
+        PdfBoxWarmUp.scheduleOnIdle(this);
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            enableStrictMode();
+        }
+    }
+
+    /**
+     * Отладочная проверка: чтение и запись на диск в главном потоке
+     * попадают в лог, а под инструментальными тестами роняют процесс
+     */
+    private static void enableStrictMode() {
+        StrictMode.ThreadPolicy.Builder threadPolicy = new StrictMode.ThreadPolicy.Builder()
+                .detectDiskReads()
+                .detectDiskWrites()
+                .penaltyLog();
+        if (isInstrumented()) {
+            threadPolicy.penaltyDeath();
+        }
+        StrictMode.setThreadPolicy(threadPolicy.build());
+
+        StrictMode.setVmPolicy(new StrictMode.VmPolicy.Builder()
+                .detectLeakedSqlLiteObjects()
+                .detectLeakedClosableObjects()
+                .penaltyLog()
+                .build());
+    }
+
+    private static boolean isInstrumented() {
+        try {
+            Class.forName("androidx.test.platform.app.InstrumentationRegistry");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
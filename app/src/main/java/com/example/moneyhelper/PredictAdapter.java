@@ -9,18 +9,20 @@ import android.widget.ImageButton;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
 
-public class PredictAdapter extends RecyclerView.Adapter<PredictAdapter.PredictViewHolder> {
+public class PredictAdapter extends ListAdapter<CategoryRowModel, PredictAdapter.PredictViewHolder> {
 
-    private List<Category> categories;
     private CategoryClickListener clickListener;
 
-    public PredictAdapter(List<Category> categories, CategoryClickListener clickListener) {
-        this.categories = categories;
+    public PredictAdapter(List<CategoryRowModel> rows, CategoryClickListener clickListener) {
+        super(AdapterDiffs.config(AdapterDiffs.CATEGORY_ROW));
         this.clickListener = clickListener;
+        setHasStableIds(true);
+        submitList(new ArrayList<>(rows));
     }
 
     @NonNull
@@ -33,18 +35,19 @@ public class PredictAdapter extends RecyclerView.Adapter<PredictAdapter.PredictV
 
     @Override
     public void onBindViewHolder(@NonNull PredictViewHolder holder, int position) {
-        Category category = categories.get(position);
-        holder.bind(category, clickListener);
+        holder.bind(getItem(position), clickListener);
     }
 
     @Override
-    public int getItemCount() {
-        return categories.size();
+    public long getItemId(int position) {
+        return getItem(position).userCategoryId;
     }
 
-    public void updateCategories(List<Category> newCategories) {
-        this.categories = newCategories;
-        notifyDataSetChanged();
+    /**
+     * Новый список; HomeFragment дополняет свой список на месте, поэтому берется копия
+     */
+    public void updateRows(List<CategoryRowModel> rows) {
+        submitList(new ArrayList<>(rows));
     }
 
     /**
@@ -72,15 +75,14 @@ public class PredictAdapter extends RecyclerView.Adapter<PredictAdapter.PredictV
 
         }
 
-        public void bind(Category category, CategoryClickListener listener) {
+        public void bind(CategoryRowModel row, CategoryClickListener listener) {
 
 
             // Название
-            categoryNameTextView.setText(category.getName());
+            categoryNameTextView.setText(row.name);
 
-            // Текущие расходы
-            expenseTextView.setText(String.format(Locale.getDefault(),
-                    "%.0f ₽", category.getBudget()));
+            // Прогноз на месяц
+            expenseTextView.setText(row.forecastText);
 
 
             // Обработка кликов
@@ -1,9 +1,6 @@
 package com.example.moneyhelper;
 
 import android.app.AlertDialog;
-import android.content.ContentValues;
-import android.database.Cursor;
-import android.database.sqlite.SQLiteDatabase;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -23,8 +20,12 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.moneyhelper.DataTypes.Category;
+import com.example.moneyhelper.concurrent.TaskScope;
+import com.example.moneyhelper.service.CategoryService;
+import com.example.moneyhelper.service.DataVersions;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 public class ProfileFragment extends Fragment {
@@ -33,10 +34,19 @@ public class ProfileFragment extends Fragment {
     private Button btnEditMoney, btnAddCategory;
     private RecyclerView rvCategories;
 
-    private DatabaseHelper databaseHelper;
+    private CategoryService categoryService;
     private SimpleCategoryAdapter simpleAdapter;
-
-    private long userId = 1;
+    private TaskScope tasks;
+
+    // Профиль показывает доход и категории пользователя
+    private static final DataVersions.Slice DATA_SLICE = DataVersions.slice(
+            DataVersions.Table.USERS, DataVersions.Table.CATEGORIES);
+    private DataVersions versions;
+    private DataVersions.Subscription subscription;
+    private long loadedStamp = -1;
+    private TaskScope.Task loadTask;
+    // Последние загруженные данные, переживают пересоздание фрагмента
+    private ScreenState<ProfileData> state;
 
     @Nullable
     @Override
@@ -52,7 +62,8 @@ public class ProfileFragment extends Fragment {
         btnAddCategory = v.findViewById(R.id.btnEditCategories);
         rvCategories = v.findViewById(R.id.rvCategories);
 
-        databaseHelper = DatabaseHelper.getInstance(requireContext());
+        versions = DataVersions.getInstance();
+        categoryService = new CategoryService(requireContext());
 
         rvCategories.setLayoutManager(new LinearLayoutManager(getContext()));
         simpleAdapter = new SimpleCategoryAdapter(new ArrayList<>(), new SimpleCategoryAdapter.CategoryClickListener() {
@@ -66,41 +77,75 @@ public class ProfileFragment extends Fragment {
                 new AlertDialog.Builder(getContext())
                         .setTitle("Удалить категорию?")
                         .setMessage(category.getName())
-                        .setPositiveButton("Удалить", (d, w) -> {
-                            SQLiteDatabase db = databaseHelper.getWritableDatabase();
-                            db.delete(
-                                    "user_categories",
-                                    "id = ?",
-                                    new String[]{String.valueOf(category.getUserCategoryId())}
-                            );
-                            loadCategories();
-                        })
+                        .setPositiveButton("Удалить", (d, w) ->
+                                // Каскадом удаляются расходы и прогнозы категории
+                                tasks.launchWrite("delete_category",
+                                        () -> categoryService.deleteCategory(category.getUserCategoryId()),
+                                        null))
                         .setNegativeButton("Отмена", null)
                         .show();
             }
         });
         rvCategories.setAdapter(simpleAdapter);
 
-        loadMoney();
-        loadCategories();
-
         btnEditMoney.setOnClickListener(v1 -> showEditMoneyDialog());
         btnAddCategory.setOnClickListener(v1 -> showAddCategoryDialog());
 
         return v;
     }
 
-    private void loadMoney() {
-        SQLiteDatabase db = databaseHelper.getReadableDatabase();
-        Cursor c = db.rawQuery(
-                "SELECT money FROM users WHERE id = ?",
-                new String[]{String.valueOf(userId)}
-        );
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        // Все обращения к БД идут через CategoryService в фоновом потоке
+        tasks = TaskScope.of(getViewLifecycleOwner());
+        state = ScreenState.of(this);
+
+        long stamp = versions.stamp(DATA_SLICE);
+        ProfileData cached = state.get(0, stamp);
+        if (cached != null) {
+            loadedStamp = stamp;
+            showProfile(cached);
+        } else {
+            loadProfile();
+        }
+        // Доход и категории перечитываются после любой записи в них,
+        // в том числе из этого экрана
+        subscription = versions.subscribe(DATA_SLICE, () -> {
+            if (isResumed()) {
+                refreshIfChanged();
+            }
+        });
+    }
+
+    /**
+     * Перезагружает профиль, только если доход или категории изменились
+     */
+    private void refreshIfChanged() {
+        if (versions.stamp(DATA_SLICE) != loadedStamp) {
+            loadProfile();
+        }
+    }
 
-        if (c.moveToFirst()) {
-            tvMoney.setText("Доход: " + c.getInt(0) + " ₽");
+    private void loadProfile() {
+        // Версии запоминаются до запроса: запись во время загрузки вызовет еще одну
+        long stamp = versions.stamp(DATA_SLICE);
+        loadedStamp = stamp;
+        if (loadTask != null) {
+            loadTask.cancel();
         }
-        c.close();
+        // Доход из кэша CategoryService, справочник категорий из UserSession
+        loadTask = tasks.launch("profile", () -> new ProfileData(
+                categoryService.getTotalIncome(new Date()),
+                categoryService.getAllUserCategories()), data -> {
+            state.put(0, stamp, data);
+            showProfile(data);
+        }, e -> loadedStamp = -1);
+    }
+
+    private void showProfile(ProfileData data) {
+        tvMoney.setText("Доход: " + (int) data.income + " ₽");
+        simpleAdapter.updateCategories(data.categories);
     }
 
     private void showEditMoneyDialog() {
@@ -116,50 +161,15 @@ public class ProfileFragment extends Fragment {
                         Toast.makeText(getContext(), "Введите сумму", Toast.LENGTH_SHORT).show();
                         return;
                     }
-                    SQLiteDatabase db = databaseHelper.getWritableDatabase();
-                    ContentValues cv = new ContentValues();
-                    cv.put("money", Integer.parseInt(et.getText().toString()));
-                    db.update("users", cv, "id = ?",
-                            new String[]{String.valueOf(userId)});
-                    loadMoney();
+                    int money = Integer.parseInt(amountStr);
+                    // Экран обновится по уведомлению DataVersions
+                    tasks.launchWrite("set_income", () -> categoryService.setIncome(money), null);
                 })
                 .setNegativeButton("Отмена", null)
                 .show();
     }
 
 
-    private void loadCategories() {
-        List<Category> list = new ArrayList<>();
-        SQLiteDatabase db = databaseHelper.getReadableDatabase();
-
-        Cursor c = db.rawQuery(
-                "SELECT id, cat_id, name, fixed FROM user_categories WHERE user_id = ?",
-                new String[]{String.valueOf(userId)}
-        );
-
-        while (c.moveToNext()) {
-            long userCategoryId = c.getLong(0);
-            long categoryId = c.getLong(1);
-            String name = c.getString(2);
-            boolean fixed = c.getInt(3) == 1;
-
-            Category category = new Category(
-                    userCategoryId,
-                    categoryId,
-                    name,
-                    "",
-                    fixed,
-                    0,
-                    0
-            );
-
-            list.add(category);
-        }
-        c.close();
-
-        simpleAdapter.updateCategories(list);
-    }
-
     private void showAddCategoryDialog() {
         showCategoryDialog(null);
     }
@@ -169,6 +179,12 @@ public class ProfileFragment extends Fragment {
     }
 
     private void showCategoryDialog(Category category) {
+        // Справочник categories читается в фоне, диалог показывается после загрузки
+        tasks.launch("global_categories", categoryService::getGlobalCategories,
+                categoriesList -> showCategoryDialog(category, categoriesList));
+    }
+
+    private void showCategoryDialog(Category category, List<Category> categoriesList) {
         View v = LayoutInflater.from(getContext())
                 .inflate(R.layout.dialog_category, null);
 
@@ -178,16 +194,6 @@ public class ProfileFragment extends Fragment {
 
         boolean isEdit = category != null;
 
-        List<Category> categoriesList = new ArrayList<>();
-        SQLiteDatabase db = databaseHelper.getReadableDatabase();
-        Cursor c = db.rawQuery("SELECT id, name FROM categories", null);
-        while (c.moveToNext()) {
-            long id = c.getLong(0);      // id из таблицы categories
-            String name = c.getString(1);
-            categoriesList.add(new Category(0, id, name, "", false, 0, 0)); // <-- здесь исправлено
-        }
-        c.close();
-
         List<String> displayNames = new ArrayList<>();
         for (Category cat : categoriesList) {
             displayNames.add(cat.getDisplayName());
@@ -217,31 +223,50 @@ public class ProfileFragment extends Fragment {
                 .setTitle(isEdit ? "Редактировать категорию" : "Добавить категорию")
                 .setView(v)
                 .setPositiveButton("Сохранить", (d, w) -> {
-                    ContentValues cv = new ContentValues();
-                    cv.put("name", etName.getText().toString());
-                    cv.put("fixed", switchFixed.isChecked() ? 1 : 0);
+                    String name = etName.getText().toString();
+                    boolean fixed = switchFixed.isChecked();
 
                     int position = spinnerCategory.getSelectedItemPosition();
                     long catId = position >= 0 ? categoriesList.get(position).getCatId() : 0;
 
+                    // Список обновится по уведомлению DataVersions
                     if (isEdit) {
-                        cv.put("cat_id", catId);
-                        db.update(
-                                "user_categories",
-                                cv,
-                                "id = ?",
-                                new String[]{String.valueOf(category.getUserCategoryId())}
-                        );
+                        tasks.launchWrite("update_category", () -> categoryService.updateUserCategory(
+                                category.getUserCategoryId(), catId, name, fixed), null);
                     } else {
-                        cv.put("user_id", userId);
-                        cv.put("cat_id", catId);
-                        db.insert("user_categories", null, cv);
+                        tasks.launchWrite("add_category",
+                                () -> categoryService.addUserCategory(catId, name, fixed), null);
                     }
-
-                    loadCategories();
                 })
                 .setNegativeButton("Отмена", null)
                 .show();
     }
 
+    @Override
+    public void onResume() {
+        super.onResume();
+        refreshIfChanged();
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (subscription != null) {
+            subscription.unsubscribe();
+            subscription = null;
+        }
+    }
+
+    /**
+     * Доход и категории пользователя, прочитанные одной задачей
+     */
+    private static final class ProfileData {
+        final double income;
+        final List<Category> categories;
+
+        ProfileData(double income, List<Category> categories) {
+            this.income = income;
+            this.categories = categories;
+        }
+    }
 }
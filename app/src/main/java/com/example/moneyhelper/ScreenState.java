@@ -0,0 +1,55 @@
+package com.example.moneyhelper;
+
+import androidx.fragment.app.Fragment;
+import androidx.lifecycle.ViewModel;
+import androidx.lifecycle.ViewModelProvider;
+
+/**
+ * Загруженные данные экрана, которые переживают пересоздание фрагмента
+ * Данные хранятся вместе с месяцем и штампом DataVersions, при которых их читали.
+ * Пока штамп не изменился, экран показывает их без запроса к БД
+ */
+public final class ScreenState<T> extends ViewModel {
+
+    private T data;
+    private int monthKey;
+    private long stamp = -1;
+
+    /**
+     * Состояние фрагмента; у каждого фрагмента свое хранилище ViewModel
+     */
+    @SuppressWarnings("unchecked")
+    static <T> ScreenState<T> of(Fragment fragment) {
+        return new ViewModelProvider(fragment).get(ScreenState.class);
+    }
+
+    /**
+     * Данные, прочитанные для месяца при том же штампе, иначе null
+     */
+    T get(int monthKey, long stamp) {
+        if (data == null || this.monthKey != monthKey || this.stamp != stamp) {
+            return null;
+        }
+        return data;
+    }
+
+    /**
+     * Последние загруженные данные, даже устаревшие, или null
+     */
+    T peek() {
+        return data;
+    }
+
+    int getMonthKey() {
+        return monthKey;
+    }
+
+    /**
+     * Запоминает результат загрузки; штамп берется до запроса
+     */
+    void put(int monthKey, long stamp, T data) {
+        this.monthKey = monthKey;
+        this.stamp = stamp;
+        this.data = data;
+    }
+}
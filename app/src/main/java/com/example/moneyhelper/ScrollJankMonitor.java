@@ -0,0 +1,75 @@
+package com.example.moneyhelper;
+
+import android.util.Log;
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.Locale;
+
+/**
+ * Счетчик долгих кадров во время прокрутки списка
+ * После каждой прокрутки пишет в лог (тег ScrollJank), сколько было кадров
+ * и сколько из них не уложились в полтора кадра 60 Гц
+ */
+final class ScrollJankMonitor extends RecyclerView.OnScrollListener
+        implements Choreographer.FrameCallback {
+
+    private static final String TAG = "ScrollJank";
+    private static final long JANK_THRESHOLD_NANOS = 25_000_000L;
+
+    private final String name;
+
+    private boolean running;
+    private long lastFrameNanos;
+    private int frames;
+    private int jankFrames;
+    private long worstFrameNanos;
+
+    private ScrollJankMonitor(String name) {
+        this.name = name;
+    }
+
+    static void attach(RecyclerView recyclerView, String name) {
+        recyclerView.addOnScrollListener(new ScrollJankMonitor(name));
+    }
+
+    @Override
+    public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+        if (newState != RecyclerView.SCROLL_STATE_IDLE && !running) {
+            running = true;
+            lastFrameNanos = 0;
+            frames = 0;
+            jankFrames = 0;
+            worstFrameNanos = 0;
+            Choreographer.getInstance().postFrameCallback(this);
+        } else if (newState == RecyclerView.SCROLL_STATE_IDLE && running) {
+            running = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+            if (frames > 0) {
+                Log.d(TAG, String.format(Locale.US,
+                        "%s: кадров %d, долгих %d (%.1f%%), худший %.1f мс",
+                        name, frames, jankFrames, jankFrames * 100.0 / frames,
+                        worstFrameNanos / 1_000_000.0));
+            }
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!running) {
+            return;
+        }
+        if (lastFrameNanos != 0) {
+            long duration = frameTimeNanos - lastFrameNanos;
+            frames++;
+            if (duration > JANK_THRESHOLD_NANOS) {
+                jankFrames++;
+            }
+            worstFrameNanos = Math.max(worstFrameNanos, duration);
+        }
+        lastFrameNanos = frameTimeNanos;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+}
@@ -7,20 +7,23 @@ import android.widget.ImageButton;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.moneyhelper.DataTypes.Category;
 
+import java.util.ArrayList;
 import java.util.List;
 
-public class SimpleCategoryAdapter extends RecyclerView.Adapter<SimpleCategoryAdapter.ViewHolder> {
+public class SimpleCategoryAdapter extends ListAdapter<Category, SimpleCategoryAdapter.ViewHolder> {
 
-    private List<Category> categories;
     private CategoryClickListener clickListener;
 
     public SimpleCategoryAdapter(List<Category> categories, CategoryClickListener clickListener) {
-        this.categories = categories;
+        super(AdapterDiffs.config(AdapterDiffs.CATEGORY));
         this.clickListener = clickListener;
+        setHasStableIds(true);
+        submitList(new ArrayList<>(categories));
     }
 
     @NonNull
@@ -33,18 +36,20 @@ public class SimpleCategoryAdapter extends RecyclerView.Adapter<SimpleCategoryAd
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Category category = categories.get(position);
+        Category category = getItem(position);
         holder.bind(category, clickListener);
     }
 
     @Override
-    public int getItemCount() {
-        return categories.size();
+    public long getItemId(int position) {
+        return getItem(position).getUserCategoryId();
     }
 
+    /**
+     * Новый список; перерисовываются только изменившиеся строки
+     */
     public void updateCategories(List<Category> newCategories) {
-        this.categories = newCategories;
-        notifyDataSetChanged();
+        submitList(new ArrayList<>(newCategories));
     }
 
     public interface CategoryClickListener {
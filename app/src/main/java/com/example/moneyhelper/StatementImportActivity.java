@@ -1,5 +1,6 @@
 package com.example.moneyhelper;
-import com.example.moneyhelper.service.StatementImportService;
+import com.example.moneyhelper.service.BatchImportResult;
+import com.example.moneyhelper.service.ImportProgress;
 import android.os.Bundle;
 
 import android.Manifest;
@@ -17,8 +18,14 @@ import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.content.ContextCompat;
+import androidx.lifecycle.ViewModelProvider;
 
-public class StatementImportActivity extends AppCompatActivity {
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public class StatementImportActivity extends AppCompatActivity
+        implements StatementImportViewModel.Listener {
 
     private Button btnSelectFile;
     private Button btnImport;
@@ -26,18 +33,23 @@ public class StatementImportActivity extends AppCompatActivity {
     private TextView tvStatus;
     private ProgressBar progressBar;
     private Button btnGoHome;
+    private Button btnCancelImport;
 
-    private Uri selectedFileUri;
-    private StatementImportService importService;
+    private final List<Uri> selectedFileUris = new ArrayList<>();
+    // Импорт и его отмена живут в ViewModel и переживают поворот экрана
+    private StatementImportViewModel importModel;
 
     private final ActivityResultLauncher<String> filePickerLauncher = registerForActivityResult(
-            new ActivityResultContracts.GetContent(),
-            uri -> {
-                if (uri != null) {
-                    selectedFileUri = uri;
-                    tvFileName.setText(getFileName(uri));
+            new ActivityResultContracts.GetMultipleContents(),
+            uris -> {
+                if (uris != null && !uris.isEmpty()) {
+                    selectedFileUris.clear();
+                    selectedFileUris.addAll(uris);
+                    tvFileName.setText(uris.size() == 1
+                            ? getFileName(uris.get(0))
+                            : "Выбрано файлов: " + uris.size());
                     btnImport.setEnabled(true);
-                    tvStatus.setText("Файл выбран. Нажмите 'Импортировать' для начала.");
+                    tvStatus.setText("Файлы выбраны. Нажмите 'Импортировать' для начала.");
                 }
             }
     );
@@ -58,10 +70,20 @@ public class StatementImportActivity extends AppCompatActivity {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_statement_import);
+        importModel = new ViewModelProvider(this).get(StatementImportViewModel.class);
 
         initViews();
-        initService();
         setupListeners();
+
+        if (importModel.isRunning()) {
+            // Экран пересоздан во время импорта
+            setImportingState(true);
+            if (importModel.isCancelling()) {
+                btnCancelImport.setEnabled(false);
+                tvStatus.setText("Отмена импорта...");
+            }
+        }
+        importModel.attach(this);
     }
 
     private void initViews() {
@@ -71,24 +93,29 @@ public class StatementImportActivity extends AppCompatActivity {
         tvStatus = findViewById(R.id.tvStatus);
         progressBar = findViewById(R.id.progressBar);
         btnGoHome = findViewById(R.id.btnGoHome);
+        btnCancelImport = findViewById(R.id.btnCancelImport);
         btnImport.setEnabled(false);
         progressBar.setVisibility(ProgressBar.GONE);
     }
 
 
-    private void initService() {
-        importService = new StatementImportService(this);
-    }
-
     private void setupListeners() {
         btnSelectFile.setOnClickListener(v -> checkPermissionAndOpenFilePicker());
 
         btnImport.setOnClickListener(v -> {
-            if (selectedFileUri != null) {
+            if (!selectedFileUris.isEmpty()) {
                 startImport();
             }
         });
 
+        btnCancelImport.setOnClickListener(v -> {
+            if (importModel.isRunning()) {
+                importModel.cancel();
+                btnCancelImport.setEnabled(false);
+                tvStatus.setText("Отмена импорта...");
+            }
+        });
+
         btnGoHome.setOnClickListener(v -> {
 
             Intent intent = new Intent(this, MainActivity.class);
@@ -115,29 +142,50 @@ public class StatementImportActivity extends AppCompatActivity {
     }
 
     /**
-     * Открывает файловый менеджер для выбора PDF
+     * Открывает файловый менеджер для выбора одного или нескольких PDF
      */
     private void openFilePicker() {
         filePickerLauncher.launch("application/pdf");
     }
 
+    @Override
+    protected void onDestroy() {
+        // Импорт не отменяется: при повороте экран подключится к нему снова,
+        // а при закрытии экрана импорт отменит StatementImportViewModel.onCleared
+        importModel.detach();
+        super.onDestroy();
+    }
+
     /**
      * Запускает процесс импорта
      */
     private void startImport() {
         setImportingState(true);
+        // Импорт идет в фоновом потоке, он же пишет в БД.
+        // События прогресса и результат приходят в главный поток через onProgress/onFinished
+        importModel.start(this, new ArrayList<>(selectedFileUris));
+    }
 
-        // Выполняем импорт в фоновом потоке
-        new Thread(() -> {
-            StatementImportService.ImportResult result =
-                    importService.importStatement(selectedFileUri);
+    @Override
+    public void onFinished(BatchImportResult result) {
+        if (isFinishing()) {
+            return;
+        }
+        setImportingState(false);
+        showImportResult(result);
+    }
 
-            // Возвращаемся в UI поток для обновления интерфейса
-            runOnUiThread(() -> {
-                setImportingState(false);
-                showImportResult(result);
-            });
-        }).start();
+    /**
+     * Обновляет прогресс по событию импорта
+     */
+    @Override
+    public void onProgress(ImportProgress progress) {
+        progressBar.setProgress(progress.getPercent());
+        tvStatus.setText(String.format(Locale.getDefault(),
+                "Файлов: %d из %d, страниц: %d из %d\nСтрок: %d, записано: %d (%.0f строк/с)",
+                progress.filesDone, progress.totalFiles,
+                progress.pagesExtracted, progress.totalPages,
+                progress.rowsParsed, progress.rowsWritten, progress.getRowsPerSecond()));
     }
 
     /**
@@ -147,6 +195,9 @@ public class StatementImportActivity extends AppCompatActivity {
         btnSelectFile.setEnabled(!isImporting);
         btnImport.setEnabled(!isImporting);
         progressBar.setVisibility(isImporting ? ProgressBar.VISIBLE : ProgressBar.GONE);
+        progressBar.setProgress(0);
+        btnCancelImport.setVisibility(isImporting ? Button.VISIBLE : Button.GONE);
+        btnCancelImport.setEnabled(isImporting);
 
         if (isImporting) {
             tvStatus.setText("Импорт в процессе...");
@@ -156,9 +207,10 @@ public class StatementImportActivity extends AppCompatActivity {
     /**
      * Показывает результат импорта
      */
-    private void showImportResult(StatementImportService.ImportResult result) {
+    private void showImportResult(BatchImportResult result) {
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
-        builder.setTitle(result.isSuccess() ? "Импорт завершен" : "Ошибка импорта");
+        builder.setTitle(result.isSuccess() ? "Импорт завершен"
+                : result.cancelled ? "Импорт отменен" : "Ошибка импорта");
         builder.setMessage(result.getMessage());
 
         if (result.isSuccess()) {
@@ -176,16 +228,16 @@ public class StatementImportActivity extends AppCompatActivity {
 
         builder.show();
 
-        tvStatus.setText(result.isSuccess() ?
-                "Импорт успешно завершен!" :
-                "Ошибка: " + result.error);
+        tvStatus.setText(result.isSuccess() ? "Импорт успешно завершен!"
+                : result.cancelled ? "Импорт отменен"
+                : "Импорт завершен с ошибками");
     }
 
     /**
      * Сбрасывает форму для нового импорта
      */
     private void resetForm() {
-        selectedFileUri = null;
+        selectedFileUris.clear();
         tvFileName.setText("Файл не выбран");
         tvStatus.setText("Выберите PDF файл с выпиской Сбербанка");
         btnImport.setEnabled(false);
@@ -0,0 +1,120 @@
+package com.example.moneyhelper;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.CancellationSignal;
+
+import androidx.lifecycle.ViewModel;
+
+import com.example.moneyhelper.concurrent.AppExecutors;
+import com.example.moneyhelper.service.BatchImportResult;
+import com.example.moneyhelper.service.ImportProgress;
+import com.example.moneyhelper.service.StatementBatchImporter;
+
+import java.util.List;
+
+/**
+ * Импорт выписок, который переживает пересоздание экрана импорта
+ * Поворот экрана только отключает и снова подключает Listener; импорт
+ * отменяется кнопкой или когда экран закрыт насовсем (onCleared)
+ */
+public final class StatementImportViewModel extends ViewModel {
+
+    /**
+     * Получатель событий импорта; вызывается в главном потоке
+     */
+    public interface Listener {
+        void onProgress(ImportProgress progress);
+
+        void onFinished(BatchImportResult result);
+    }
+
+    private CancellationSignal cancellation;
+    private ImportProgress lastProgress;
+    // Результат, пришедший, пока экран пересоздавался
+    private BatchImportResult pendingResult;
+    private Listener listener;
+
+    public boolean isRunning() {
+        return cancellation != null;
+    }
+
+    /**
+     * Запускает импорт в пуле io; вызывать из главного потока
+     */
+    public void start(Context context, List<Uri> uris) {
+        if (isRunning()) {
+            return;
+        }
+        // Контекст приложения: ViewModel живет дольше активити
+        StatementBatchImporter importer = new StatementBatchImporter(context.getApplicationContext());
+        CancellationSignal signal = new CancellationSignal();
+        cancellation = signal;
+        lastProgress = null;
+        pendingResult = null;
+
+        AppExecutors.io().execute(AppExecutors.named("statement_import", () -> {
+            BatchImportResult result = importer.importStatements(uris, signal, this::onProgress);
+            AppExecutors.main().execute(() -> onFinished(signal, result));
+        }));
+    }
+
+    /**
+     * Отмена по кнопке: записанные целиком файлы остаются, текущий откатывается
+     */
+    public void cancel() {
+        if (cancellation != null) {
+            cancellation.cancel();
+        }
+    }
+
+    public boolean isCancelling() {
+        return cancellation != null && cancellation.isCanceled();
+    }
+
+    /**
+     * Подключает экран: он сразу получает последний прогресс
+     * или результат, пришедший без него
+     */
+    public void attach(Listener listener) {
+        this.listener = listener;
+        if (pendingResult != null) {
+            BatchImportResult result = pendingResult;
+            pendingResult = null;
+            listener.onFinished(result);
+        } else if (isRunning() && lastProgress != null) {
+            listener.onProgress(lastProgress);
+        }
+    }
+
+    public void detach() {
+        listener = null;
+    }
+
+    private void onProgress(ImportProgress progress) {
+        lastProgress = progress;
+        if (listener != null && !isCancelling()) {
+            listener.onProgress(progress);
+        }
+    }
+
+    private void onFinished(CancellationSignal signal, BatchImportResult result) {
+        if (cancellation != signal) {
+            return;
+        }
+        cancellation = null;
+        lastProgress = null;
+        if (listener != null) {
+            listener.onFinished(result);
+        } else {
+            pendingResult = result;
+        }
+    }
+
+    @Override
+    protected void onCleared() {
+        // Экран закрыт насовсем - незавершенный файл откатывается
+        cancel();
+        listener = null;
+    }
+}
@@ -6,18 +6,20 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.moneyhelper.DataTypes.UpcomingExpense;
 
+import java.util.ArrayList;
 import java.util.List;
 
-public class UpcomingExpenseAdapter extends RecyclerView.Adapter<UpcomingExpenseAdapter.UpcomingExpenseViewHolder> {
-
-    private List<UpcomingExpense> expenses;
+public class UpcomingExpenseAdapter extends ListAdapter<UpcomingExpense, UpcomingExpenseAdapter.UpcomingExpenseViewHolder> {
 
     public UpcomingExpenseAdapter(List<UpcomingExpense> expenses) {
-        this.expenses = expenses;
+        super(AdapterDiffs.config(AdapterDiffs.UPCOMING));
+        setHasStableIds(true);
+        submitList(new ArrayList<>(expenses));
     }
 
     @NonNull
@@ -30,18 +32,17 @@ public class UpcomingExpenseAdapter extends RecyclerView.Adapter<UpcomingExpense
 
     @Override
     public void onBindViewHolder(@NonNull UpcomingExpenseViewHolder holder, int position) {
-        UpcomingExpense expense = expenses.get(position);
+        UpcomingExpense expense = getItem(position);
         holder.bind(expense);
     }
 
     @Override
-    public int getItemCount() {
-        return expenses.size();
+    public long getItemId(int position) {
+        return getItem(position).getId();
     }
 
     public void updateExpenses(List<UpcomingExpense> newExpenses) {
-        this.expenses = newExpenses;
-        notifyDataSetChanged();
+        submitList(new ArrayList<>(newExpenses));
     }
 
     static class UpcomingExpenseViewHolder extends RecyclerView.ViewHolder {
@@ -0,0 +1,137 @@
+package com.example.moneyhelper.concurrent;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Общие пулы потоков приложения вместо new Thread в каждом экране
+ * io - запросы к БД и чтение файлов, compute - расчеты (прогнозы, разбор),
+ * prefetch - предзагрузка данных впрок, main - главный поток.
+ * Число потоков ограничено, простаивающие потоки завершаются
+ */
+public final class AppExecutors {
+
+    private static final String TAG = "AppExecutors";
+
+    static final int IO_THREADS = 4;
+    static final int PREFETCH_THREADS = 1;
+    static final int COMPUTE_THREADS =
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static volatile ExecutorService io;
+    private static volatile ExecutorService compute;
+    private static volatile ExecutorService prefetch;
+    private static volatile Executor main;
+
+    private AppExecutors() {
+    }
+
+    public static ExecutorService io() {
+        if (io == null) {
+            synchronized (AppExecutors.class) {
+                if (io == null) {
+                    io = newPool("io", IO_THREADS, Process.THREAD_PRIORITY_BACKGROUND);
+                }
+            }
+        }
+        return io;
+    }
+
+    public static ExecutorService compute() {
+        if (compute == null) {
+            synchronized (AppExecutors.class) {
+                if (compute == null) {
+                    compute = newPool("compute", COMPUTE_THREADS, Process.THREAD_PRIORITY_BACKGROUND);
+                }
+            }
+        }
+        return compute;
+    }
+
+    /**
+     * Один поток с самым низким приоритетом: предзагрузка не занимает потоки io
+     * и уступает процессор всем остальным задачам
+     */
+    public static ExecutorService prefetch() {
+        if (prefetch == null) {
+            synchronized (AppExecutors.class) {
+                if (prefetch == null) {
+                    prefetch = newPool("prefetch", PREFETCH_THREADS, Process.THREAD_PRIORITY_LOWEST);
+                }
+            }
+        }
+        return prefetch;
+    }
+
+    public static Executor main() {
+        if (main == null) {
+            synchronized (AppExecutors.class) {
+                if (main == null) {
+                    Handler handler = new Handler(Looper.getMainLooper());
+                    main = handler::post;
+                }
+            }
+        }
+        return main;
+    }
+
+    /**
+     * Задача, которая на время выполнения дает потоку свое имя (видно в профайлере
+     * и в трассировках) и пишет в лог необработанные исключения
+     */
+    public static Runnable named(String name, Runnable task) {
+        return () -> {
+            Thread thread = Thread.currentThread();
+            String poolName = thread.getName();
+            thread.setName(poolName + ":" + name);
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Ошибка в задаче " + name, e);
+            } finally {
+                thread.setName(poolName);
+            }
+        };
+    }
+
+    private static ExecutorService newPool(String prefix, int threads, int priority) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new BackgroundThreadFactory(prefix, priority));
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static final class BackgroundThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final int priority;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        BackgroundThreadFactory(String prefix, int priority) {
+            this.prefix = prefix;
+            this.priority = priority;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(() -> {
+                // Фоновый приоритет, чтобы не отнимать время у отрисовки
+                Process.setThreadPriority(priority);
+                runnable.run();
+            }, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.moneyhelper.concurrent;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Фоновые задачи экрана, привязанные к его жизненному циклу
+ * При ON_DESTROY владельца задачи из очереди не запускаются, а результаты
+ * уже выполняющихся не доставляются. Длинная работа может проверять
+ * {@link #isActive()} и завершаться раньше. Записи ({@link #launchWrite})
+ * выполняются в любом случае, отменяется только доставка результата.
+ * Потоки не прерываются: прерывание посреди записи в SQLite или чтения PDF
+ * опаснее, чем дать запросу закончиться
+ */
+public final class TaskScope implements DefaultLifecycleObserver {
+
+    private static final String TAG = "TaskScope";
+
+    /**
+     * Результат задачи; вызывается в главном потоке
+     */
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    /**
+     * Ошибка задачи; вызывается в главном потоке
+     */
+    public interface ErrorCallback {
+        void onError(Exception e);
+    }
+
+    private final String name;
+    private final Executor io;
+    private final Executor compute;
+    private final Executor main;
+
+    private final Set<Task> tasks = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private volatile boolean active = true;
+
+    TaskScope(String name, Executor io, Executor compute, Executor main) {
+        this.name = name;
+        this.io = io;
+        this.compute = compute;
+        this.main = main;
+    }
+
+    /**
+     * Область задач, которая отменяется вместе с владельцем
+     * Для фрагментов передавать getViewLifecycleOwner(): задачи обновляют view
+     */
+    public static TaskScope of(LifecycleOwner owner) {
+        TaskScope scope = new TaskScope(owner.getClass().getSimpleName(),
+                AppExecutors.io(), AppExecutors.compute(), AppExecutors.main());
+        Lifecycle lifecycle = owner.getLifecycle();
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            scope.cancel();
+        } else {
+            lifecycle.addObserver(scope);
+        }
+        return scope;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Фоновая задача в пуле io без результата
+     */
+    public Task launch(String taskName, Runnable work) {
+        return submit(io, taskName, () -> {
+            work.run();
+            return null;
+        }, null, null, true);
+    }
+
+    /**
+     * Фоновая задача в пуле io; результат приходит в главный поток,
+     * ошибка только пишется в лог
+     */
+    public <T> Task launch(String taskName, Callable<T> work, Callback<T> onResult) {
+        return submit(io, taskName, work, onResult, null, true);
+    }
+
+    public <T> Task launch(String taskName, Callable<T> work, Callback<T> onResult,
+                           ErrorCallback onError) {
+        return submit(io, taskName, work, onResult, onError, true);
+    }
+
+    /**
+     * Запись в пуле io: выполняется, даже если экран закрыт раньше,
+     * чтобы не потерять действие пользователя
+     */
+    public <T> Task launchWrite(String taskName, Callable<T> work, Callback<T> onResult) {
+        return submit(io, taskName, work, onResult, null, false);
+    }
+
+    public <T> Task launchWrite(String taskName, Callable<T> work, Callback<T> onResult,
+                                ErrorCallback onError) {
+        return submit(io, taskName, work, onResult, onError, false);
+    }
+
+    /**
+     * Расчетная задача в пуле compute
+     */
+    public <T> Task launchCompute(String taskName, Callable<T> work, Callback<T> onResult,
+                                  ErrorCallback onError) {
+        return submit(compute, taskName, work, onResult, onError, true);
+    }
+
+    /**
+     * Отменяет все задачи области; новые задачи больше не запускаются
+     */
+    public void cancel() {
+        active = false;
+        for (Task task : tasks) {
+            task.cancel();
+        }
+        tasks.clear();
+    }
+
+    @Override
+    public void onDestroy(@NonNull LifecycleOwner owner) {
+        owner.getLifecycle().removeObserver(this);
+        cancel();
+    }
+
+    private <T> Task submit(Executor executor, String taskName, Callable<T> work,
+                            Callback<T> onResult, ErrorCallback onError, boolean cancellable) {
+        Task task = new Task(name + "/" + taskName);
+        if (!active && cancellable) {
+            task.cancel();
+            return task;
+        }
+        tasks.add(task);
+
+        Runnable body = () -> {
+            if (cancellable && task.isCancelled()) {
+                return;
+            }
+            T result = null;
+            Exception error = null;
+            try {
+                result = work.call();
+            } catch (Exception e) {
+                error = e;
+            }
+            deliver(task, result, error, onResult, onError);
+        };
+
+        try {
+            executor.execute(AppExecutors.named(task.name, body));
+        } catch (RejectedExecutionException e) {
+            tasks.remove(task);
+            task.cancel();
+            Log.e(TAG, "Задача не принята: " + task.name, e);
+        }
+        return task;
+    }
+
+    private <T> void deliver(Task task, T result, Exception error,
+                             Callback<T> onResult, ErrorCallback onError) {
+        if (error != null && onError == null) {
+            Log.e(TAG, "Ошибка в задаче " + task.name, error);
+        }
+        if ((error == null && onResult == null) || (error != null && onError == null)) {
+            tasks.remove(task);
+            return;
+        }
+        main.execute(() -> {
+            tasks.remove(task);
+            // Экран уничтожен, пока задача выполнялась - результат не нужен
+            if (!active || task.isCancelled()) {
+                return;
+            }
+            if (error != null) {
+                onError.onError(error);
+            } else {
+                onResult.onResult(result);
+            }
+        });
+    }
+
+    /**
+     * Запущенная задача; отмена не прерывает поток, а отменяет доставку результата
+     */
+    public static final class Task {
+        private final String name;
+        private volatile boolean cancelled;
+
+        Task(String name) {
+            this.name = name;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
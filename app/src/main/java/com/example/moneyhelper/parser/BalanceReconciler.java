@@ -0,0 +1,160 @@
+package com.example.moneyhelper.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Сверка остатков выписки по мере разбора строк
+ * Для соседних операций должно выполняться: остаток до + сумма = остаток после
+ * (сумма со знаком: расход отрицательный, доход положительный).
+ * Выписка может идти как от старых операций к новым, так и наоборот -
+ * направление определяется по первой сошедшейся паре строк
+ */
+public class BalanceReconciler {
+
+    // Сколько расхождений хранить подробно, остальные только считаются
+    private static final int MAX_STORED_GAPS = 50;
+
+    private static final int DIRECTION_UNKNOWN = 0;
+    private static final int DIRECTION_FORWARD = 1;   // от старых к новым
+    private static final int DIRECTION_BACKWARD = -1; // от новых к старым
+
+    private final List<Gap> gaps = new ArrayList<>();
+    private int direction = DIRECTION_UNKNOWN;
+
+    private boolean hasPrevious;
+    private long previousAmount;
+    private long previousBalance;
+    private int previousPage;
+
+    private int rowCount;
+    private int checkedCount;
+    private int gapCount;
+
+    /**
+     * Проверяет очередную строку
+     * @param page страница выписки
+     * @param signedAmountKopecks сумма операции со знаком
+     * @param balanceKopecks остаток после операции
+     * @return false, если строка не сошлась с предыдущей
+     */
+    public boolean accept(int page, long signedAmountKopecks, long balanceKopecks) {
+        rowCount++;
+        boolean consistent = true;
+
+        if (hasPrevious) {
+            long forwardDiff = balanceKopecks - (previousBalance + signedAmountKopecks);
+            long backwardDiff = previousBalance - (balanceKopecks + previousAmount);
+
+            if (direction == DIRECTION_UNKNOWN) {
+                if (forwardDiff == 0) {
+                    direction = DIRECTION_FORWARD;
+                } else if (backwardDiff == 0) {
+                    direction = DIRECTION_BACKWARD;
+                }
+            }
+
+            long diff = direction == DIRECTION_BACKWARD ? backwardDiff : forwardDiff;
+            if (direction == DIRECTION_UNKNOWN || diff != 0) {
+                consistent = false;
+                long expected = direction == DIRECTION_BACKWARD
+                        ? previousBalance - previousAmount
+                        : previousBalance + signedAmountKopecks;
+                addGap(new Gap(rowCount, previousPage, page, false, expected, balanceKopecks));
+            } else {
+                checkedCount++;
+            }
+        }
+
+        hasPrevious = true;
+        previousAmount = signedAmountKopecks;
+        previousBalance = balanceKopecks;
+        previousPage = page;
+        return consistent;
+    }
+
+    /**
+     * Строку не удалось разобрать - цепочка остатков прерывается,
+     * следующая строка не сравнивается с предыдущей
+     */
+    public void breakChain(int page) {
+        rowCount++;
+        if (hasPrevious) {
+            addGap(new Gap(rowCount, previousPage, page, true, 0, 0));
+        }
+        hasPrevious = false;
+    }
+
+    private void addGap(Gap gap) {
+        gapCount++;
+        if (gaps.size() < MAX_STORED_GAPS) {
+            gaps.add(gap);
+        }
+    }
+
+    /** Количество строк, прошедших через сверку */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /** Количество пар строк, у которых остатки сошлись */
+    public int getCheckedCount() {
+        return checkedCount;
+    }
+
+    /** Общее количество расхождений */
+    public int getGapCount() {
+        return gapCount;
+    }
+
+    /** Первые расхождения в порядке обнаружения */
+    public List<Gap> getGaps() {
+        return Collections.unmodifiableList(gaps);
+    }
+
+    public boolean isConsistent() {
+        return gapCount == 0;
+    }
+
+    /**
+     * Место, где остаток не сошелся: пропущенная строка,
+     * разрыв операции на границе страниц или ошибка распознавания суммы
+     */
+    public static class Gap {
+        public final int rowIndex;
+        public final int fromPage;
+        public final int toPage;
+        public final boolean unparsed;
+        public final long expectedBalanceKopecks;
+        public final long actualBalanceKopecks;
+
+        Gap(int rowIndex, int fromPage, int toPage, boolean unparsed,
+            long expectedBalanceKopecks, long actualBalanceKopecks) {
+            this.rowIndex = rowIndex;
+            this.fromPage = fromPage;
+            this.toPage = toPage;
+            this.unparsed = unparsed;
+            this.expectedBalanceKopecks = expectedBalanceKopecks;
+            this.actualBalanceKopecks = actualBalanceKopecks;
+        }
+
+        /** Сумма, которой не хватает между строками */
+        public long getDifferenceKopecks() {
+            return actualBalanceKopecks - expectedBalanceKopecks;
+        }
+
+        @Override
+        public String toString() {
+            if (unparsed) {
+                return String.format(Locale.getDefault(),
+                        "строка %d (стр. %d): не распознана", rowIndex, toPage);
+            }
+            return String.format(Locale.getDefault(),
+                    "строка %d (стр. %d-%d): ожидался остаток %.2f, в выписке %.2f",
+                    rowIndex, fromPage, toPage,
+                    expectedBalanceKopecks / 100.0, actualBalanceKopecks / 100.0);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.moneyhelper.parser;
+
+import android.content.Context;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.moneyhelper.concurrent.AppExecutors;
+import com.tom_roush.pdfbox.android.PDFBoxResourceLoader;
+import com.tom_roush.pdfbox.pdmodel.PDDocument;
+import com.tom_roush.pdfbox.pdmodel.PDPage;
+import com.tom_roush.pdfbox.pdmodel.PDPageContentStream;
+import com.tom_roush.pdfbox.pdmodel.font.FontMappers;
+import com.tom_roush.pdfbox.pdmodel.font.PDType1Font;
+import com.tom_roush.pdfbox.pdmodel.font.encoding.GlyphList;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Прогрев PDFBox в фоне после запуска приложения
+ * Шрифты и глиф-листы PDFBox подгружает лениво при первом извлечении текста,
+ * из-за чего первый импорт заметно медленнее последующих. Прогрев делает это заранее
+ */
+public final class PdfBoxWarmUp {
+    private static final String TAG = "PdfBoxWarmUp";
+
+    private static final AtomicBoolean started = new AtomicBoolean();
+    private static final CountDownLatch done = new CountDownLatch(1);
+    private static volatile long durationMs = -1;
+    private static volatile boolean scheduledEnabled = true;
+
+    private PdfBoxWarmUp() {
+    }
+
+    /**
+     * Запускает прогрев в фоновом потоке, когда главный поток освободится
+     * Вызывать из главного потока, например в Application.onCreate
+     */
+    public static void scheduleOnIdle(Context context) {
+        if (!scheduledEnabled) {
+            Log.d(TAG, "Прогрев при старте отключен");
+            return;
+        }
+        Context appContext = context.getApplicationContext();
+        Looper.myQueue().addIdleHandler(() -> {
+            AppExecutors.compute().execute(
+                    AppExecutors.named("pdfbox_warmup", () -> warmUpNow(appContext)));
+            return false;
+        });
+    }
+
+    /**
+     * Включает или отключает прогрев при старте приложения
+     * Нужен тестам, которые замеряют первый импорт на холодном PDFBox;
+     * вызывать до Application.onCreate
+     */
+    public static void setScheduledWarmUpEnabled(boolean enabled) {
+        scheduledEnabled = enabled;
+    }
+
+    /**
+     * Прогревает PDFBox в текущем потоке; повторные вызовы ждут первого
+     * @return сколько занял прогрев, мс
+     */
+    public static long warmUpNow(Context context) {
+        if (!started.compareAndSet(false, true)) {
+            await(Long.MAX_VALUE);
+            return durationMs;
+        }
+
+        long start = SystemClock.elapsedRealtime();
+        try {
+            PDFBoxResourceLoader.init(context.getApplicationContext());
+
+            GlyphList.getAdobeGlyphList();
+            FontMappers.instance();
+
+            // Прогоняем экстрактор по крошечному документу, чтобы загрузить
+            // классы разбора потока страницы и метрики стандартного шрифта
+            try (PDDocument document = new PDDocument()) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 8);
+                    content.newLineAtOffset(30, 760);
+                    content.showText("01.01.2025 00:00 000000 Warm up 1,00 1,00");
+                    content.endText();
+                }
+                new SberbankStatementStripper().extractRows(document, row -> { });
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Прогрев PDFBox не удался", e);
+        } finally {
+            durationMs = SystemClock.elapsedRealtime() - start;
+            done.countDown();
+        }
+
+        Log.d(TAG, "PDFBox прогрет за " + durationMs + " мс");
+        return durationMs;
+    }
+
+    /**
+     * Ждет окончания прогрева
+     * @return false, если прогрев не закончился за отведенное время
+     */
+    public static boolean await(long timeoutMs) {
+        try {
+            return done.await(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public static boolean isDone() {
+        return done.getCount() == 0;
+    }
+}
@@ -2,15 +2,27 @@ package com.example.moneyhelper.parser;
 
 import android.content.Context;
 import android.net.Uri;
+import android.os.CancellationSignal;
+import android.os.ParcelFileDescriptor;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.OsConstants;
 
 import android.util.Log;
 
+import com.example.moneyhelper.service.MonthKeyCodec;
+import com.tom_roush.pdfbox.io.MemoryUsageSetting;
 import com.tom_roush.pdfbox.pdmodel.PDDocument;
-import com.tom_roush.pdfbox.text.PDFTextStripper;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -25,6 +37,15 @@ import java.util.regex.Pattern;
 public class SberbankStatementParser {
     private static final String TAG = "SberbankParser";
 
+    /**
+     * Лимит основной памяти PDFBox по умолчанию.
+     * Все, что не помещается, уходит во временные файлы в кэше приложения
+     */
+    public static final long DEFAULT_MAX_MAIN_MEMORY_BYTES = 8L * 1024 * 1024;
+
+    // Порция копирования для потоков, у которых нет файлового канала
+    private static final long COPY_CHUNK_BYTES = 1024 * 1024;
+
     // Паттерны для парсинга
     private static final Pattern CATEGORY_PATTERN = Pattern.compile(
             "(Супермаркеты|Транспорт|Рестораны и кафе|Прочие расходы|Прочие операции|" +
@@ -32,204 +53,352 @@ public class SberbankStatementParser {
     );
 
     private final Context context;
-    private final SimpleDateFormat dateFormat;
+
+    // <= 0 - документ целиком загружается в память (прежний режим)
+    private long maxMainMemoryBytes = DEFAULT_MAX_MAIN_MEMORY_BYTES;
+
+    // Настроенный экстрактор переиспользуется между файлами этого парсера
+    private SberbankStatementStripper stripper;
 
 
     public SberbankStatementParser(Context context) {
         this.context = context;
-        this.dateFormat = new SimpleDateFormat("dd.MM.yyyy HH:mm", Locale.getDefault());
+    }
+
+    /**
+     * Задает лимит основной памяти для загрузки PDF
+     * @param maxMainMemoryBytes лимит в байтах; 0 или меньше - без ограничения,
+     *                           весь документ читается в память
+     */
+    public void setMaxMainMemoryBytes(long maxMainMemoryBytes) {
+        this.maxMainMemoryBytes = maxMainMemoryBytes;
+    }
 
+    public long getMaxMainMemoryBytes() {
+        return maxMainMemoryBytes;
     }
 
     /**
      * Парсит PDF файл выписки
      */
     public List<Transaction> parseStatement(Uri pdfUri) throws Exception {
-        List<Transaction> transactions = new ArrayList<>();
-
-        try (InputStream inputStream = context.getContentResolver().openInputStream(pdfUri);
-             PDDocument document = PDDocument.load(inputStream)) {
+        return parseStatement(pdfUri, null);
+    }
 
-            PDFTextStripper stripper = new PDFTextStripper();
-            String text = stripper.getText(document);
+    /**
+     * Парсит PDF файл выписки, сверяя остатки по каждой строке
+     * @param reconciler получает все строки операций, включая доходы; может быть null
+     */
+    public List<Transaction> parseStatement(Uri pdfUri, BalanceReconciler reconciler)
+            throws Exception {
+        return parseStatement(pdfUri, reconciler, null, null);
+    }
 
-            Log.d(TAG, "Извлечен текст из PDF, длина: " + text.length());
+    /**
+     * Парсит PDF файл выписки
+     * @param reconciler получает все строки операций, включая доходы; может быть null
+     * @param listener получает шапку и ход разбора по страницам; может быть null
+     * @param cancellationSignal проверяется между страницами; при отмене бросается
+     *                           OperationCanceledException; может быть null
+     */
+    public List<Transaction> parseStatement(Uri pdfUri, BalanceReconciler reconciler,
+                                            Listener listener,
+                                            CancellationSignal cancellationSignal) throws Exception {
+        if (cancellationSignal != null) {
+            cancellationSignal.throwIfCanceled();
+        }
+        if (maxMainMemoryBytes <= 0) {
+            try (InputStream inputStream = context.getContentResolver().openInputStream(pdfUri);
+                 PDDocument document = PDDocument.load(inputStream)) {
+                return parseDocument(document, reconciler, listener, cancellationSignal);
+            } catch (Exception e) {
+                Log.e(TAG, "Ошибка парсинга PDF", e);
+                throw e;
+            }
+        }
 
-            // Для отладки - выводим первые 2000 символов
-            if (text.length() > 0) {
-                Log.d(TAG, "Первые строки PDF:\n" + text.substring(0, Math.min(2000, text.length())));
+        // Копируем выписку в кэш, чтобы PDFBox читал ее с диска,
+        // а не держал весь файл и граф объектов в куче
+        File pdfFile = copyToCache(pdfUri);
+        try (PDDocument document = PDDocument.load(pdfFile, MemoryUsageSetting
+                .setupMixed(maxMainMemoryBytes)
+                .setTempDir(context.getCacheDir()))) {
+            return parseDocument(document, reconciler, listener, cancellationSignal);
+        } catch (Exception e) {
+            Log.e(TAG, "Ошибка парсинга PDF", e);
+            throw e;
+        } finally {
+            if (!pdfFile.delete()) {
+                Log.w(TAG, "Не удалось удалить временный файл: " + pdfFile);
             }
+        }
+    }
 
-            transactions = parseTransactions(text);
+    /**
+     * Копирует содержимое URI во временный файл в кэше через NIO-каналы
+     */
+    private File copyToCache(Uri pdfUri) throws IOException {
+        File pdfFile = File.createTempFile("statement", ".pdf", context.getCacheDir());
 
-            Log.d(TAG, "Распознано транзакций: " + transactions.size());
+        try (InputStream inputStream = context.getContentResolver().openInputStream(pdfUri);
+             FileOutputStream outputStream = new FileOutputStream(pdfFile)) {
+            if (inputStream == null) {
+                throw new FileNotFoundException("Не удалось открыть файл: " + pdfUri);
+            }
 
-        } catch (Exception e) {
-            Log.e(TAG, "Ошибка парсинга PDF", e);
+            FileChannel target = outputStream.getChannel();
+            if (isWholeFile(inputStream)) {
+                // Файловый дескриптор - копирование без промежуточных буферов в куче.
+                // transferTo может передать меньше запрошенного, поэтому в цикле
+                FileChannel source = ((FileInputStream) inputStream).getChannel();
+                long position = source.position();
+                long end = source.size();
+                while (position < end) {
+                    long copied = source.transferTo(position, end - position, target);
+                    if (copied <= 0) {
+                        break;
+                    }
+                    position += copied;
+                }
+            } else {
+                ReadableByteChannel source = Channels.newChannel(inputStream);
+                long position = 0;
+                long copied;
+                while ((copied = target.transferFrom(source, position, COPY_CHUNK_BYTES)) > 0) {
+                    position += copied;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            pdfFile.delete();
             throw e;
         }
 
-        return transactions;
+        Log.d(TAG, "Выписка скопирована в кэш: " + pdfFile.length() + " байт");
+        return pdfFile;
+    }
+
+    /**
+     * Поток читает обычный файл до конца, и его канал можно копировать напрямую
+     * AssetFileDescriptor.AutoCloseInputStream - тоже FileInputStream, но над общим
+     * дескриптором со смещением и длиной, которых канал не знает; у канала над pipe
+     * нет размера. Такие потоки копируем как поток
+     */
+    private static boolean isWholeFile(InputStream inputStream) {
+        Class<?> type = inputStream.getClass();
+        if (type != FileInputStream.class
+                && type != ParcelFileDescriptor.AutoCloseInputStream.class) {
+            return false;
+        }
+        try {
+            return OsConstants.S_ISREG(Os.fstat(((FileInputStream) inputStream).getFD()).st_mode);
+        } catch (IOException | ErrnoException e) {
+            return false;
+        }
     }
 
     /**
-     * Парсит текст и извлекает транзакции
+     * Проходит документ по колонкам и распознает транзакции
      */
-    private List<Transaction> parseTransactions(String text) {
+    private List<Transaction> parseDocument(PDDocument document, BalanceReconciler reconciler,
+                                            Listener listener,
+                                            CancellationSignal cancellationSignal) throws IOException {
+        int pageCount = document.getNumberOfPages();
         List<Transaction> transactions = new ArrayList<>();
-        String[] lines = text.split("\n");
+        int[] rows = {0};
 
         Log.d(TAG, "=== НАЧАЛО ПАРСИНГА ===");
-        Log.d(TAG, "Всего строк в документе: " + lines.length);
-        Log.d(TAG, "Формат: ДД.ММ.ГГГГ ЧЧ:ММ КОД КАТЕГОРИЯ СУММА ОСТАТОК");
-
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i].trim();
+        Log.d(TAG, "Страниц в документе: " + pageCount);
 
-            if (line.isEmpty()) continue;
+        if (stripper == null) {
+            stripper = new SberbankStatementStripper();
+        }
+        SberbankStatementStripper stripper = this.stripper;
+        stripper.extractRows(document, new SberbankStatementStripper.RowHandler() {
+            @Override
+            public void onHeader(List<String> headerLines) {
+                StatementHeader header = StatementHeader.parse(headerLines);
+                Log.d(TAG, "Шапка выписки: " + header);
+                if (listener != null && !listener.onHeader(header)) {
+                    Log.d(TAG, "Разбор остановлен после шапки");
+                    stripper.stop();
+                }
+            }
 
-            // Ищем строку с датой операции (начало транзакции)
-            if (line.matches("\\d{2}\\.\\d{2}\\.\\d{4}\\s+\\d{2}:\\d{2}.*")) {
-                Log.d(TAG, "\n--- НАЙДЕНА ТРАНЗАКЦИЯ (строка " + i + ") ---");
-                Log.d(TAG, "Строка с датой: " + line);
+            @Override
+            public void onPageEnd(int pageNo) {
+                if (cancellationSignal != null) {
+                    cancellationSignal.throwIfCanceled();
+                }
+                if (listener != null) {
+                    listener.onPage(pageNo, pageCount, rows[0]);
+                }
+            }
 
-                Transaction transaction = parseTransactionBlock(lines, i);
-                if (transaction != null && !transaction.isIncome) {
-                    transactions.add(transaction);
-                    Log.d(TAG, "✓ Транзакция добавлена (расход)");
-                    Log.d(TAG, String.format("  Сумма: %s, Категория: %s, Описание: %s",
-                            transaction.amount, transaction.category, transaction.description));
-                } else if (transaction != null && transaction.isIncome) {
-                    // transactions.add(transaction);
-                    // transaction.isIncome = true;
-                   Log.d(TAG, "✗ Транзакция пропущена (доход): " + String.format("%s", transaction.amount));
+            @Override
+            public void onRow(SberbankStatementStripper.StatementRow row) {
+                rows[0]++;
+                Transaction transaction = toTransaction(row);
+                if (reconciler != null) {
+                    reconcile(reconciler, row.page, transaction);
+                }
+                if (transaction == null) {
+                    Log.d(TAG, "✗ Транзакция не распознана: " + row.date + " " + row.time);
+                } else if (transaction.isIncome) {
+                    Log.d(TAG, "✗ Транзакция пропущена (доход): " + transaction.amount);
                 } else {
-                    Log.d(TAG, "✗ Транзакция не распознана");
+                    transactions.add(transaction);
                 }
             }
+        });
+
+        Log.d(TAG, "=== КОНЕЦ ПАРСИНГА ===");
+        Log.d(TAG, String.format(Locale.US, "Строк операций: %d, распознано РАСХОДОВ: %d",
+                rows[0], transactions.size()));
+        if (reconciler != null) {
+            Log.d(TAG, String.format(Locale.US, "Сверка остатков: сошлось %d, расхождений %d",
+                    reconciler.getCheckedCount(), reconciler.getGapCount()));
         }
 
-        Log.d(TAG, "\n=== КОНЕЦ ПАРСИНГА ===");
-        Log.d(TAG, "Распознано РАСХОДОВ: " + transactions.size());
-
         return transactions;
     }
 
     /**
-     * Парсит блок транзакции (несколько строк)
-     * Формат строки: ДД.ММ.ГГГГ ЧЧ:ММ КОД_АВТОРИЗАЦИИ КАТЕГОРИЯ СУММА ОСТАТОК
+     * Передает строку в сверку остатков; строка без суммы или остатка прерывает цепочку
      */
-    private Transaction parseTransactionBlock(String[] lines, int startIndex) {
-        Transaction transaction = new Transaction();
-
-        String mainLine = lines[startIndex].trim();
-        Log.d(TAG, "Анализируем строку: " + mainLine);
-
-        String transactionId = extractTransactionId(mainLine);
-        if (transactionId != null) {
-            transaction.id = transactionId;
-            Log.d(TAG, "✓ Код транзакции: " + transactionId);
+    private void reconcile(BalanceReconciler reconciler, int page, Transaction transaction) {
+        if (transaction == null || !transaction.hasBalance) {
+            reconciler.breakChain(page);
+            return;
         }
-        transaction.date = parseDate(mainLine);
-        Log.d(TAG, "Дата: " + transaction.date);
-
-        String category = findCategory(mainLine);
-        if (category != null) {
-            transaction.category = mapCategory(category);
-            Log.d(TAG, "✓ Найдена категория: " + category + " -> " + transaction.category);
+        long signedAmount = transaction.isIncome
+                ? transaction.amountKopecks : -transaction.amountKopecks;
+        if (!reconciler.accept(page, signedAmount, transaction.balanceKopecks)) {
+            Log.w(TAG, "✗ Остаток не сходится: " + transaction);
         }
+    }
 
-        List<Integer> amounts = extractAllAmounts(mainLine);
-        if (!amounts.isEmpty()) {
-            transaction.amount = amounts.get(1);
-            Log.d(TAG, "✓ Найдена сумма операции: " + transaction.amount);
+    /**
+     * Собирает транзакцию из строки, разложенной по колонкам
+     */
+    private Transaction toTransaction(SberbankStatementStripper.StatementRow row) {
+        if (row.amount == null) {
+            Log.w(TAG, "✗ Сумма не найдена");
+            return null;
+        }
 
-            if (amounts.size() > 1) {
-                Log.d(TAG, "  Остаток на счете: " + amounts.get(1));
-            }
+        Transaction transaction = new Transaction();
+        transaction.id = row.code;
+        transaction.date = parseDate(row.date, row.time);
 
-            transaction.isIncome = mainLine.contains("+");
-            Log.d(TAG, "Тип: " + (transaction.isIncome ? "Доход" : "Расход"));
-        } else {
-            Log.w(TAG, "✗ Сумма не найдена");
+        try {
+            transaction.amountKopecks = Math.abs(parseKopecks(row.amount));
+        } catch (NumberFormatException e) {
+            Log.e(TAG, "Ошибка парсинга суммы: " + row.amount, e);
             return null;
         }
+        if (transaction.amountKopecks == 0) {
+            return null;
+        }
+        transaction.amount = (int) ((transaction.amountKopecks + 50) / 100);
+        transaction.isIncome = row.amount.startsWith("+");
 
-        String description = extractDescriptionFromMainLine(mainLine, category);
-        if (description != null && !description.isEmpty()) {
-            transaction.description = description;
-            Log.d(TAG, "✓ Найдено описание из основной строки: " + description);
+        if (row.balance != null) {
+            try {
+                transaction.balanceKopecks = parseKopecks(row.balance);
+                transaction.hasBalance = true;
+            } catch (NumberFormatException e) {
+                Log.w(TAG, "Остаток не распознан: " + row.balance);
+            }
         }
 
-        if (transaction.description == null || transaction.description.isEmpty()) {
-            int endIndex = Math.min(startIndex + 5, lines.length);
-            for (int i = startIndex + 1; i < endIndex; i++) {
-                String line = lines[i].trim();
-                if (!line.isEmpty() && !line.contains("Операция по карте")) {
-                    String merchantName = extractMerchantName(line);
-                    if (merchantName != null && !merchantName.isEmpty()) {
-                        transaction.description = merchantName;
-                        Log.d(TAG, "✓ Найдено описание в следующей строке: " + merchantName);
-                        break;
-                    }
-                }
+        String category = findCategory(row.category);
+        if (category != null) {
+            transaction.category = mapCategory(category);
+        }
+
+        for (String line : row.descriptionLines) {
+            if (line.contains("Операция по карте")) continue;
+            String merchantName = extractMerchantName(line);
+            if (merchantName != null && !merchantName.isEmpty()) {
+                transaction.description = merchantName;
+                transaction.merchant = merchantName;
+                break;
             }
         }
 
         if (transaction.category == null && transaction.description != null) {
             transaction.category = guessCategoryFromDescription(transaction.description);
-            Log.d(TAG, "⚠ Категория определена по описанию: " + transaction.category);
         }
 
         if (transaction.category == null) {
             transaction.category = "Другое";
-            Log.w(TAG, "⚠ Категория не найдена, установлена 'Другое'");
         }
 
         if (transaction.description == null || transaction.description.isEmpty()) {
-            transaction.description = category != null ? category : "Без описания";
-            Log.w(TAG, "⚠ Описание не найдено, используется категория или 'Без описания'");
+            transaction.description = row.category != null && !row.category.isEmpty()
+                    ? row.category : "Без описания";
         }
 
         return transaction;
     }
 
-
-    private Date parseDate(String line) {
-        Pattern dateTimePattern = Pattern.compile("(\\d{2}\\.\\d{2}\\.\\d{4})\\s+(\\d{2}:\\d{2})");
-        Matcher matcher = dateTimePattern.matcher(line);
-
-        if (matcher.find()) {
-            String dateTimeStr = matcher.group(1) + " " + matcher.group(2);
-            try {
-                return dateFormat.parse(dateTimeStr);
-            } catch (ParseException e) {
-                Log.e(TAG, "Ошибка парсинга даты: " + dateTimeStr, e);
-            }
+    private Date parseDate(String date, String time) {
+        String dateTimeStr = date + " " + time;
+        long millis = MonthKeyCodec.parseDateTime(dateTimeStr);
+        if (millis != Long.MIN_VALUE) {
+            return new Date(millis);
         }
 
+        Log.e(TAG, "Ошибка парсинга даты: " + dateTimeStr);
         return new Date();
     }
 
     /**
-     * Извлекает код транзакции (авторизации) - 6 цифр после времени
+     * Переводит напечатанную сумму ("+36 975,65") в копейки
      */
-    private String extractTransactionId(String line) {
-        // Паттерн: время (ЧЧ:ММ) затем пробелы и 6 цифр
-        Pattern pattern = Pattern.compile("\\d{2}:\\d{2}\\s+(\\d{6})");
-        Matcher matcher = pattern.matcher(line);
+    static long parseKopecks(String amount) {
+        long rubles = 0;
+        long kopecks = 0;
+        int kopeckDigits = -1;
+        boolean negative = false;
+        boolean hasDigits = false;
+
+        for (int i = 0; i < amount.length(); i++) {
+            char c = amount.charAt(i);
+            if (c >= '0' && c <= '9') {
+                hasDigits = true;
+                if (kopeckDigits < 0) {
+                    rubles = rubles * 10 + (c - '0');
+                } else if (kopeckDigits < 2) {
+                    kopecks = kopecks * 10 + (c - '0');
+                    kopeckDigits++;
+                }
+            } else if (c == ',' || c == '.') {
+                kopeckDigits = 0;
+            } else if (c == '-' || c == '−') {
+                negative = true;
+            }
+            // Пробелы разрядов и знак "+" пропускаем
+        }
 
-        if (matcher.find()) {
-            return matcher.group(1);
+        if (!hasDigits) {
+            throw new NumberFormatException("Нет цифр в сумме: " + amount);
+        }
+        if (kopeckDigits == 1) {
+            kopecks *= 10;
         }
 
-        return null;
+        long total = rubles * 100 + kopecks;
+        return negative ? -total : total;
     }
 
     /**
      * Ищет категорию в строке
      */
     private String findCategory(String line) {
+        if (line == null) {
+            return null;
+        }
         Matcher matcher = CATEGORY_PATTERN.matcher(line);
         if (matcher.find()) {
             return matcher.group(1);
@@ -237,85 +406,6 @@ public class SberbankStatementParser {
         return null;
     }
 
-    /**
-     * Извлекает все суммы из строки (может быть несколько)
-     * Формат: ДД.ММ.ГГГГ ЧЧ:ММ КОД КАТЕГОРИЯ СУММА_ОПЕРАЦИИ ОСТАТОК
-     */
-    private List<Integer> extractAllAmounts(String line) {
-        List<Integer> amounts = new ArrayList<>();
-
-        // 1. Очистка "мусора" (время и код авторизации), как было в оригинале
-        String cleanedLine = line.replaceFirst("\\d{2}:\\d{2}\\s+\\d{6}\\s+", " ");
-
-        // 2. Убираем ВСЕ пробелы, как ты и предложил
-        // Пример: "Супермаркеты 349,97 36 975,65" -> "Супермаркеты349,9736975,65"
-        String noSpacesLine = cleanedLine.replaceAll("\\s+", "");
-
-        Log.d(TAG, "Строка без пробелов: " + noSpacesLine);
-
-        // Паттерн:
-        // ([^\\d])           -> Группа 1: Любой символ, КРОМЕ цифры (буква категории перед суммой)
-        // ([+-]?\\d+[,.]\\d{2}) -> Группа 2: Сама сумма (опционально знак +/-, цифры, точка/запятая, ровно 2 цифры)
-        Pattern pattern = Pattern.compile("([^\\d])([+-]?\\d+[,.]\\d{2})");
-        Matcher matcher = pattern.matcher(noSpacesLine);
-
-        while (matcher.find()) {
-            // matcher.group(1) - это буква перед суммой (нам она нужна только для проверки паттерна)
-            String amountStr = matcher.group(2); // Сама сумма, например "349,97" или "+109,00"
-
-            try {
-                // Заменяем запятую на точку для парсинга Java
-                String parsableAmount = amountStr.replace(",", ".");
-
-                // Double.parseDouble отлично понимает "+" и "-" в начале строки
-                double amountP = Double.parseDouble(parsableAmount.replace(",", "."));
-                int amount = (int) Math.round(amountP);
-
-                // Проверка на адекватность суммы
-                if (amount != 0 && Math.abs(amount) < 10000000) {
-                    amounts.add(amount);
-                    Log.d(TAG, "  Найдена сумма: " + amount);
-                }
-            } catch (NumberFormatException e) {
-                Log.e(TAG, "Ошибка парсинга суммы: " + amountStr, e);
-            }
-        }
-
-        return amounts;
-    }
-
-    /**
-     * Извлекает описание из основной строки
-     * Убирает дату, время, код авторизации, категорию и суммы
-     */
-    private String extractDescriptionFromMainLine(String line, String category) {
-        String cleaned = line;
-
-        // Убираем дату и время
-        cleaned = cleaned.replaceFirst("\\d{2}\\.\\d{2}\\.\\d{4}\\s+\\d{2}:\\d{2}", "");
-
-        // Убираем код авторизации (6 цифр)
-        cleaned = cleaned.replaceFirst("\\s*\\d{6}\\s*", " ");
-
-        // Убираем категорию если она найдена
-        if (category != null) {
-            cleaned = cleaned.replace(category, "");
-        }
-
-        // Убираем все суммы (числа с точкой/запятой и 2 цифрами после)
-        cleaned = cleaned.replaceAll("[+-]?\\s*\\d{1,3}(?:[,\\s]\\d{3})*[,.]\\d{2}", "");
-
-        // Очищаем от лишних пробелов
-        cleaned = cleaned.replaceAll("\\s+", " ").trim();
-
-        // Если что-то осталось и это не просто пробелы
-        if (!cleaned.isEmpty() && cleaned.length() > 2) {
-            return cleaned;
-        }
-
-        return null;
-    }
-
     /**
      * Извлекает название места/продавца
      */
@@ -424,6 +514,26 @@ public class SberbankStatementParser {
         }
     }
 
+    /**
+     * Получает шапку выписки и ход разбора
+     */
+    public interface Listener {
+        /**
+         * Вызывается до разбора операций
+         * @return false - выписку дальше не разбирать
+         */
+        default boolean onHeader(StatementHeader header) {
+            return true;
+        }
+
+        /**
+         * Страница разобрана
+         * @param rowCount сколько строк операций найдено с начала документа
+         */
+        default void onPage(int pageNo, int pageCount, int rowCount) {
+        }
+    }
+
     /**
      * Класс для хранения данных транзакции
      */
@@ -431,8 +541,13 @@ public class SberbankStatementParser {
         public Date date;
         public String id;
         public int amount;
+        public long amountKopecks;
+        public long balanceKopecks;
+        public boolean hasBalance;
         public String category;
         public String description;
+        // Продавец из описания операции; null, если в description подставлена категория банка
+        public String merchant;
         public boolean isIncome;
 
         @Override
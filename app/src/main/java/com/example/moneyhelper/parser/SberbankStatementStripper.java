@@ -0,0 +1,370 @@
+package com.example.moneyhelper.parser;
+
+import com.tom_roush.pdfbox.pdmodel.PDDocument;
+import com.tom_roush.pdfbox.pdmodel.PDPage;
+import com.tom_roush.pdfbox.text.PDFTextStripper;
+import com.tom_roush.pdfbox.text.TextPosition;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Извлекает строки выписки Сбербанка по координатам глифов
+ * Колонки (дата, время, код, категория, сумма, остаток) определяются
+ * по x-координатам слов за один проход по документу, без склейки строк в текст
+ */
+public class SberbankStatementStripper extends PDFTextStripper {
+
+    private static final Pattern DATE_PATTERN = Pattern.compile("\\d{2}\\.\\d{2}\\.\\d{4}");
+    private static final Pattern TIME_PATTERN = Pattern.compile("\\d{2}:\\d{2}");
+    private static final Pattern CODE_PATTERN = Pattern.compile("\\d{6}");
+    // Фрагмент денежной колонки: знак, группы разрядов, копейки
+    private static final Pattern MONEY_PATTERN = Pattern.compile(
+            "[+\\-−]?[\\d\\s\\u00A0\\u202F]*(?:[,.]\\d{2})?");
+
+    // Разрыв между словами больше стольких пробелов - граница колонки
+    private static final float COLUMN_GAP_IN_SPACES = 2.0f;
+    // Сколько строк после строки операции относится к ее описанию
+    private static final int MAX_DESCRIPTION_LINES = 4;
+    // Сколько строк до первой операции считать шапкой выписки
+    private static final int MAX_HEADER_LINES = 60;
+
+    private final List<Word> lineWords = new ArrayList<>();
+    private final List<String> headerLines = new ArrayList<>();
+    private RowHandler handler;
+    private StatementRow pendingRow;
+    private boolean headerDelivered;
+    private boolean stopped;
+
+    public SberbankStatementStripper() throws IOException {
+        super();
+        setSortByPosition(true);
+    }
+
+    /**
+     * Проходит документ и передает каждую распознанную строку операции в handler
+     */
+    public void extractRows(PDDocument document, RowHandler handler) throws IOException {
+        this.handler = handler;
+        this.pendingRow = null;
+        this.lineWords.clear();
+        this.headerLines.clear();
+        this.headerDelivered = false;
+        this.stopped = false;
+        try {
+            writeText(document, NullWriter.INSTANCE);
+            deliverHeader();
+            flushPendingRow();
+        } finally {
+            this.handler = null;
+            this.pendingRow = null;
+            this.lineWords.clear();
+            this.headerLines.clear();
+        }
+    }
+
+    /**
+     * Прекращает разбор: оставшиеся страницы не читаются
+     * Можно вызывать из RowHandler
+     */
+    public void stop() {
+        stopped = true;
+        pendingRow = null;
+    }
+
+    @Override
+    public void processPage(PDPage page) throws IOException {
+        if (stopped) {
+            return;
+        }
+        super.processPage(page);
+    }
+
+    /**
+     * PDFBox делит слова только по разрывам в координатах, поэтому фрагмент,
+     * нарисованный с настоящими пробелами ("01.11.2025 13:05 123456"), приходит одним
+     * словом. Режем его по пробельным глифам, границы берем из их TextPosition
+     */
+    @Override
+    protected void writeString(String text, List<TextPosition> textPositions) {
+        if (textPositions == null) {
+            return;
+        }
+        StringBuilder token = new StringBuilder();
+        TextPosition first = null;
+        TextPosition last = null;
+        for (TextPosition position : textPositions) {
+            String glyph = position.getUnicode();
+            if (glyph == null || isBlank(glyph)) {
+                addWord(token, first, last);
+                first = null;
+                continue;
+            }
+            if (first == null) {
+                first = position;
+            }
+            last = position;
+            token.append(glyph);
+        }
+        addWord(token, first, last);
+    }
+
+    private void addWord(StringBuilder token, TextPosition first, TextPosition last) {
+        if (first == null) {
+            return;
+        }
+        lineWords.add(new Word(token.toString(),
+                first.getXDirAdj(),
+                last.getXDirAdj() + last.getWidthDirAdj(),
+                first.getWidthOfSpace()));
+        token.setLength(0);
+    }
+
+    /**
+     * Пробел, в том числе неразрывный и узкий пробел разрядов
+     */
+    private static boolean isBlank(String glyph) {
+        for (int i = 0; i < glyph.length(); i++) {
+            char c = glyph.charAt(i);
+            if (!Character.isWhitespace(c) && !Character.isSpaceChar(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected void writeWordSeparator() {
+        // Слова разделяются по координатам, разделитель не нужен
+    }
+
+    @Override
+    protected void writeLineSeparator() {
+        processLine();
+    }
+
+    @Override
+    protected void endPage(PDPage page) throws IOException {
+        // Последняя строка страницы не завершается разделителем
+        processLine();
+        super.endPage(page);
+        if (!stopped && handler != null) {
+            handler.onPageEnd(getCurrentPageNo());
+        }
+    }
+
+    /**
+     * Разбирает накопленные слова одной визуальной строки
+     */
+    private void processLine() {
+        if (lineWords.isEmpty()) {
+            return;
+        }
+
+        try {
+            if (stopped) {
+                return;
+            }
+            Word first = lineWords.get(0);
+            boolean startsWithDate = DATE_PATTERN.matcher(first.text).matches();
+
+            if (startsWithDate && lineWords.size() > 1
+                    && TIME_PATTERN.matcher(lineWords.get(1).text).matches()) {
+                deliverHeader();
+                flushPendingRow();
+                if (!stopped) {
+                    pendingRow = parseOperationLine();
+                }
+            } else if (!headerDelivered) {
+                if (headerLines.size() < MAX_HEADER_LINES) {
+                    headerLines.add(joinWords(0, lineWords.size()));
+                }
+            } else if (pendingRow != null
+                    && pendingRow.descriptionLines.size() < MAX_DESCRIPTION_LINES) {
+                // Вторая строка операции: дата списания и описание
+                int from = startsWithDate ? 1 : 0;
+                String description = joinWords(from, lineWords.size());
+                if (!description.isEmpty()) {
+                    pendingRow.descriptionLines.add(description);
+                }
+            }
+        } finally {
+            lineWords.clear();
+        }
+    }
+
+    /**
+     * Строка операции: ДАТА ВРЕМЯ [КОД] КАТЕГОРИЯ ... СУММА ОСТАТОК
+     */
+    private StatementRow parseOperationLine() {
+        StatementRow row = new StatementRow();
+        row.page = getCurrentPageNo();
+        row.date = lineWords.get(0).text;
+        row.time = lineWords.get(1).text;
+
+        int index = 2;
+        if (index < lineWords.size() && CODE_PATTERN.matcher(lineWords.get(index).text).matches()) {
+            row.code = lineWords.get(index).text;
+            index++;
+        }
+
+        // Денежные колонки - хвост строки из числовых слов
+        int moneyStart = lineWords.size();
+        while (moneyStart > index && isMoneyWord(lineWords.get(moneyStart - 1).text)) {
+            moneyStart--;
+        }
+
+        row.category = joinWords(index, moneyStart);
+
+        // Группируем числовые слова по колонкам: внутри суммы слова разделены
+        // пробелом разрядов, между колонками - широким отступом
+        List<String> columns = new ArrayList<>(2);
+        StringBuilder column = new StringBuilder();
+        for (int i = moneyStart; i < lineWords.size(); i++) {
+            Word word = lineWords.get(i);
+            if (column.length() > 0) {
+                Word previous = lineWords.get(i - 1);
+                float gap = word.startX - previous.endX;
+                float space = Math.max(word.spaceWidth, 1f);
+                if (gap > space * COLUMN_GAP_IN_SPACES) {
+                    columns.add(column.toString());
+                    column.setLength(0);
+                }
+            }
+            column.append(word.text);
+        }
+        if (column.length() > 0) {
+            columns.add(column.toString());
+        }
+
+        if (columns.size() >= 2) {
+            row.amount = columns.get(columns.size() - 2);
+            row.balance = columns.get(columns.size() - 1);
+        } else if (columns.size() == 1) {
+            row.amount = columns.get(0);
+        }
+
+        return row;
+    }
+
+    /**
+     * Отдает шапку один раз - перед первой операцией или в конце документа
+     */
+    private void deliverHeader() {
+        if (headerDelivered) {
+            return;
+        }
+        headerDelivered = true;
+        if (handler != null) {
+            handler.onHeader(headerLines);
+        }
+    }
+
+    private void flushPendingRow() {
+        if (pendingRow != null && handler != null) {
+            handler.onRow(pendingRow);
+        }
+        pendingRow = null;
+    }
+
+    private String joinWords(int from, int to) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            String text = lineWords.get(i).text;
+            if (text.isEmpty()) continue;
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(text);
+        }
+        return sb.toString();
+    }
+
+    private static boolean isMoneyWord(String text) {
+        if (text.isEmpty() || !MONEY_PATTERN.matcher(text).matches()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isDigit(c) || c == '+') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Получатель распознанных строк
+     */
+    public interface RowHandler {
+        /**
+         * Строки до первой операции; вызывается один раз до первого onRow
+         */
+        default void onHeader(List<String> headerLines) {
+        }
+
+        /**
+         * Страница разобрана; строка операции, начатая на ней, может быть еще не отдана
+         */
+        default void onPageEnd(int pageNo) {
+        }
+
+        void onRow(StatementRow row);
+    }
+
+    /**
+     * Строка операции, разложенная по колонкам выписки
+     * Суммы хранятся в том виде, в котором напечатаны ("+1 500,00")
+     */
+    public static class StatementRow {
+        public int page;
+        public String date;
+        public String time;
+        public String code;
+        public String category;
+        public String amount;
+        public String balance;
+        public final List<String> descriptionLines = new ArrayList<>(2);
+    }
+
+    /**
+     * Слово строки с горизонтальными границами
+     */
+    private static class Word {
+        final String text;
+        final float startX;
+        final float endX;
+        final float spaceWidth;
+
+        Word(String text, float startX, float endX, float spaceWidth) {
+            this.text = text;
+            this.startX = startX;
+            this.endX = endX;
+            this.spaceWidth = spaceWidth;
+        }
+    }
+
+    /**
+     * Текст документа не нужен - все данные уходят в RowHandler
+     */
+    private static class NullWriter extends Writer {
+        static final NullWriter INSTANCE = new NullWriter();
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+        }
+
+        @Override
+        public void write(String str) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.moneyhelper.parser;
+
+import com.example.moneyhelper.service.MonthKeyCodec;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Шапка выписки: период и счет/карта, к которым она относится
+ */
+public class StatementHeader {
+
+    // "за период с 01.10.2025 по 31.10.2025", "01.10.2025 — 31.10.2025"
+    private static final Pattern PERIOD_PATTERN = Pattern.compile(
+            "(\\d{2}\\.\\d{2}\\.\\d{4})\\s*(?:по|[—–-])\\s*(\\d{2}\\.\\d{2}\\.\\d{4})");
+    // "Номер счёта 40817 810 5 3800 1234567"
+    private static final Pattern ACCOUNT_PATTERN = Pattern.compile(
+            "[Сс]ч[её]т\\D{0,20}((?:\\d[\\s\\u00A0]?){20})");
+    // "МИР Классическая •••• 1234", "Visa **** 1234"
+    private static final Pattern CARD_PATTERN = Pattern.compile(
+            "(?:•{2,}|\\*{2,})\\s*(\\d{4})");
+    private static final String CARD_KEY_PREFIX = "card*";
+
+    /**
+     * Ключ счета для индекса импортированных периодов, null если не найден
+     * Полный номер счета (20 цифр) или, если его нет в шапке, последние 4 цифры карты
+     * ("card*1234"). У разных карт последние цифры могут совпасть, поэтому номер счета
+     * всегда предпочтительнее
+     */
+    public String account;
+    public Date periodFrom;
+    public Date periodTo;
+
+    /**
+     * Известны и счет, и период - выписку можно сверять с уже импортированными
+     */
+    public boolean isComplete() {
+        return account != null && periodFrom != null && periodTo != null;
+    }
+
+    /**
+     * Разбирает строки шапки (все, что стоит до первой операции)
+     */
+    public static StatementHeader parse(List<String> lines) {
+        StatementHeader header = new StatementHeader();
+        String cardSuffix = null;
+
+        for (String line : lines) {
+            if (header.periodFrom == null) {
+                Matcher period = PERIOD_PATTERN.matcher(line);
+                if (period.find()) {
+                    long from = MonthKeyCodec.parseDateTime(period.group(1));
+                    long to = MonthKeyCodec.parseDateTime(period.group(2));
+                    if (from != Long.MIN_VALUE && to != Long.MIN_VALUE) {
+                        header.periodFrom = new Date(from);
+                        header.periodTo = new Date(to);
+                    }
+                }
+            }
+
+            if (header.account == null) {
+                Matcher account = ACCOUNT_PATTERN.matcher(line);
+                if (account.find()) {
+                    header.account = account.group(1).replaceAll("\\D", "");
+                }
+            }
+
+            if (cardSuffix == null) {
+                Matcher card = CARD_PATTERN.matcher(line);
+                if (card.find()) {
+                    cardSuffix = CARD_KEY_PREFIX + card.group(1);
+                }
+            }
+        }
+
+        // Номер счета надежнее: перевыпуск карты не меняет счет
+        if (header.account == null) {
+            header.account = cardSuffix;
+        }
+        return header;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.getDefault(), "StatementHeader{account=%s, period=%s - %s}",
+                maskedAccount(),
+                periodFrom != null ? MonthKeyCodec.formatDay(MonthKeyCodec.epochDay(periodFrom.getTime())) : null,
+                periodTo != null ? MonthKeyCodec.formatDay(MonthKeyCodec.epochDay(periodTo.getTime())) : null);
+    }
+
+    // В лог номер счета попадает только последними цифрами
+    private String maskedAccount() {
+        if (account == null || account.startsWith(CARD_KEY_PREFIX)) {
+            return account;
+        }
+        return "*" + account.substring(account.length() - 4);
+    }
+}
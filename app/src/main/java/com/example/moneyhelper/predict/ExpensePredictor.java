@@ -7,11 +7,8 @@ import android.database.sqlite.SQLiteDatabase;
 import android.util.Log;
 import com.example.moneyhelper.predict.ExpenseData;
 import com.example.moneyhelper.predict.PredictionResult;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import com.example.moneyhelper.service.DataVersions;
 import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -21,8 +18,6 @@ public class ExpensePredictor {
     private static final String TAG = "ExpensePredictor";
 
     private final SQLiteDatabase database;
-    private final SimpleDateFormat dateFormat = new SimpleDateFormat("dd.MM.yyyy", Locale.getDefault());
-    private final SimpleDateFormat monthFormat = new SimpleDateFormat("MM.yyyy", Locale.getDefault());
 
     public ExpensePredictor(SQLiteDatabase database) {
         this.database = database;
@@ -66,6 +61,8 @@ public class ExpensePredictor {
             Log.e(TAG, "Критическая ошибка при выполнении предсказаний", e);
         }
 
+        // Старые прогнозы очищены в любом случае
+        DataVersions.getInstance().bump(DataVersions.Table.PREDICTIONS);
         return results;
     }
 
@@ -144,32 +141,23 @@ public class ExpensePredictor {
      */
     private List<ExpenseData> getMonthlyExpensesForCategory(int userCatId) {
         List<ExpenseData> result = new ArrayList<>();
-        Map<String, Double> monthlyTotals = new HashMap<>();
 
-        // 1. Собираем все расходы по месяцам
-        String query = "SELECT me.expenses, d.date " +
-                "FROM monthly_expenses me " +
-                "JOIN dates d ON me.date_id = d.id " +
-                "WHERE me.user_cat_id = ?";
+        // 1. Итоги по месяцам из category_month_totals (ключ yyyyMM), по возрастанию
+        String query = "SELECT month_key, expense_sum + income_sum AS total " +
+                "FROM category_month_totals " +
+                "WHERE user_cat_id = ? " +
+                "ORDER BY month_key";
 
+        List<int[]> months = new ArrayList<>();
+        List<Double> totals = new ArrayList<>();
         Cursor cursor = null;
         try {
             cursor = database.rawQuery(query, new String[]{String.valueOf(userCatId)});
 
             while (cursor.moveToNext()) {
-                double expenses = cursor.getDouble(cursor.getColumnIndexOrThrow("expenses"));
-                String dateStr = cursor.getString(cursor.getColumnIndexOrThrow("date"));
-
-                try {
-                    Date date = dateFormat.parse(dateStr);
-                    String monthKey = monthFormat.format(date);
-
-                    double currentTotal = monthlyTotals.getOrDefault(monthKey, 0.0);
-                    monthlyTotals.put(monthKey, currentTotal + expenses);
-
-                } catch (ParseException e) {
-                    Log.w(TAG, "Ошибка парсинга даты: " + dateStr, e);
-                }
+                int monthKey = cursor.getInt(0);
+                months.add(new int[]{monthKey / 100, monthKey % 100});
+                totals.add(cursor.getDouble(1));
             }
         } catch (Exception e) {
             Log.e(TAG, "Ошибка при получении расходов для категории " + userCatId, e);
@@ -179,47 +167,29 @@ public class ExpensePredictor {
             }
         }
 
-        if (monthlyTotals.isEmpty()) {
+        if (months.isEmpty()) {
             return result; // нет данных
         }
 
-        // 2. Сортируем месяцы по дате
-        List<String> sortedMonths = new ArrayList<>(monthlyTotals.keySet());
-        sortedMonths.sort((m1, m2) -> {
-            try {
-                return monthFormat.parse(m1).compareTo(monthFormat.parse(m2));
-            } catch (ParseException e) {
-                return 0;
+        // 2. Заполняем пропущенные месяцы нулями
+        // X = уникальный номер месяца для регрессии
+        int year = months.get(0)[0];
+        int month = months.get(0)[1];
+        int index = 0;
+        int monthNumber = 1;
+        while (index < months.size()) {
+            double total = 0.0;
+            if (months.get(index)[0] == year && months.get(index)[1] == month) {
+                total = totals.get(index);
+                index++;
             }
-        });
+            String monthKey = String.format(Locale.ROOT, "%02d.%04d", month, year);
+            result.add(new ExpenseData(monthKey, total, monthNumber++));
 
-        // 3. Заполняем пропущенные месяцы нулями
-        List<String> allMonths = new ArrayList<>();
-        Calendar start = Calendar.getInstance();
-        Calendar end = Calendar.getInstance();
-        try {
-            start.setTime(monthFormat.parse(sortedMonths.get(0)));
-            end.setTime(monthFormat.parse(sortedMonths.get(sortedMonths.size() - 1)));
-
-            while (!start.after(end)) {
-                String key = monthFormat.format(start.getTime());
-                allMonths.add(key);
-                if (!monthlyTotals.containsKey(key)) {
-                    monthlyTotals.put(key, 0.0); // вставляем нули для пропусков
-                }
-                start.add(Calendar.MONTH, 1);
+            if (++month > 12) {
+                month = 1;
+                year++;
             }
-        } catch (ParseException e) {
-            Log.e(TAG, "Ошибка при обработке месяцев", e);
-            allMonths = sortedMonths; // fallback
-        }
-
-        // 4. Создаем список ExpenseData с правильным порядком X
-        for (int i = 0; i < allMonths.size(); i++) {
-            String monthKey = allMonths.get(i);
-            double total = monthlyTotals.get(monthKey);
-            // X = уникальный номер месяца для регрессии
-            result.add(new ExpenseData(monthKey, total, i + 1));
         }
 
         Log.d(TAG, "Найдено " + result.size() + " месяцев данных для категории " + userCatId);
@@ -0,0 +1,234 @@
+package com.example.moneyhelper.predict;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Поиск регулярных платежей (подписки, абонплата, аренда) в истории операций
+ * Операции раскладываются по продавцам за один проход по хэш-таблице,
+ * у каждого продавца суммы собираются в кластеры по близости к медиане кластера,
+ * затем в каждом кластере даты сортируются и проверяется, что интервалы
+ * между списаниями укладываются в неделю или месяц.
+ * Итого O(n log n) по всей истории
+ */
+public class RecurringPaymentDetector {
+
+    public static final int PERIOD_WEEKLY = 7;
+    public static final int PERIOD_MONTHLY = 30;
+
+    // Списания одного платежа могут отличаться от медианы кластера на ~15%
+    private static final double AMOUNT_TOLERANCE = 0.15;
+
+    private static final Comparator<Charge> BY_AMOUNT =
+            (a, b) -> Long.compare(a.amountKopecks, b.amountKopecks);
+
+    // Минимум списаний, чтобы считать платеж регулярным
+    private static final int MIN_OCCURRENCES = 3;
+    // Доля интервалов, которые должны попасть в допуск периода
+    private static final double MIN_REGULAR_SHARE = 0.75;
+
+    private final int minOccurrences;
+
+    public RecurringPaymentDetector() {
+        this(MIN_OCCURRENCES);
+    }
+
+    public RecurringPaymentDetector(int minOccurrences) {
+        this.minOccurrences = Math.max(2, minOccurrences);
+    }
+
+    /**
+     * Находит регулярные платежи и предсказывает следующее списание
+     * @param charges расходы с известным продавцом и днем
+     * @param today текущий день (номер дня с 01.01.1970); платежи, пропустившие
+     *              больше одного периода, считаются прекращенными
+     */
+    public List<RecurringPayment> detect(Collection<Charge> charges, int today) {
+        // 1. Группировка по продавцу
+        Map<Long, List<Charge>> merchants = new HashMap<>();
+        for (Charge charge : charges) {
+            if (charge.amountKopecks <= 0) continue;
+            List<Charge> merchantCharges = merchants.get(charge.merchantId);
+            if (merchantCharges == null) {
+                merchantCharges = new ArrayList<>(4);
+                merchants.put(charge.merchantId, merchantCharges);
+            }
+            merchantCharges.add(charge);
+        }
+
+        // 2. Кластеры по сумме и проверка регулярности в каждом
+        List<RecurringPayment> result = new ArrayList<>();
+        for (List<Charge> merchantCharges : merchants.values()) {
+            if (merchantCharges.size() < minOccurrences) continue;
+            for (List<Charge> group : clusterByAmount(merchantCharges)) {
+                if (group.size() < minOccurrences) continue;
+                RecurringPayment payment = analyze(group, today);
+                if (payment != null) {
+                    result.add(payment);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Разбивает списания продавца на кластеры близких сумм
+     * Суммы идут по возрастанию; списание попадает в текущий кластер, если отличается
+     * от его медианы не больше чем на AMOUNT_TOLERANCE. В отличие от фиксированных
+     * диапазонов, суммы по разные стороны любой границы не разъезжаются по группам
+     */
+    static List<List<Charge>> clusterByAmount(List<Charge> merchantCharges) {
+        List<Charge> sorted = new ArrayList<>(merchantCharges);
+        sorted.sort(BY_AMOUNT);
+
+        List<List<Charge>> clusters = new ArrayList<>();
+        List<Charge> cluster = null;
+        for (Charge charge : sorted) {
+            if (cluster != null) {
+                long median = cluster.get((cluster.size() - 1) / 2).amountKopecks;
+                if (charge.amountKopecks - median > median * AMOUNT_TOLERANCE) {
+                    cluster = null;
+                }
+            }
+            if (cluster == null) {
+                cluster = new ArrayList<>(4);
+                clusters.add(cluster);
+            }
+            cluster.add(charge);
+        }
+        return clusters;
+    }
+
+    private RecurringPayment analyze(List<Charge> group, int today) {
+        int size = group.size();
+        int[] days = new int[size];
+        long[] amounts = new long[size];
+        for (int i = 0; i < size; i++) {
+            days[i] = group.get(i).day;
+            amounts[i] = group.get(i).amountKopecks;
+        }
+        Arrays.sort(days);
+
+        // Несколько списаний в один день считаем одним
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct == 0 || days[i] != days[distinct - 1]) {
+                days[distinct++] = days[i];
+            }
+        }
+        if (distinct < minOccurrences) {
+            return null;
+        }
+
+        int[] intervals = new int[distinct - 1];
+        for (int i = 1; i < distinct; i++) {
+            intervals[i - 1] = days[i] - days[i - 1];
+        }
+        int[] sortedIntervals = intervals.clone();
+        Arrays.sort(sortedIntervals);
+        int median = sortedIntervals[sortedIntervals.length / 2];
+
+        int period;
+        int tolerance;
+        if (median >= 6 && median <= 8) {
+            period = PERIOD_WEEKLY;
+            tolerance = 2;
+        } else if (median >= 27 && median <= 33) {
+            period = PERIOD_MONTHLY;
+            tolerance = 4;
+        } else {
+            return null;
+        }
+
+        int regular = 0;
+        for (int interval : intervals) {
+            if (Math.abs(interval - period) <= tolerance) {
+                regular++;
+            }
+        }
+        if (regular < intervals.length * MIN_REGULAR_SHARE) {
+            return null;
+        }
+
+        int lastDay = days[distinct - 1];
+        if (today - lastDay > period * 2) {
+            // Давно не списывалось - подписка, скорее всего, отменена
+            return null;
+        }
+
+        int nextDay = nextOccurrence(lastDay, period);
+        while (nextDay < today - tolerance) {
+            nextDay = nextOccurrence(nextDay, period);
+        }
+
+        Arrays.sort(amounts);
+        Charge last = group.get(0);
+        for (Charge charge : group) {
+            if (charge.day >= last.day) last = charge;
+        }
+
+        return new RecurringPayment(last.merchantId, last.userCategoryId,
+                amounts[amounts.length / 2], period, distinct, lastDay, nextDay);
+    }
+
+    /**
+     * Следующее списание: для месячных - то же число следующего месяца
+     */
+    static int nextOccurrence(int day, int period) {
+        if (period != PERIOD_MONTHLY) {
+            return day + period;
+        }
+        Calendar cal = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        cal.setTimeInMillis(day * 86_400_000L);
+        cal.add(Calendar.MONTH, 1);
+        return (int) (cal.getTimeInMillis() / 86_400_000L);
+    }
+
+    /**
+     * Списание из истории
+     */
+    public static class Charge {
+        public final long merchantId;
+        public final long userCategoryId;
+        public final int day;
+        public final long amountKopecks;
+
+        public Charge(long merchantId, long userCategoryId, int day, long amountKopecks) {
+            this.merchantId = merchantId;
+            this.userCategoryId = userCategoryId;
+            this.day = day;
+            this.amountKopecks = amountKopecks;
+        }
+    }
+
+    /**
+     * Найденный регулярный платеж
+     */
+    public static class RecurringPayment {
+        public final long merchantId;
+        public final long userCategoryId;
+        public final long amountKopecks;
+        public final int periodDays;
+        public final int occurrences;
+        public final int lastDay;
+        public final int nextDay;
+
+        public RecurringPayment(long merchantId, long userCategoryId, long amountKopecks,
+                                int periodDays, int occurrences, int lastDay, int nextDay) {
+            this.merchantId = merchantId;
+            this.userCategoryId = userCategoryId;
+            this.amountKopecks = amountKopecks;
+            this.periodDays = periodDays;
+            this.occurrences = occurrences;
+            this.lastDay = lastDay;
+            this.nextDay = nextDay;
+        }
+    }
+}
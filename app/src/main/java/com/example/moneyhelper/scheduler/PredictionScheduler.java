@@ -9,6 +9,7 @@ import android.content.Intent;
 import android.content.SharedPreferences;
 import android.util.Log;
 
+import com.example.moneyhelper.concurrent.AppExecutors;
 import com.example.moneyhelper.service.PredictionService;
 
 import java.util.Calendar;
@@ -26,18 +27,21 @@ public class PredictionScheduler extends BroadcastReceiver {
     public void onReceive(Context context, Intent intent) {
         Log.d(TAG, "Получен сигнал для создания прогнозов");
 
-        // Проверяем, не создавали ли уже прогноз в этом месяце
-        if (shouldCreatePrediction(context)) {
-            createPredictions(context);
-        }
+        // Процесс не будет остановлен, пока прогнозы не записаны
+        createPredictions(context.getApplicationContext(), goAsync());
     }
 
     /**
      * Создает прогнозы
      */
-    private void createPredictions(Context context) {
-        new Thread(() -> {
+    private void createPredictions(Context context, PendingResult pendingResult) {
+        AppExecutors.io().execute(AppExecutors.named("monthly_predictions", () -> {
             try {
+                // Проверяем, не создавали ли уже прогноз в этом месяце;
+                // SharedPreferences читаются с диска, поэтому тоже в фоне
+                if (!shouldCreatePrediction(context)) {
+                    return;
+                }
                 PredictionService predictionService = new PredictionService(context);
                 int predictionsCreated = predictionService.createMonthlyPredictions();
 
@@ -48,8 +52,10 @@ public class PredictionScheduler extends BroadcastReceiver {
 
             } catch (Exception e) {
                 Log.e(TAG, "Ошибка создания прогнозов", e);
+            } finally {
+                pendingResult.finish();
             }
-        }).start();
+        }));
     }
 
     /**
@@ -0,0 +1,223 @@
+package com.example.moneyhelper.service;
+
+import com.example.moneyhelper.concurrent.AppExecutors;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Предзагрузка соседних месяцев для листания по месяцам
+ * После показа месяца M в фоне готовятся M-1 и M+1, поэтому переход
+ * на соседний месяц рисуется из памяти. Данные хранятся вместе со штампом
+ * DataVersions, взятым до загрузки: после записи в месяц запись не выдается.
+ * Кэш маленький и вытесняет давно не использованные месяцы
+ */
+public final class AdjacentMonthPrefetcher<T> {
+
+    public static final int DEFAULT_CAPACITY = 5;
+
+    /**
+     * Загрузка данных месяца; вызывается в фоновом потоке
+     */
+    public interface Loader<T> {
+        T load(int monthKey) throws Exception;
+    }
+
+    /**
+     * Текущий штамп DataVersions для данных месяца
+     */
+    public interface StampSource {
+        long stamp(int monthKey);
+    }
+
+    private final Executor executor;
+    private final Loader<T> loader;
+    private final StampSource stamps;
+    private final int capacity;
+
+    // accessOrder = true: первым идет давно не использованный месяц
+    private final LinkedHashMap<Integer, Entry<T>> entries = new LinkedHashMap<>(8, 0.75f, true);
+    private final Set<Integer> inFlight = new HashSet<>();
+    // Меняется в clear(): загрузки, начатые раньше, в кэш не попадают
+    private int generation;
+
+    private long hits;
+    private long misses;
+    private long prefetched;
+    private long failed;
+    private long unused;
+
+    public AdjacentMonthPrefetcher(Loader<T> loader, StampSource stamps) {
+        this(AppExecutors.prefetch(), loader, stamps, DEFAULT_CAPACITY);
+    }
+
+    AdjacentMonthPrefetcher(Executor executor, Loader<T> loader, StampSource stamps, int capacity) {
+        this.executor = executor;
+        this.loader = loader;
+        this.stamps = stamps;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Данные месяца вместе с их штампом, если они готовы и не устарели, иначе null
+     * Штамп берется из записи: повторное чтение DataVersions после take могло бы
+     * увидеть запись, сделанную уже после проверки, и выдать старые данные за новые.
+     * Каждый вызов учитывается в статистике как попадание или промах
+     */
+    public synchronized Prefetched<T> take(int monthKey) {
+        Entry<T> entry = entries.get(monthKey);
+        if (entry == null || entry.stamp != stamps.stamp(monthKey)) {
+            if (entry != null) {
+                entries.remove(monthKey);
+            }
+            misses++;
+            return null;
+        }
+        entry.used = true;
+        hits++;
+        return new Prefetched<>(entry.data, entry.stamp);
+    }
+
+    /**
+     * Запоминает месяц, загруженный экраном, чтобы возврат к нему тоже был из памяти
+     * @param stamp штамп, взятый до запроса
+     */
+    public synchronized void put(int monthKey, long stamp, T data) {
+        store(monthKey, new Entry<>(data, stamp, true));
+    }
+
+    /**
+     * Ставит в очередь загрузку M-1 и M+1, если их нет в кэше
+     */
+    public void prefetchAround(int monthKey) {
+        prefetch(MonthKeyCodec.plusMonths(monthKey, -1));
+        prefetch(MonthKeyCodec.plusMonths(monthKey, 1));
+    }
+
+    /**
+     * Сбрасывает кэш; загрузки, которые еще идут, будут отброшены
+     */
+    public synchronized void clear() {
+        generation++;
+        entries.clear();
+        inFlight.clear();
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, prefetched, failed, unused, entries.size());
+    }
+
+    private synchronized void prefetch(int monthKey) {
+        // Штамп до запроса: запись во время загрузки сделает результат устаревшим
+        long stamp = stamps.stamp(monthKey);
+        Entry<T> entry = entries.get(monthKey);
+        if ((entry != null && entry.stamp == stamp) || !inFlight.add(monthKey)) {
+            return;
+        }
+        int started = generation;
+        executor.execute(AppExecutors.named("prefetch_month",
+                () -> load(monthKey, stamp, started)));
+    }
+
+    private void load(int monthKey, long stamp, int started) {
+        T data = null;
+        try {
+            data = loader.load(monthKey);
+        } catch (Exception e) {
+            // Экран загрузит месяц сам, если пользователь до него дойдет
+        }
+        synchronized (this) {
+            if (started != generation) {
+                return;
+            }
+            inFlight.remove(monthKey);
+            if (data == null) {
+                failed++;
+                return;
+            }
+            prefetched++;
+            store(monthKey, new Entry<>(data, stamp, false));
+        }
+    }
+
+    private void store(int monthKey, Entry<T> entry) {
+        Entry<T> previous = entries.put(monthKey, entry);
+        if (previous != null && !previous.used) {
+            unused++;
+        }
+        Iterator<Entry<T>> iterator = entries.values().iterator();
+        while (entries.size() > capacity && iterator.hasNext()) {
+            if (!iterator.next().used) {
+                unused++;
+            }
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Счетчики предзагрузки для логов и тестов
+     */
+    public static final class Stats {
+        public final long hits;
+        public final long misses;
+        /** Месяцы, загруженные впрок */
+        public final long prefetched;
+        public final long failed;
+        /** Загруженные месяцы, вытесненные или замененные до того, как их показали */
+        public final long unused;
+        public final int entries;
+
+        Stats(long hits, long misses, long prefetched, long failed, long unused, int entries) {
+            this.hits = hits;
+            this.misses = misses;
+            this.prefetched = prefetched;
+            this.failed = failed;
+            this.unused = unused;
+            this.entries = entries;
+        }
+
+        /**
+         * Доля переходов, показанных из памяти; 0, если переходов не было
+         */
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "hits=%d, misses=%d, hitRate=%.2f, prefetched=%d, failed=%d, unused=%d, entries=%d",
+                    hits, misses, hitRate(), prefetched, failed, unused, entries);
+        }
+    }
+
+    /**
+     * Результат take: данные и штамп DataVersions, при котором они загружены
+     */
+    public static final class Prefetched<T> {
+        public final T data;
+        public final long stamp;
+
+        Prefetched(T data, long stamp) {
+            this.data = data;
+            this.stamp = stamp;
+        }
+    }
+
+    private static final class Entry<T> {
+        final T data;
+        final long stamp;
+        boolean used;
+
+        Entry(T data, long stamp, boolean used) {
+            this.data = data;
+            this.stamp = stamp;
+            this.used = used;
+        }
+    }
+}
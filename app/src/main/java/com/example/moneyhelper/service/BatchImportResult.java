@@ -0,0 +1,127 @@
+package com.example.moneyhelper.service;
+
+import android.net.Uri;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Результат пакетного импорта: итоги по всем файлам и по каждому отдельно
+ */
+public class BatchImportResult {
+    public final int totalFiles;
+    public int rowsParsed;
+    public int rowsImported;
+    public int rowsDuplicate;
+    public long elapsedMs;
+    public boolean cancelled;
+    public String error;
+
+    private final List<FileResult> files = new ArrayList<>();
+
+    public BatchImportResult(int totalFiles) {
+        this.totalFiles = totalFiles;
+    }
+
+    FileResult add(Uri uri, StatementImportService.ImportResult result, int rowsParsed) {
+        FileResult file = new FileResult(uri, result, rowsParsed);
+        files.add(file);
+        this.rowsParsed += rowsParsed;
+        this.rowsImported += result.importedTransactions;
+        this.rowsDuplicate += result.duplicateTransactions;
+        return file;
+    }
+
+    public List<FileResult> getFiles() {
+        return Collections.unmodifiableList(files);
+    }
+
+    public int getCompletedFiles() {
+        return files.size();
+    }
+
+    public int getFailedFiles() {
+        int failed = 0;
+        for (FileResult file : files) {
+            if (!file.result.isSuccess() && !file.result.cancelled) {
+                failed++;
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Доля обработанных файлов, 0..100
+     */
+    public int getProgressPercent() {
+        return totalFiles == 0 ? 100 : files.size() * 100 / totalFiles;
+    }
+
+    /**
+     * Строк выписок в секунду с начала импорта
+     */
+    public double getRowsPerSecond() {
+        return elapsedMs > 0 ? rowsParsed * 1000.0 / elapsedMs : 0;
+    }
+
+    public boolean isSuccess() {
+        return error == null && !cancelled && getFailedFiles() == 0;
+    }
+
+    public String getMessage() {
+        StringBuilder sb = new StringBuilder();
+        if (error != null) {
+            sb.append("Ошибка: ").append(error).append("\n");
+        } else if (cancelled) {
+            sb.append("Импорт отменен. Незавершенный файл не сохранен\n");
+        } else {
+            sb.append("Импорт завершен!\n");
+        }
+        sb.append("Файлов: ").append(files.size()).append(" из ").append(totalFiles);
+        int failed = getFailedFiles();
+        if (failed > 0) {
+            sb.append(", с ошибками: ").append(failed);
+        }
+        sb.append("\n");
+        sb.append("Импортировано: ").append(rowsImported).append("\n");
+
+        if (rowsDuplicate > 0) {
+            sb.append("Пропущено дубликатов: ").append(rowsDuplicate).append("\n");
+        }
+
+        sb.append(String.format(Locale.getDefault(), "Скорость: %.0f строк/с за %.1f с",
+                getRowsPerSecond(), elapsedMs / 1000.0));
+
+        // Для одного файла подробности уже в итогах выше
+        if (totalFiles > 1) {
+            for (FileResult file : files) {
+                sb.append("\n\n").append(file.getName()).append(":\n");
+                sb.append(file.result.getMessage().trim());
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Итог одного файла пакета
+     */
+    public static class FileResult {
+        public final Uri uri;
+        public final StatementImportService.ImportResult result;
+        public final int rowsParsed;
+
+        FileResult(Uri uri, StatementImportService.ImportResult result, int rowsParsed) {
+            this.uri = uri;
+            this.result = result;
+            this.rowsParsed = rowsParsed;
+        }
+
+        public String getName() {
+            String path = uri.getLastPathSegment();
+            return path != null ? path : uri.toString();
+        }
+    }
+}
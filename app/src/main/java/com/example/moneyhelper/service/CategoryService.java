@@ -4,18 +4,22 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 
 import com.example.moneyhelper.DatabaseHelper;
 import com.example.moneyhelper.DataTypes.Category;
 import com.example.moneyhelper.DataTypes.Expense;
+import com.example.moneyhelper.DataTypes.NewExpense;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -25,12 +29,31 @@ public class CategoryService {
 
     private static final String TAG = "CategoryService";
 
+    // Срезы DataVersions, от которых зависят кэшируемые чтения
+    private static final DataVersions.Slice MONTH_CATEGORIES_SLICE = DataVersions.slice(
+            DataVersions.Table.CATEGORIES, DataVersions.Table.PREDICTIONS);
+    private static final DataVersions.Slice DASHBOARD_SLICE = DataVersions.slice(
+            DataVersions.Table.USERS, DataVersions.Table.CATEGORIES,
+            DataVersions.Table.PREDICTIONS);
+    private static final DataVersions.Slice INCOME_SLICE =
+            DataVersions.slice(DataVersions.Table.USERS);
+
+    // Оценка памяти результатов для QueryCache
+    private static final long CACHE_ENTRY_BYTES = 128;
+    private static final long CACHE_CATEGORY_BYTES = 256;
+
     private final DatabaseHelper dbHelper;
-    private final SimpleDateFormat dateFormat;
+    private final UserSession session;
+    private final DataVersions versions;
+    private final QueryCache cache;
+    private final RequestCoalescer coalescer;
 
     public CategoryService(Context context) {
         this.dbHelper = DatabaseHelper.getInstance(context);
-        this.dateFormat = new SimpleDateFormat("dd.MM.yyyy", Locale.getDefault());
+        this.session = UserSession.getInstance(context);
+        this.versions = DataVersions.getInstance();
+        this.cache = QueryCache.getInstance();
+        this.coalescer = RequestCoalescer.getInstance();
     }
 
     /**
@@ -43,44 +66,18 @@ public class CategoryService {
     /**
      * Получить все категории пользователя (без фильтрации по месяцу)
      * Используется для выбора категории при добавлении расхода
+     * Берется из справочника UserSession без запроса к БД
      */
     public List<Category> getAllUserCategories() {
         List<Category> categories = new ArrayList<>();
-        SQLiteDatabase db = dbHelper.getReadableDatabase();
-
-        String query =
-                "SELECT " +
-                        "    uc.id as user_cat_id, " +
-                        "    uc.cat_id, " +
-                        "    uc.name, " +
-                        "    c.icon, " +
-                        "    uc.fixed " +
-                        "FROM user_categories uc " +
-                        "JOIN categories c ON uc.cat_id = c.id " +
-                        "WHERE uc.user_id = ? " +
-                        "ORDER BY uc.name";
-
-        try (Cursor cursor = db.rawQuery(query,
-                new String[]{String.valueOf(getCurrentUserId())})) {
-
-            while (cursor.moveToNext()) {
-                long userCatId = cursor.getLong(0);
-                long catId = cursor.getLong(1);
-                String name = cursor.getString(2);
-                String icon = cursor.getString(3);
-                boolean isFixed = cursor.getInt(4) == 1;
-
-                Category category = new Category(userCatId, catId, name, icon,
-                        isFixed, 0, 0);
-                categories.add(category);
+        try {
+            for (UserSession.CategoryInfo info : session.getCategories()) {
+                categories.add(info.toCategory());
             }
-
             Log.d(TAG, String.format("Загружено %d категорий пользователя", categories.size()));
-
         } catch (Exception e) {
             Log.e(TAG, "Ошибка при загрузке категорий пользователя", e);
         }
-
         return categories;
     }
 
@@ -90,11 +87,10 @@ public class CategoryService {
         Calendar cal = Calendar.getInstance();
         cal.setTime(month);
         cal.set(Calendar.DAY_OF_MONTH, 1);
-        String monthStr = dateFormat.format(cal.getTime());
 
         SQLiteDatabase db = dbHelper.getReadableDatabase();
 
-        // Исправленный SQL запрос
+        // Суммы берутся из итогов category_month_totals, а не из всех операций месяца
         String query =
                 "SELECT " +
                         "    uc.id as user_cat_id, " +
@@ -102,22 +98,18 @@ public class CategoryService {
                         "    uc.name, " +
                         "    c.icon, " +
                         "    uc.fixed, " +
-                        "    COALESCE(ex.sum_expenses, 0) as current_expense, " +
+                        "    COALESCE(ex.expense_sum, 0) as current_expense, " +
                         "    COALESCE(p.predict, 0) as budget " +
                         "FROM user_categories uc " +
                         "JOIN categories c ON uc.cat_id = c.id " +
                         "LEFT JOIN predict p ON p.user_cat_id = uc.id " +
-                        "LEFT JOIN (" +
-                        "    SELECT me.user_cat_id, SUM(me.expenses) as sum_expenses " +
-                        "    FROM monthly_expenses me " +
-                        "    JOIN dates d ON me.date_id = d.id " +
-                        "    WHERE d.date = ? AND (me.is_income = 0 OR me.is_income IS NULL) " +
-                        "    GROUP BY me.user_cat_id " +
-                        ") ex ON uc.id = ex.user_cat_id " +
+                        "LEFT JOIN category_month_totals ex " +
+                        "    ON ex.user_cat_id = uc.id AND ex.month_key = ? " +
                         "WHERE uc.user_id = ? " +
                         "ORDER BY current_expense DESC";
 
-        try (Cursor cursor = db.rawQuery(query, new String[]{monthStr, String.valueOf(getCurrentUserId())})) {
+        try (Cursor cursor = db.rawQuery(query, new String[]{
+                String.valueOf(monthKey(cal)), String.valueOf(session.getUserId())})) {
             double totalExpense = 0;
             List<Category> tempList = new ArrayList<>();
 
@@ -154,8 +146,36 @@ public class CategoryService {
 
     /**
      * Получить категории за определенный месяц
+     * Результат берется из QueryCache, пока не изменились категории,
+     * прогнозы или расходы этого месяца; одновременные промахи читают БД один раз
      */
     public List<Category> getCategoriesForMonth(Date month) {
+        int monthKey = MonthKeyCodec.fromDate(month);
+        QueryCache.Key key = new QueryCache.Key("categories_for_month",
+                session.getUserId(), monthKey);
+        // Штамп до запроса: запись во время чтения сделает результат устаревшим
+        long stamp = versions.stamp(MONTH_CATEGORIES_SLICE.withMonth(monthKey));
+
+        List<Category> cached = cache.get(key, stamp);
+        if (cached != null) {
+            return new ArrayList<>(cached);
+        }
+
+        try {
+            List<Category> categories = coalescer.load(requestKey(key, stamp), () -> {
+                List<Category> loaded = Collections.unmodifiableList(queryCategoriesForMonth(month));
+                cache.put(key, loaded, stamp,
+                        CACHE_ENTRY_BYTES + loaded.size() * CACHE_CATEGORY_BYTES);
+                return loaded;
+            });
+            return new ArrayList<>(categories);
+        } catch (Exception e) {
+            Log.e(TAG, "Ошибка при загрузке категорий", e);
+            return new ArrayList<>();
+        }
+    }
+
+    private List<Category> queryCategoriesForMonth(Date month) {
         List<Category> categories = new ArrayList<>();
 
         // Получаем первое число месяца
@@ -163,12 +183,13 @@ public class CategoryService {
         cal.setTime(month);
         cal.set(Calendar.DAY_OF_MONTH, 1);
 
-        String monthStr = dateFormat.format(cal.getTime());
+        String monthStr = MonthKeyCodec.toLegacyString(monthKey(cal));
 
         SQLiteDatabase db = dbHelper.getReadableDatabase();
 
         // SQL запрос для получения категорий с расходами и прогнозами
-        // Учитываем только расходы (is_income = 0 или NULL для обратной совместимости)
+        // Суммы расходов (без доходов) берутся из итогов category_month_totals,
+        // поэтому запрос не зависит от числа операций за месяц
         String query =
                 "SELECT " +
                         "    uc.id as user_cat_id, " +
@@ -176,20 +197,19 @@ public class CategoryService {
                         "    uc.name, " +
                         "    c.icon, " +
                         "    uc.fixed, " +
-                        "    COALESCE(SUM(me.expenses), 0) as current_expense, " +
+                        "    t.expense_sum as current_expense, " +
                         "    COALESCE(p.predict, 0) as budget " +
                         "FROM user_categories uc " +
                         "JOIN categories c ON uc.cat_id = c.id " +
-                        "LEFT JOIN monthly_expenses me ON me.user_cat_id = uc.id " +
-                        "    AND (me.is_income = 0 OR me.is_income IS NULL) " +
-                        "LEFT JOIN dates d ON me.date_id = d.id " +
+                        "JOIN category_month_totals t ON t.user_cat_id = uc.id " +
+                        "    AND t.month_key = ? AND t.expense_sum > 0 " +
                         "LEFT JOIN predict p ON p.user_cat_id = uc.id " +
-                        "WHERE uc.user_id = ? AND d.date = ?" +
+                        "WHERE uc.user_id = ? " +
                         "GROUP BY uc.id " +
                         "ORDER BY current_expense DESC";
 
         try (Cursor cursor = db.rawQuery(query,
-                new String[]{ String.valueOf(getCurrentUserId()), monthStr})) {
+                new String[]{ String.valueOf(monthKey(cal)), String.valueOf(session.getUserId())})) {
 
 //            Log.d(TAG, "SQL: " + cursor.);
 
@@ -225,9 +245,6 @@ public class CategoryService {
 
             Log.d(TAG, String.format("Загружено %d категорий за %s, общая сумма: %.2f",
                     categories.size(), monthStr, totalExpense));
-
-        } catch (Exception e) {
-            Log.e(TAG, "Ошибка при загрузке категорий", e);
         }
 
         return categories;
@@ -237,26 +254,10 @@ public class CategoryService {
      * Получить категорию по ID
      */
     public Category getCategoryById(long userCategoryId) {
-        SQLiteDatabase db = dbHelper.getReadableDatabase();
-
-        String query =
-                "SELECT " +
-                        "    uc.id, uc.cat_id, uc.name, c.icon, uc.fixed " +
-                        "FROM user_categories uc " +
-                        "JOIN categories c ON uc.cat_id = c.id " +
-                        "WHERE uc.id = ?";
-
-        try (Cursor cursor = db.rawQuery(query, new String[]{String.valueOf(userCategoryId)})) {
-            if (cursor.moveToFirst()) {
-                return new Category(
-                        cursor.getLong(0),
-                        cursor.getLong(1),
-                        cursor.getString(2),
-                        cursor.getString(3),
-                        cursor.getInt(4) == 1,
-                        0,
-                        0
-                );
+        try {
+            UserSession.CategoryInfo info = session.getCategory(userCategoryId);
+            if (info != null) {
+                return info.toCategory();
             }
         } catch (Exception e) {
             Log.e(TAG, "Ошибка при получении категории", e);
@@ -278,7 +279,7 @@ public class CategoryService {
 
             // 2. Создаем запись в user_categories
             ContentValues values = new ContentValues();
-            values.put("user_id", getCurrentUserId());
+            values.put("user_id", session.getUserId());
             values.put("cat_id", categoryId);
             values.put("name", name);
             values.put("fixed", isFixed ? 1 : 0);
@@ -296,6 +297,7 @@ public class CategoryService {
             return -1;
         } finally {
             db.endTransaction();
+            versions.bump(DataVersions.Table.CATEGORIES);
         }
     }
 
@@ -337,6 +339,7 @@ public class CategoryService {
             return false;
         } finally {
             db.endTransaction();
+            versions.bump(DataVersions.Table.CATEGORIES);
         }
     }
 
@@ -361,6 +364,87 @@ public class CategoryService {
         } catch (Exception e) {
             Log.e(TAG, "Ошибка при удалении категории", e);
             return false;
+        } finally {
+            // Каскадом удаляются расходы и прогнозы категории
+            versions.bump(DataVersions.Table.CATEGORIES, DataVersions.Table.PREDICTIONS);
+            versions.bumpAllMonths();
+        }
+    }
+
+    /**
+     * Общий справочник categories для выбора при создании категории пользователя
+     */
+    public List<Category> getGlobalCategories() {
+        List<Category> categories = new ArrayList<>();
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        try (Cursor cursor = db.rawQuery("SELECT id, name FROM categories", null)) {
+            while (cursor.moveToNext()) {
+                categories.add(new Category(0, cursor.getLong(0), cursor.getString(1),
+                        "", false, 0, 0));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Ошибка при загрузке справочника категорий", e);
+        }
+        return categories;
+    }
+
+    /**
+     * Добавить категорию пользователя, привязанную к существующей записи categories
+     * @return id новой записи user_categories или -1
+     */
+    public long addUserCategory(long categoryId, String name, boolean isFixed) {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        try {
+            ContentValues values = new ContentValues();
+            values.put("user_id", session.getUserId());
+            values.put("cat_id", categoryId);
+            values.put("name", name);
+            values.put("fixed", isFixed ? 1 : 0);
+            return db.insert("user_categories", null, values);
+        } catch (Exception e) {
+            Log.e(TAG, "Ошибка при добавлении категории пользователя", e);
+            return -1;
+        } finally {
+            versions.bump(DataVersions.Table.CATEGORIES);
+        }
+    }
+
+    /**
+     * Изменить название, признак фиксированной и запись categories категории пользователя
+     */
+    public boolean updateUserCategory(long userCategoryId, long categoryId, String name,
+                                      boolean isFixed) {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        try {
+            ContentValues values = new ContentValues();
+            values.put("name", name);
+            values.put("fixed", isFixed ? 1 : 0);
+            values.put("cat_id", categoryId);
+            return db.update("user_categories", values, "id = ?",
+                    new String[]{String.valueOf(userCategoryId)}) > 0;
+        } catch (Exception e) {
+            Log.e(TAG, "Ошибка при обновлении категории пользователя", e);
+            return false;
+        } finally {
+            versions.bump(DataVersions.Table.CATEGORIES);
+        }
+    }
+
+    /**
+     * Установить доход пользователя (поле users.money)
+     */
+    public boolean setIncome(int money) {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        try {
+            ContentValues values = new ContentValues();
+            values.put("money", money);
+            return db.update("users", values, "id = ?",
+                    new String[]{String.valueOf(session.getUserId())}) > 0;
+        } catch (Exception e) {
+            Log.e(TAG, "Ошибка при сохранении дохода", e);
+            return false;
+        } finally {
+            versions.bump(DataVersions.Table.USERS);
         }
     }
 
@@ -372,77 +456,99 @@ public class CategoryService {
      * @return true если успешно добавлено
      */
     public boolean addExpense(long userCategoryId, double amount, Date month) {
-        if (amount <= 0) {
-            Log.e(TAG, "Сумма расхода должна быть больше 0");
-            return false;
+        long[] ids = addExpenses(Collections.singletonList(
+                new NewExpense(userCategoryId, amount, month)));
+        if (ids.length == 1 && ids[0] > 0) {
+            Log.d(TAG, String.format("Добавлен расход %.2f для категории %d", amount, userCategoryId));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Добавить несколько расходов одной транзакцией
+     * Месяцы в dates ищутся один раз на пакет, строки вставляются
+     * через один скомпилированный запрос
+     * @return id добавленных строк в том же порядке; -1 для строк с суммой <= 0.
+     * Если транзакция не удалась, все id равны -1
+     */
+    public long[] addExpenses(List<NewExpense> newExpenses) {
+        long[] ids = new long[newExpenses.size()];
+        Arrays.fill(ids, -1);
+        if (newExpenses.isEmpty()) {
+            return ids;
         }
 
         SQLiteDatabase db = dbHelper.getWritableDatabase();
-        
-        try {
-            db.beginTransaction();
-            
-            // Получаем или создаем date_id для указанного месяца
-            Calendar cal = Calendar.getInstance();
-            if (month != null) {
-                cal.setTime(month);
-            }
-            cal.set(Calendar.DAY_OF_MONTH, 1);
-            cal.set(Calendar.HOUR_OF_DAY, 0);
-            cal.set(Calendar.MINUTE, 0);
-            cal.set(Calendar.SECOND, 0);
-            cal.set(Calendar.MILLISECOND, 0);
-            
-            String monthStr = dateFormat.format(cal.getTime());
-            
-            // Ищем существующую запись в dates
-            long dateId;
-            try (Cursor cursor = db.query(
-                    "dates",
-                    new String[]{"id"},
-                    "date = ?",
-                    new String[]{monthStr},
-                    null, null, null)) {
-                
-                if (cursor.moveToFirst()) {
-                    dateId = cursor.getLong(0);
-                } else {
-                    // Создаем новую запись
-                    ContentValues dateValues = new ContentValues();
-                    dateValues.put("date", monthStr);
-                    dateId = db.insert("dates", null, dateValues);
+        Map<Integer, Long> dateIds = new HashMap<>();
+        boolean committed = false;
+
+        db.beginTransaction();
+        try (SQLiteStatement insert = db.compileStatement(
+                "INSERT INTO monthly_expenses " +
+                        "(user_cat_id, expenses, date_id, is_income, transaction_id, month_key) " +
+                        "VALUES (?, ?, ?, ?, ?, ?)")) {
+
+            for (int i = 0; i < ids.length; i++) {
+                NewExpense expense = newExpenses.get(i);
+                if (expense.getAmount() <= 0) {
+                    Log.e(TAG, "Сумма расхода должна быть больше 0");
+                    continue;
                 }
+
+                int monthKey = MonthKeyCodec.fromMillis(expense.getMonth() != null
+                        ? expense.getMonth().getTime() : System.currentTimeMillis());
+                Long dateId = dateIds.get(monthKey);
+                if (dateId == null) {
+                    dateId = getOrCreateDateId(db, monthKey);
+                    dateIds.put(monthKey, dateId);
+                }
+
+                insert.clearBindings();
+                insert.bindLong(1, expense.getUserCategoryId());
+                insert.bindDouble(2, expense.getAmount());
+                insert.bindLong(3, dateId);
+                insert.bindLong(4, expense.isIncome() ? 1 : 0);
+                insert.bindString(5, UUID.randomUUID().toString());
+                insert.bindLong(6, monthKey);
+                ids[i] = insert.executeInsert();
             }
-            
-            // Генерируем transaction_id, если его нет
-            String transactionId = UUID.randomUUID().toString();
-            
-            // Добавляем расход
-            ContentValues values = new ContentValues();
-            values.put("user_cat_id", userCategoryId);
-            values.put("expenses", amount);
-            values.put("date_id", dateId);
-            values.put("is_income", 0); // 0 - расход
-            values.put("transaction_id", transactionId);
-            
-            long result = db.insert("monthly_expenses", null, values);
-            
+
             db.setTransactionSuccessful();
-            
-            if (result > 0) {
-                Log.d(TAG, String.format("Добавлен расход %.2f для категории %d", amount, userCategoryId));
-                return true;
-            } else {
-                Log.e(TAG, "Ошибка добавления расхода");
-                return false;
-            }
-            
+            committed = true;
         } catch (Exception e) {
-            Log.e(TAG, "Ошибка при добавлении расхода", e);
-            return false;
+            Log.e(TAG, "Ошибка при добавлении расходов", e);
+            Arrays.fill(ids, -1);
         } finally {
             db.endTransaction();
         }
+
+        if (committed) {
+            versions.bumpMonths(dateIds.keySet());
+        }
+        return ids;
+    }
+
+    /**
+     * id строки dates для месяца, при необходимости создает ее
+     */
+    private long getOrCreateDateId(SQLiteDatabase db, int monthKey) {
+        String monthStr = MonthKeyCodec.toLegacyString(monthKey);
+
+        try (Cursor cursor = db.query(
+                "dates",
+                new String[]{"id"},
+                "date = ?",
+                new String[]{monthStr},
+                null, null, null)) {
+            if (cursor.moveToFirst()) {
+                return cursor.getLong(0);
+            }
+        }
+
+        ContentValues dateValues = new ContentValues();
+        dateValues.put("date", monthStr);
+        return db.insert("dates", null, dateValues);
     }
     
     /**
@@ -474,7 +580,7 @@ public class CategoryService {
         cal.set(Calendar.SECOND, 0);
         cal.set(Calendar.MILLISECOND, 0);
         
-        String monthStr = dateFormat.format(cal.getTime());
+        String monthStr = MonthKeyCodec.toLegacyString(monthKey(cal));
         
         String query =
                 "SELECT " +
@@ -494,7 +600,7 @@ public class CategoryService {
                         "ORDER BY me.id DESC";
         
         try (Cursor cursor = db.rawQuery(query,
-                new String[]{String.valueOf(getCurrentUserId()), monthStr})) {
+                new String[]{String.valueOf(session.getUserId()), monthStr})) {
             
             while (cursor.moveToNext()) {
                 long id = cursor.getLong(0);
@@ -506,12 +612,8 @@ public class CategoryService {
                 boolean isIncome = cursor.getInt(6) == 1;
                 String dateStr = cursor.getString(7);
                 
-                Date expenseDate;
-                try {
-                    expenseDate = dateFormat.parse(dateStr);
-                } catch (Exception e) {
-                    expenseDate = cal.getTime();
-                }
+                int dateKey = MonthKeyCodec.parse(dateStr);
+                Date expenseDate = dateKey > 0 ? MonthKeyCodec.toDate(dateKey) : cal.getTime();
                 
                 Expense expense = new Expense(id, transactionId, userCatId,
                         categoryName, categoryIcon, amount, isIncome, expenseDate);
@@ -552,6 +654,9 @@ public class CategoryService {
                     new String[]{String.valueOf(expenseId)});
             
             Log.d(TAG, String.format("Обновлен расход id=%d, изменено строк: %d", expenseId, rows));
+            if (rows > 0) {
+                versions.bumpAllMonths();
+            }
             
             return rows > 0;
             
@@ -575,6 +680,9 @@ public class CategoryService {
                     new String[]{String.valueOf(expenseId)});
             
             Log.d(TAG, String.format("Удален расход id=%d, удалено строк: %d", expenseId, rows));
+            if (rows > 0) {
+                versions.bumpAllMonths();
+            }
             
             return rows > 0;
             
@@ -584,6 +692,97 @@ public class CategoryService {
         }
     }
     
+    /**
+     * Перенести несколько расходов в категорию одной транзакцией
+     * @param expenseIds ID расходов
+     * @param userCategoryId Новая категория
+     * @return количество измененных строк; 0, если транзакция не удалась
+     */
+    public int moveExpenses(long[] expenseIds, long userCategoryId) {
+        return executeForIds("UPDATE monthly_expenses SET user_cat_id = ? WHERE id = ?",
+                expenseIds, userCategoryId);
+    }
+
+    /**
+     * Обновить несколько расходов одной транзакцией: категория и сумма
+     * берутся из переданных объектов
+     * @return количество измененных строк; 0, если транзакция не удалась
+     */
+    public int updateExpenses(List<Expense> expenses) {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        int rows = 0;
+
+        db.beginTransaction();
+        try (SQLiteStatement update = db.compileStatement(
+                "UPDATE monthly_expenses SET user_cat_id = ?, expenses = ? WHERE id = ?")) {
+            for (Expense expense : expenses) {
+                if (expense.getAmount() <= 0) {
+                    Log.e(TAG, "Сумма расхода должна быть больше 0");
+                    continue;
+                }
+                update.clearBindings();
+                update.bindLong(1, expense.getUserCategoryId());
+                update.bindDouble(2, expense.getAmount());
+                update.bindLong(3, expense.getId());
+                rows += update.executeUpdateDelete();
+            }
+            db.setTransactionSuccessful();
+        } catch (Exception e) {
+            Log.e(TAG, "Ошибка при обновлении расходов", e);
+            rows = 0;
+        } finally {
+            db.endTransaction();
+        }
+
+        Log.d(TAG, String.format("Обновлено расходов: %d из %d", rows, expenses.size()));
+        if (rows > 0) {
+            versions.bumpAllMonths();
+        }
+        return rows;
+    }
+
+    /**
+     * Удалить несколько расходов одной транзакцией
+     * @return количество удаленных строк; 0, если транзакция не удалась
+     */
+    public int deleteExpenses(long[] expenseIds) {
+        return executeForIds("DELETE FROM monthly_expenses WHERE id = ?", expenseIds, null);
+    }
+
+    /**
+     * Выполняет запрос для каждого id через один скомпилированный запрос
+     * @param value значение первого параметра или null, если параметр только id
+     */
+    private int executeForIds(String sql, long[] ids, Long value) {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        int rows = 0;
+
+        db.beginTransaction();
+        try (SQLiteStatement statement = db.compileStatement(sql)) {
+            int idIndex = value != null ? 2 : 1;
+            for (long id : ids) {
+                statement.clearBindings();
+                if (value != null) {
+                    statement.bindLong(1, value);
+                }
+                statement.bindLong(idIndex, id);
+                rows += statement.executeUpdateDelete();
+            }
+            db.setTransactionSuccessful();
+        } catch (Exception e) {
+            Log.e(TAG, "Ошибка пакетного изменения расходов", e);
+            rows = 0;
+        } finally {
+            db.endTransaction();
+        }
+
+        Log.d(TAG, String.format("Пакетно изменено строк: %d из %d", rows, ids.length));
+        if (rows > 0) {
+            versions.bumpAllMonths();
+        }
+        return rows;
+    }
+
     /**
      * Получить все транзакции (расходы) по категории за указанный месяц
      * @param userCategoryId ID категории пользователя
@@ -604,7 +803,7 @@ public class CategoryService {
         cal.set(Calendar.SECOND, 0);
         cal.set(Calendar.MILLISECOND, 0);
         
-        String monthStr = dateFormat.format(cal.getTime());
+        String monthStr = MonthKeyCodec.toLegacyString(monthKey(cal));
         
         String query =
                 "SELECT " +
@@ -636,12 +835,8 @@ public class CategoryService {
                 boolean isIncome = cursor.getInt(6) == 1;
                 String dateStr = cursor.getString(7);
                 
-                Date expenseDate;
-                try {
-                    expenseDate = dateFormat.parse(dateStr);
-                } catch (Exception e) {
-                    expenseDate = cal.getTime();
-                }
+                int dateKey = MonthKeyCodec.parse(dateStr);
+                Date expenseDate = dateKey > 0 ? MonthKeyCodec.toDate(dateKey) : cal.getTime();
                 
                 Expense expense = new Expense(id, transactionId, userCatId,
                         categoryName, categoryIcon, amount, isIncome, expenseDate);
@@ -658,6 +853,263 @@ public class CategoryService {
         return expenses;
     }
     
+    /**
+     * Страница операций по категории
+     * @param userCategoryId ID категории пользователя
+     * @param month Месяц; null - вся история категории
+     * @param after Ключ из предыдущей страницы; null - первая страница
+     * @param limit Размер страницы
+     */
+    public ExpensePage getExpensePageByCategory(long userCategoryId, Date month,
+                                                ExpensePage.Key after, int limit) {
+        List<String> args = new ArrayList<>();
+        StringBuilder where = new StringBuilder("me.user_cat_id = ?");
+        args.add(String.valueOf(userCategoryId));
+        if (month != null) {
+            where.append(" AND me.month_key = ?");
+            args.add(String.valueOf(MonthKeyCodec.fromDate(month)));
+        }
+        return queryExpensePage(where, args, month != null, after, limit);
+    }
+
+    /**
+     * Страница операций текущего пользователя за месяц
+     */
+    public ExpensePage getExpensePageForMonth(Date month, ExpensePage.Key after, int limit) {
+        List<String> args = new ArrayList<>();
+        StringBuilder where = new StringBuilder("me.month_key = ? AND uc.user_id = ?");
+        args.add(String.valueOf(MonthKeyCodec.fromDate(month != null ? month : new Date())));
+        args.add(String.valueOf(session.getUserId()));
+        return queryExpensePage(where, args, true, after, limit);
+    }
+
+    /**
+     * Сумма операций категории за месяц из category_month_totals
+     */
+    public double getCategoryMonthTotal(long userCategoryId, Date month) {
+        int monthKey = MonthKeyCodec.fromDate(month != null ? month : new Date());
+
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        try (Cursor cursor = db.rawQuery(
+                "SELECT expense_sum + income_sum FROM category_month_totals " +
+                        "WHERE user_cat_id = ? AND month_key = ?",
+                new String[]{String.valueOf(userCategoryId), String.valueOf(monthKey)})) {
+            if (cursor.moveToFirst()) {
+                return cursor.getDouble(0);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Ошибка при получении суммы категории", e);
+        }
+        return 0;
+    }
+
+    /**
+     * Выборка страницы по индексу (month_key, id): условие на ключ вместо OFFSET
+     * Берется limit + 1 строка, чтобы узнать, есть ли следующая страница.
+     * Ошибки БД не перехватываются: пустая страница выглядела бы как конец списка
+     * @param singleMonth where уже фиксирует month_key
+     */
+    private ExpensePage queryExpensePage(StringBuilder where, List<String> args, boolean singleMonth,
+                                         ExpensePage.Key after, int limit) {
+        if (after != null) {
+            where.append(" AND ").append(expensePageKeyCondition(singleMonth));
+            if (!singleMonth) {
+                args.add(String.valueOf(after.monthKey));
+                args.add(String.valueOf(after.monthKey));
+            }
+            args.add(String.valueOf(after.id));
+        }
+        args.add(String.valueOf(limit + 1));
+
+        String query = expensePageQuery(where.toString());
+
+        List<Expense> expenses = new ArrayList<>();
+        ExpensePage.Key next = null;
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+
+        try (Cursor cursor = db.rawQuery(query, args.toArray(new String[0]))) {
+            int lastMonthKey = 0;
+            long lastId = 0;
+            while (cursor.moveToNext()) {
+                if (expenses.size() == limit) {
+                    next = new ExpensePage.Key(lastMonthKey, lastId);
+                    break;
+                }
+                lastId = cursor.getLong(0);
+                lastMonthKey = cursor.getInt(7);
+                expenses.add(new Expense(lastId,
+                        cursor.getString(1),
+                        cursor.getLong(2),
+                        cursor.getString(3),
+                        cursor.getString(4),
+                        cursor.getDouble(5),
+                        cursor.getInt(6) == 1,
+                        // Дата операции - первое число месяца, как и в dates
+                        MonthKeyCodec.toDate(lastMonthKey)));
+            }
+        }
+
+        return new ExpensePage(expenses, next);
+    }
+
+    /**
+     * Условие "после ключа" для порядка (month_key DESC, id DESC)
+     * Отдельное month_key <= ? SQLite превращает в диапазон по индексу, и глубокая
+     * страница начинается сразу с ключа, как первая; внутри одного месяца хватает id < ?
+     */
+    static String expensePageKeyCondition(boolean singleMonth) {
+        return singleMonth
+                ? "me.id < ?"
+                : "me.month_key <= ? AND (me.month_key < ? OR me.id < ?)";
+    }
+
+    static String expensePageQuery(String where) {
+        return "SELECT " +
+                "    me.id, " +
+                "    me.transaction_id, " +
+                "    me.user_cat_id, " +
+                "    uc.name as category_name, " +
+                "    c.icon as category_icon, " +
+                "    me.expenses, " +
+                "    COALESCE(me.is_income, 0) as is_income, " +
+                "    me.month_key " +
+                "FROM monthly_expenses me " +
+                "JOIN user_categories uc ON me.user_cat_id = uc.id " +
+                "JOIN categories c ON uc.cat_id = c.id " +
+                "WHERE " + where + " " +
+                "ORDER BY me.month_key DESC, me.id DESC " +
+                "LIMIT ?";
+    }
+
+    /**
+     * Поиск операций по продавцу за всю историю
+     * Слова запроса ищутся как префиксы через полнотекстовый индекс merchants_fts;
+     * если по префиксам ничего нет, ищется подстрока в справочнике продавцов.
+     * В обоих случаях перебирается только справочник, а операции берутся по индексу merchant_id
+     * @param query Текст запроса
+     * @param limit Максимум результатов
+     * @return Операции, новые первыми
+     */
+    public List<Expense> searchExpenses(String query, int limit) {
+        List<Expense> expenses = new ArrayList<>();
+        if (query == null || query.trim().isEmpty()) {
+            return expenses;
+        }
+
+        String ftsQuery = toFtsPrefixQuery(query);
+        if (ftsQuery != null) {
+            expenses = searchExpensesByMerchants(
+                    "SELECT docid FROM merchants_fts WHERE merchants_fts MATCH ?",
+                    ftsQuery, limit);
+        }
+
+        if (expenses.isEmpty()) {
+            expenses = searchExpensesByMerchants(
+                    "SELECT id FROM merchants WHERE normalized LIKE ? ESCAPE '\\'",
+                    "%" + escapeLike(MerchantDictionary.normalize(query)) + "%", limit);
+        }
+
+        return expenses;
+    }
+
+    /**
+     * Подсказки продавцов по началу слов названия
+     * @param prefix Начало слова
+     * @param limit Максимум подсказок
+     * @return Названия продавцов
+     */
+    public List<String> searchMerchants(String prefix, int limit) {
+        List<String> names = new ArrayList<>();
+        String ftsQuery = prefix != null ? toFtsPrefixQuery(prefix) : null;
+        if (ftsQuery == null) {
+            return names;
+        }
+
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        try (Cursor cursor = db.rawQuery(
+                "SELECT name FROM merchants_fts WHERE merchants_fts MATCH ? LIMIT ?",
+                new String[]{ftsQuery, String.valueOf(limit)})) {
+            while (cursor.moveToNext()) {
+                names.add(cursor.getString(0));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Ошибка поиска продавцов", e);
+        }
+
+        return names;
+    }
+
+    /**
+     * Операции текущего пользователя, продавец которых входит в подзапрос merchantIdsSql
+     */
+    private List<Expense> searchExpensesByMerchants(String merchantIdsSql, String arg, int limit) {
+        List<Expense> expenses = new ArrayList<>();
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+
+        String query =
+                "SELECT " +
+                        "    me.id, " +
+                        "    me.transaction_id, " +
+                        "    me.user_cat_id, " +
+                        "    uc.name as category_name, " +
+                        "    c.icon as category_icon, " +
+                        "    me.expenses, " +
+                        "    COALESCE(me.is_income, 0) as is_income, " +
+                        "    d.date, " +
+                        "    m.name as merchant_name " +
+                        "FROM monthly_expenses me " +
+                        "JOIN merchants m ON me.merchant_id = m.id " +
+                        "JOIN user_categories uc ON me.user_cat_id = uc.id " +
+                        "JOIN categories c ON uc.cat_id = c.id " +
+                        "JOIN dates d ON me.date_id = d.id " +
+                        "WHERE me.merchant_id IN (" + merchantIdsSql + ") AND uc.user_id = ? " +
+                        "ORDER BY me.id DESC " +
+                        "LIMIT ?";
+
+        long start = System.currentTimeMillis();
+        try (Cursor cursor = db.rawQuery(query, new String[]{
+                arg, String.valueOf(session.getUserId()), String.valueOf(limit)})) {
+
+            while (cursor.moveToNext()) {
+                int dateKey = MonthKeyCodec.parse(cursor.getString(7));
+                Date expenseDate = dateKey > 0 ? MonthKeyCodec.toDate(dateKey) : null;
+
+                Expense expense = new Expense(cursor.getLong(0), cursor.getString(1),
+                        cursor.getLong(2), cursor.getString(3), cursor.getString(4),
+                        cursor.getDouble(5), cursor.getInt(6) == 1, expenseDate);
+                expense.setMerchantName(cursor.getString(8));
+                expenses.add(expense);
+            }
+
+            Log.d(TAG, String.format("Поиск '%s': %d операций за %d мс",
+                    arg, expenses.size(), System.currentTimeMillis() - start));
+
+        } catch (Exception e) {
+            Log.e(TAG, "Ошибка поиска операций", e);
+        }
+
+        return expenses;
+    }
+
+    /**
+     * "пятерочка мос" -> "пятерочка* мос*"
+     * Спецсимволы синтаксиса MATCH отбрасываются
+     */
+    private static String toFtsPrefixQuery(String query) {
+        StringBuilder sb = new StringBuilder();
+        for (String word : query.trim().split("\\s+")) {
+            String token = word.replaceAll("[^\\p{L}\\p{N}]", "");
+            if (token.isEmpty()) continue;
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(token).append('*');
+        }
+        return sb.length() > 0 ? sb.toString() : null;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
     /**
      * Получить или создать глобальную категорию
      */
@@ -685,19 +1137,10 @@ public class CategoryService {
     }
 
     /**
-     * Получить ID текущего пользователя
-     * TODO: Заменить на реальную логику получения текущего пользователя
+     * Ключ месяца в category_month_totals: yyyyMM
      */
-    private long getCurrentUserId() {
-        // Пока возвращаем первого пользователя
-        SQLiteDatabase db = dbHelper.getReadableDatabase();
-        try (Cursor cursor = db.query("users", new String[]{"id"},
-                null, null, null, null, null, "1")) {
-            if (cursor.moveToFirst()) {
-                return cursor.getLong(0);
-            }
-        }
-        return 1; // Fallback
+    private static int monthKey(Calendar cal) {
+        return MonthKeyCodec.fromMillis(cal.getTimeInMillis());
     }
 
     /**
@@ -744,7 +1187,7 @@ public class CategoryService {
                         "ORDER BY p.predict DESC";
 
         try (Cursor cursor = db.rawQuery(query,
-                new String[]{String.valueOf(getCurrentUserId())})) {
+                new String[]{String.valueOf(session.getUserId())})) {
 
             double totalPrediction = 0;
             List<Category> tempList = new ArrayList<>();
@@ -787,50 +1230,45 @@ public class CategoryService {
     
     /**
      * Получить общий доход за месяц
+     * Пока это поле money пользователя, поэтому месяц не влияет на результат
      */
     public double getTotalIncome(Date month) {
-        SQLiteDatabase db = dbHelper.getReadableDatabase();
-        
-        Calendar cal = Calendar.getInstance();
-        cal.setTime(month);
-        cal.set(Calendar.DAY_OF_MONTH, 1);
-        String monthStr = dateFormat.format(cal.getTime());
-        
-//        try {
-//            // Получаем сумму доходов из monthly_expenses где is_income = 1
-//            String query = "SELECT COALESCE(SUM(me.expenses), 0) " +
-//                          "FROM monthly_expenses me " +
-//                          "JOIN dates d ON me.date_id = d.id " +
-//                          "JOIN user_categories uc ON me.user_cat_id = uc.id " +
-//                          "WHERE uc.user_id = ? AND d.date = ? AND me.is_income = 1";
-//
-//            try (Cursor cursor = db.rawQuery(query,
-//                    new String[]{String.valueOf(getCurrentUserId()), monthStr})) {
-//                if (cursor.moveToFirst()) {
-//                    double income = cursor.getDouble(0);
-//                    Log.d(TAG, String.format("Доход за %s: %.2f", monthStr, income));
-//                    return income;
-//                }
-//            }
-//        } catch (Exception e) {
-//            Log.e(TAG, "Ошибка при получении дохода", e);
-//        }
+        QueryCache.Key key = new QueryCache.Key("income", session.getUserId(), -1);
+        long stamp = versions.stamp(INCOME_SLICE);
+
+        Double cached = cache.get(key, stamp);
+        if (cached != null) {
+            return cached;
+        }
+
         try {
-            String query = "SELECT money from users where id = ?";
-            try(Cursor cursor= db.rawQuery(query, new String[]{String.valueOf(getCurrentUserId())})) {
-                if (cursor.moveToFirst()){
-                    double income = cursor.getDouble(0);
-                    Log.d(TAG, String.format("Доход за %s: %.2f", monthStr, income));
-                    return income;
-                }
-            }
+            double income = coalescer.load(requestKey(key, stamp), () -> {
+                double loaded = queryIncome();
+                cache.put(key, loaded, stamp, CACHE_ENTRY_BYTES);
+                return loaded;
+            });
+            Log.d(TAG, String.format("Доход за %s: %.2f",
+                    MonthKeyCodec.toLegacyString(MonthKeyCodec.fromDate(month)), income));
+            return income;
         } catch (Exception e) {
             Log.e(TAG, "Ошибка при получении дохода", e);
         }
-        
+
         return 0.0;
     }
-    
+
+    private double queryIncome() {
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        // Доходы из monthly_expenses (is_income = 1) пока не учитываются
+        try (Cursor cursor = db.rawQuery("SELECT money from users where id = ?",
+                new String[]{String.valueOf(session.getUserId())})) {
+            if (cursor.moveToFirst()) {
+                return cursor.getDouble(0);
+            }
+        }
+        return 0.0;
+    }
+
     /**
      * Получить общий расход за месяц
      */
@@ -874,6 +1312,159 @@ public class CategoryService {
         );
     }
 
+    /**
+     * Расходы всех категорий пользователя по месяцам за период одним запросом
+     * Читаются итоги category_month_totals; категории без расходов дают нулевые строки
+     * @param fromMonth Первый месяц периода
+     * @param toMonth Последний месяц периода (включительно)
+     */
+    public SpendMatrix getSpendMatrix(Date fromMonth, Date toMonth) {
+        int fromKey = MonthKeyCodec.fromDate(fromMonth);
+        int toKey = MonthKeyCodec.fromDate(toMonth);
+
+        SpendMatrix.Builder builder = new SpendMatrix.Builder(fromKey, toKey);
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+
+        String query =
+                "SELECT uc.id, uc.name, t.month_key, t.expense_sum " +
+                        "FROM user_categories uc " +
+                        "LEFT JOIN category_month_totals t ON t.user_cat_id = uc.id " +
+                        "    AND t.month_key BETWEEN ? AND ? " +
+                        "WHERE uc.user_id = ? " +
+                        "ORDER BY uc.id";
+
+        try (Cursor cursor = db.rawQuery(query, new String[]{
+                String.valueOf(fromKey), String.valueOf(toKey),
+                String.valueOf(session.getUserId())})) {
+            long currentId = Long.MIN_VALUE;
+            int row = -1;
+            while (cursor.moveToNext()) {
+                long userCatId = cursor.getLong(0);
+                if (userCatId != currentId) {
+                    currentId = userCatId;
+                    row = builder.addCategory(userCatId, cursor.getString(1));
+                }
+                if (!cursor.isNull(2)) {
+                    builder.add(row, cursor.getInt(2), Math.round(cursor.getDouble(3) * 100));
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Ошибка при загрузке матрицы расходов", e);
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Данные главного экрана одним запросом: доход пользователя
+     * и категории с расходами из category_month_totals и прогнозами
+     */
+    public DashboardSnapshot getDashboardSnapshot(Date month) {
+        int monthKey = MonthKeyCodec.fromDate(month);
+        QueryCache.Key key = new QueryCache.Key("dashboard", session.getUserId(), monthKey);
+        long stamp = versions.stamp(DASHBOARD_SLICE.withMonth(monthKey));
+
+        DashboardSnapshot cached = cache.get(key, stamp);
+        if (cached != null) {
+            return cached;
+        }
+
+        return coalescer.load(requestKey(key, stamp), () -> {
+            DashboardSnapshot snapshot = queryDashboardSnapshot(month);
+            cache.put(key, snapshot, stamp,
+                    CACHE_ENTRY_BYTES + snapshot.categories.size() * CACHE_CATEGORY_BYTES);
+            return snapshot;
+        });
+    }
+
+    /**
+     * Ключ RequestCoalescer: к загрузке присоединяются только запросы с тем же штампом
+     */
+    private static String requestKey(QueryCache.Key key, long stamp) {
+        return key + "@" + stamp;
+    }
+
+    private DashboardSnapshot queryDashboardSnapshot(Date month) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTime(month);
+        cal.set(Calendar.DAY_OF_MONTH, 1);
+
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+
+        long userId = session.getUserId();
+        double income = 0;
+        double totalExpense = 0;
+        double totalBudget = 0;
+        int overBudgetCount = 0;
+        List<Category> categories = new ArrayList<>();
+        List<Category> forecastCategories = new ArrayList<>();
+
+        // Один запрос от строки пользователя: доход и категории видят один и тот же срез БД,
+        // а транзакция не нужна (beginTransactionNonExclusive брал бы блокировку записи
+        // и ждал импорт). LEFT JOIN оставляет строку с доходом и у пользователя без категорий
+        String query =
+                "SELECT " +
+                        "    u.money, " +
+                        "    uc.id, " +
+                        "    uc.cat_id, " +
+                        "    uc.name, " +
+                        "    c.icon, " +
+                        "    uc.fixed, " +
+                        "    COALESCE(t.expense_sum, 0) as current_expense, " +
+                        "    COALESCE(p.predict, 0) as budget, " +
+                        "    c.id " +
+                        "FROM users u " +
+                        "LEFT JOIN user_categories uc ON uc.user_id = u.id " +
+                        "LEFT JOIN categories c ON uc.cat_id = c.id " +
+                        "LEFT JOIN category_month_totals t " +
+                        "    ON t.user_cat_id = uc.id AND t.month_key = ? " +
+                        "LEFT JOIN predict p ON p.user_cat_id = uc.id " +
+                        "WHERE u.id = ? " +
+                        "ORDER BY current_expense DESC";
+
+        try (Cursor cursor = db.rawQuery(query, new String[]{
+                String.valueOf(monthKey(cal)), String.valueOf(userId)})) {
+            while (cursor.moveToNext()) {
+                income = cursor.getDouble(0);
+                // Нет категорий или категория без записи в справочнике categories
+                if (cursor.isNull(1) || cursor.isNull(8)) {
+                    continue;
+                }
+                Category category = new Category(
+                        cursor.getLong(1),
+                        cursor.getLong(2),
+                        cursor.getString(3),
+                        cursor.getString(4),
+                        cursor.getInt(5) == 1,
+                        cursor.getDouble(6),
+                        cursor.getDouble(7));
+                category.setMonthDate(cal.getTime());
+                categories.add(category);
+
+                totalExpense += category.getCurrentExpense();
+                totalBudget += category.getBudget();
+                if (category.isOverBudget()) {
+                    overBudgetCount++;
+                }
+                // Как и раньше на главном экране: все категории с прогнозом,
+                // в том числе без расходов в этом месяце
+                if (category.getBudget() > 0) {
+                    forecastCategories.add(category);
+                }
+            }
+        }
+
+        for (Category category : categories) {
+            if (totalExpense > 0) {
+                category.setPercentage((int) ((category.getCurrentExpense() / totalExpense) * 100));
+            }
+        }
+        forecastCategories.sort((c1, c2) -> Double.compare(c2.getBudget(), c1.getBudget()));
+
+        return new DashboardSnapshot(cal.getTime(), income, totalExpense, totalBudget,
+                overBudgetCount, categories, forecastCategories);
+    }
+
     /**
      * Класс для статистики категорий
      */
@@ -0,0 +1,56 @@
+package com.example.moneyhelper.service;
+
+import com.example.moneyhelper.DataTypes.Category;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Данные главного экрана за месяц, прочитанные одним запросом
+ * Снимок лежит в QueryCache и общий для всех, кто его запросил: списки
+ * не изменяются, а объекты Category только читаются (экран строит из них
+ * CategoryRowModel)
+ */
+public final class DashboardSnapshot {
+    private final Date month;
+    public final double income;
+    public final double totalExpense;
+    public final double totalBudget;
+    public final int overBudgetCount;
+
+    // Все категории пользователя, по убыванию расходов
+    public final List<Category> categories;
+    // Категории с прогнозом, по убыванию прогноза
+    public final List<Category> forecastCategories;
+
+    DashboardSnapshot(Date month, double income, double totalExpense, double totalBudget,
+                      int overBudgetCount, List<Category> categories,
+                      List<Category> forecastCategories) {
+        this.month = new Date(month.getTime());
+        this.income = income;
+        this.totalExpense = totalExpense;
+        this.totalBudget = totalBudget;
+        this.overBudgetCount = overBudgetCount;
+        this.categories = Collections.unmodifiableList(categories);
+        this.forecastCategories = Collections.unmodifiableList(forecastCategories);
+    }
+
+    /**
+     * Первое число месяца; копия, чтобы снимок в кэше нельзя было изменить
+     */
+    public Date getMonth() {
+        return new Date(month.getTime());
+    }
+
+    /**
+     * Баланс: доход минус расходы за месяц
+     */
+    public double getBalance() {
+        return income - totalExpense;
+    }
+
+    public double getRemainingBudget() {
+        return Math.max(0, totalBudget - totalExpense);
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.moneyhelper.service;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Версии данных по таблицам и месяцам
+ * Каждая запись в БД увеличивает счетчики затронутых таблиц (и месяцев для расходов).
+ * Экраны подписываются на нужный им срез и перезагружаются, только если его
+ * версия изменилась. Серия записей подряд дает одно уведомление
+ */
+public final class DataVersions {
+
+    // Записи, пришедшие за это время, объединяются в одно уведомление
+    static final long DISPATCH_DELAY_MS = 100;
+
+    public enum Table {
+        USERS,
+        CATEGORIES,
+        EXPENSES,
+        PREDICTIONS,
+        UPCOMING
+    }
+
+    /**
+     * Подписчик на изменения среза; вызывается в главном потоке
+     */
+    public interface Listener {
+        void onDataChanged();
+    }
+
+    /**
+     * Куда отправлять рассылку уведомлений (в приложении - главный поток)
+     */
+    interface Dispatcher {
+        void post(Runnable task, long delayMillis);
+    }
+
+    private static volatile DataVersions instance;
+
+    private final Dispatcher dispatcher;
+
+    private final Map<Table, Long> tableVersions = new EnumMap<>(Table.class);
+    private final Map<Integer, Long> monthVersions = new HashMap<>();
+    // Запись в расходы без известного месяца меняет версии всех месяцев
+    private long allMonthsVersion;
+
+    private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private boolean dispatchScheduled;
+
+    DataVersions(Dispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+        for (Table table : Table.values()) {
+            tableVersions.put(table, 0L);
+        }
+    }
+
+    public static DataVersions getInstance() {
+        if (instance == null) {
+            synchronized (DataVersions.class) {
+                if (instance == null) {
+                    Handler handler = new Handler(Looper.getMainLooper());
+                    instance = new DataVersions(handler::postDelayed);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Срез из таблиц; месяц добавляется через {@link Slice#withMonth(int)}
+     */
+    public static Slice slice(Table... tables) {
+        return new Slice(tables, -1);
+    }
+
+    // ---- Запись ----
+
+    public void bump(Table... tables) {
+        synchronized (this) {
+            for (Table table : tables) {
+                tableVersions.put(table, tableVersions.get(table) + 1);
+            }
+        }
+        scheduleDispatch();
+    }
+
+    /**
+     * Изменились расходы за месяц (ключ yyyyMM)
+     */
+    public void bumpMonth(int monthKey) {
+        synchronized (this) {
+            bumpMonthLocked(monthKey);
+            tableVersions.put(Table.EXPENSES, tableVersions.get(Table.EXPENSES) + 1);
+        }
+        scheduleDispatch();
+    }
+
+    public void bumpMonths(Collection<Integer> monthKeys) {
+        if (monthKeys.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            for (int monthKey : monthKeys) {
+                bumpMonthLocked(monthKey);
+            }
+            tableVersions.put(Table.EXPENSES, tableVersions.get(Table.EXPENSES) + 1);
+        }
+        scheduleDispatch();
+    }
+
+    /**
+     * Изменились расходы, месяцы которых неизвестны (правка, удаление, каскад)
+     */
+    public void bumpAllMonths() {
+        synchronized (this) {
+            allMonthsVersion++;
+            tableVersions.put(Table.EXPENSES, tableVersions.get(Table.EXPENSES) + 1);
+        }
+        scheduleDispatch();
+    }
+
+    private void bumpMonthLocked(int monthKey) {
+        Long version = monthVersions.get(monthKey);
+        monthVersions.put(monthKey, version == null ? 1 : version + 1);
+    }
+
+    // ---- Чтение ----
+
+    public synchronized long getVersion(Table table) {
+        return tableVersions.get(table);
+    }
+
+    public synchronized long getMonthVersion(int monthKey) {
+        Long version = monthVersions.get(monthKey);
+        return allMonthsVersion + (version == null ? 0 : version);
+    }
+
+    /**
+     * Штамп среза: меняется при любой записи в его таблицы или месяц
+     * Счетчики только растут, поэтому достаточно их суммы
+     */
+    public synchronized long stamp(Slice slice) {
+        long stamp = 0;
+        for (Table table : slice.tables) {
+            stamp += tableVersions.get(table);
+        }
+        if (slice.monthKey >= 0) {
+            stamp += getMonthVersion(slice.monthKey);
+        }
+        return stamp;
+    }
+
+    // ---- Подписки ----
+
+    /**
+     * Подписка на срез; отписаться нужно до уничтожения экрана
+     */
+    public Subscription subscribe(Slice slice, Listener listener) {
+        Subscription subscription = new Subscription(slice, listener, stamp(slice));
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    private void scheduleDispatch() {
+        synchronized (this) {
+            if (dispatchScheduled || subscriptions.isEmpty()) {
+                return;
+            }
+            dispatchScheduled = true;
+        }
+        dispatcher.post(this::dispatch, DISPATCH_DELAY_MS);
+    }
+
+    private void dispatch() {
+        synchronized (this) {
+            dispatchScheduled = false;
+        }
+        for (Subscription subscription : subscriptions) {
+            long stamp = stamp(subscription.slice);
+            if (stamp != subscription.lastStamp) {
+                subscription.lastStamp = stamp;
+                subscription.listener.onDataChanged();
+            }
+        }
+    }
+
+    /**
+     * Набор таблиц и, при необходимости, месяц, которые показывает экран
+     */
+    public static final class Slice {
+        private final Table[] tables;
+        private final int monthKey;
+
+        private Slice(Table[] tables, int monthKey) {
+            this.tables = tables.clone();
+            this.monthKey = monthKey;
+        }
+
+        public Slice withMonth(int monthKey) {
+            return new Slice(tables, monthKey);
+        }
+
+        public Slice withTables(Table... more) {
+            Table[] union = Arrays.copyOf(tables, tables.length + more.length);
+            System.arraycopy(more, 0, union, tables.length, more.length);
+            return new Slice(union, monthKey);
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(tables) + (monthKey >= 0 ? " " + monthKey : "");
+        }
+    }
+
+    public final class Subscription {
+        private final Slice slice;
+        private final Listener listener;
+        private volatile long lastStamp;
+
+        private Subscription(Slice slice, Listener listener, long lastStamp) {
+            this.slice = slice;
+            this.listener = listener;
+            this.lastStamp = lastStamp;
+        }
+
+        public void unsubscribe() {
+            subscriptions.remove(this);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.moneyhelper.service;
+
+import com.example.moneyhelper.DataTypes.Expense;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Страница операций, отсортированных по (month_key, id) от новых к старым
+ * Следующая страница запрашивается по ключу последней строки, а не по OFFSET,
+ * поэтому стоимость страницы не зависит от ее номера
+ */
+public final class ExpensePage {
+    public final List<Expense> expenses;
+    // Ключ для следующей страницы; null, если это последняя
+    public final Key next;
+
+    ExpensePage(List<Expense> expenses, Key next) {
+        this.expenses = Collections.unmodifiableList(expenses);
+        this.next = next;
+    }
+
+    public boolean hasMore() {
+        return next != null;
+    }
+
+    /**
+     * Позиция в выборке: строки строго после (monthKey, id)
+     */
+    public static final class Key {
+        public final int monthKey;
+        public final long id;
+
+        public Key(int monthKey, long id) {
+            this.monthKey = monthKey;
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.moneyhelper.service;
+
+import java.util.Locale;
+
+/**
+ * Снимок хода импорта: сколько сделано на каждом этапе и сколько это заняло
+ * Время этапов суммируется по всем потокам, поэтому при параллельном разборе
+ * parseMs может быть больше elapsedMs
+ */
+public class ImportProgress {
+    public final int totalFiles;
+    public final int filesDone;
+    public final int totalPages;
+    public final int pagesExtracted;
+    public final int rowsParsed;
+    public final int rowsDeduped;
+    public final int rowsWritten;
+    public final long parseMs;
+    public final long dedupMs;
+    public final long writeMs;
+    public final long elapsedMs;
+    public final boolean finished;
+
+    // Доля разобранных файлов в тысячных, для процента выполнения
+    private final long parsedFileMillis;
+
+    ImportProgress(int totalFiles, int filesDone, int totalPages, int pagesExtracted,
+                   int rowsParsed, int rowsDeduped, int rowsWritten,
+                   long parseMs, long dedupMs, long writeMs, long elapsedMs,
+                   long parsedFileMillis, boolean finished) {
+        this.totalFiles = totalFiles;
+        this.filesDone = filesDone;
+        this.totalPages = totalPages;
+        this.pagesExtracted = pagesExtracted;
+        this.rowsParsed = rowsParsed;
+        this.rowsDeduped = rowsDeduped;
+        this.rowsWritten = rowsWritten;
+        this.parseMs = parseMs;
+        this.dedupMs = dedupMs;
+        this.writeMs = writeMs;
+        this.elapsedMs = elapsedMs;
+        this.parsedFileMillis = parsedFileMillis;
+        this.finished = finished;
+    }
+
+    /**
+     * Процент выполнения 0..100: половина - разбор страниц, половина - запись файлов
+     * Не убывает, даже когда страницы новых файлов становятся известны по ходу импорта
+     */
+    public int getPercent() {
+        if (finished || totalFiles == 0) {
+            return 100;
+        }
+        long done = parsedFileMillis + filesDone * 1000L;
+        return (int) Math.min(100, done * 50 / (totalFiles * 1000L));
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedMs > 0 ? rowsParsed * 1000.0 / elapsedMs : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.getDefault(),
+                "Файлов %d/%d, страниц %d/%d, строк %d, дубликатов %d, записано %d " +
+                        "(разбор %d мс, проверка %d мс, запись %d мс)",
+                filesDone, totalFiles, pagesExtracted, totalPages, rowsParsed,
+                rowsDeduped, rowsWritten, parseMs, dedupMs, writeMs);
+    }
+
+    /**
+     * Получает события хода импорта в главном потоке
+     */
+    public interface Listener {
+        void onProgress(ImportProgress progress);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.moneyhelper.service;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Собирает счетчики импорта из потоков разбора и записи
+ * и отправляет снимки в главный поток не чаще MIN_INTERVAL_MS
+ */
+class ImportProgressReporter {
+
+    // ~30 событий в секунду
+    static final long MIN_INTERVAL_MS = 33;
+
+    private final ImportProgress.Listener listener;
+    private final Handler mainHandler;
+    private final int totalFiles;
+    private final long startedAt = SystemClock.elapsedRealtime();
+    private final AtomicLong lastPublishedAt = new AtomicLong(Long.MIN_VALUE / 2);
+
+    private final AtomicInteger filesDone = new AtomicInteger();
+    private final AtomicInteger totalPages = new AtomicInteger();
+    private final AtomicInteger pagesExtracted = new AtomicInteger();
+    private final AtomicInteger rowsParsed = new AtomicInteger();
+    private final AtomicInteger rowsDeduped = new AtomicInteger();
+    private final AtomicInteger rowsWritten = new AtomicInteger();
+    private final AtomicLong parseNanos = new AtomicLong();
+    private final AtomicLong dedupNanos = new AtomicLong();
+    private final AtomicLong writeNanos = new AtomicLong();
+    private final AtomicLong parsedFileMillis = new AtomicLong();
+
+    /**
+     * @param listener может быть null - тогда счетчики только копятся
+     */
+    ImportProgressReporter(ImportProgress.Listener listener, int totalFiles) {
+        this.listener = listener;
+        this.mainHandler = listener != null ? new Handler(Looper.getMainLooper()) : null;
+        this.totalFiles = totalFiles;
+    }
+
+    /**
+     * Файл открыт, известно число страниц
+     */
+    void onFileOpened(int pageCount) {
+        totalPages.addAndGet(pageCount);
+    }
+
+    void onPagesExtracted(int pages, int rows, int pageCount) {
+        pagesExtracted.addAndGet(pages);
+        rowsParsed.addAndGet(rows);
+        if (pageCount > 0) {
+            parsedFileMillis.addAndGet(pages * 1000L / pageCount);
+        }
+        publish(false);
+    }
+
+    /**
+     * Разбор файла закончен (или прерван) - добираем доли страниц до целого файла
+     */
+    void onFileParsed(long parsedMillisSoFar, long nanos) {
+        parsedFileMillis.addAndGet(Math.max(0, 1000 - parsedMillisSoFar));
+        parseNanos.addAndGet(nanos);
+        publish(false);
+    }
+
+    void onRowsDeduped(int rows, long nanos) {
+        rowsDeduped.addAndGet(rows);
+        dedupNanos.addAndGet(nanos);
+    }
+
+    void onRowsWritten(int rows, long nanos) {
+        rowsWritten.addAndGet(rows);
+        writeNanos.addAndGet(nanos);
+        publish(false);
+    }
+
+    void onFileWritten() {
+        filesDone.incrementAndGet();
+        publish(false);
+    }
+
+    /**
+     * Последнее событие отправляется всегда, независимо от частоты
+     */
+    void finish() {
+        publish(true);
+    }
+
+    ImportProgress snapshot(boolean finished) {
+        return new ImportProgress(totalFiles, filesDone.get(),
+                totalPages.get(), pagesExtracted.get(),
+                rowsParsed.get(), rowsDeduped.get(), rowsWritten.get(),
+                parseNanos.get() / 1_000_000, dedupNanos.get() / 1_000_000,
+                writeNanos.get() / 1_000_000,
+                SystemClock.elapsedRealtime() - startedAt,
+                parsedFileMillis.get(), finished);
+    }
+
+    private void publish(boolean finished) {
+        if (listener == null) {
+            return;
+        }
+        long now = SystemClock.elapsedRealtime();
+        long last = lastPublishedAt.get();
+        if (!finished && (now - last < MIN_INTERVAL_MS || !lastPublishedAt.compareAndSet(last, now))) {
+            return;
+        }
+        lastPublishedAt.set(now);
+
+        ImportProgress progress = snapshot(finished);
+        mainHandler.post(() -> listener.onProgress(progress));
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.moneyhelper.service;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Справочник продавцов: нормализованное название -> id в таблице merchants
+ * Кэширует найденные id, поэтому на импорт приходится по одному запросу
+ * на каждого нового продавца, а не на каждую строку
+ */
+class MerchantDictionary {
+
+    // Описание-заглушка парсера, продавцом не считается
+    private static final String NO_DESCRIPTION = "Без описания";
+
+    private final Map<String, Long> cache = new HashMap<>();
+
+    /**
+     * Возвращает id продавца, при необходимости добавляя его в справочник
+     * @return -1, если описание пустое
+     */
+    long getOrCreate(SQLiteDatabase db, String name) {
+        if (name == null || NO_DESCRIPTION.equals(name)) {
+            return -1;
+        }
+        String displayName = name.trim().replaceAll("\\s+", " ");
+        String normalized = normalize(displayName);
+        if (normalized.isEmpty()) {
+            return -1;
+        }
+
+        Long cached = cache.get(normalized);
+        if (cached != null) {
+            return cached;
+        }
+
+        long id = -1;
+        try (Cursor cursor = db.query("merchants", new String[]{"id"},
+                "normalized = ?", new String[]{normalized}, null, null, null)) {
+            if (cursor.moveToFirst()) {
+                id = cursor.getLong(0);
+            }
+        }
+
+        if (id == -1) {
+            ContentValues values = new ContentValues();
+            values.put("name", displayName);
+            values.put("normalized", normalized);
+            id = db.insert("merchants", null, values);
+        }
+
+        if (id != -1) {
+            cache.put(normalized, id);
+        }
+        return id;
+    }
+
+    /**
+     * Ключ справочника: без регистра и лишних пробелов
+     */
+    static String normalize(String name) {
+        return name.trim().replaceAll("\\s+", " ").toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,321 @@
+package com.example.moneyhelper.service;
+
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * Преобразования между временем (epoch millis), ключом месяца yyyyMM
+ * и строками дат из таблицы dates (dd.MM.yyyy и старые yyyy-MM-dd)
+ * Без SimpleDateFormat и Calendar: только арифметика по календарю,
+ * поэтому безопасно из любых потоков и не создает объектов, кроме строк результата.
+ * Часовой пояс берется по умолчанию при загрузке класса - так же вел себя
+ * SimpleDateFormat, созданный при старте сервиса
+ */
+public final class MonthKeyCodec {
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    // Кэш строк первого числа месяца для 1900-2199
+    private static final int CACHE_FROM_YEAR = 1900;
+    private static final int CACHE_YEARS = 300;
+    private static final String[] legacyStrings = new String[CACHE_YEARS * 12];
+
+    private static volatile TimeZone zone = TimeZone.getDefault();
+
+    private MonthKeyCodec() {
+    }
+
+    /**
+     * Часовой пояс для перевода времени в календарные даты
+     */
+    public static void setTimeZone(TimeZone timeZone) {
+        zone = (TimeZone) timeZone.clone();
+    }
+
+    // ---- Ключ месяца ----
+
+    public static int of(int year, int month) {
+        return year * 100 + month;
+    }
+
+    public static int year(int monthKey) {
+        return monthKey / 100;
+    }
+
+    /**
+     * Месяц 1-12
+     */
+    public static int month(int monthKey) {
+        return monthKey % 100;
+    }
+
+    public static int plusMonths(int monthKey, int months) {
+        int ordinal = ordinal(monthKey) + months;
+        return Math.floorDiv(ordinal, 12) * 100 + Math.floorMod(ordinal, 12) + 1;
+    }
+
+    /**
+     * Сколько месяцев от from до to (0, если это один месяц)
+     */
+    public static int monthsBetween(int fromMonthKey, int toMonthKey) {
+        return ordinal(toMonthKey) - ordinal(fromMonthKey);
+    }
+
+    public static int fromMillis(long epochMillis) {
+        return fromEpochDay(epochDay(epochMillis));
+    }
+
+    public static int fromDate(Date date) {
+        return fromMillis(date.getTime());
+    }
+
+    /**
+     * Полночь первого числа месяца в локальном времени
+     */
+    public static long toMillis(int monthKey) {
+        return localToUtc(daysFromCivil(year(monthKey), month(monthKey), 1) * MILLIS_PER_DAY);
+    }
+
+    public static Date toDate(int monthKey) {
+        return new Date(toMillis(monthKey));
+    }
+
+    // ---- Строки таблицы dates ----
+
+    /**
+     * Первое число месяца в формате dd.MM.yyyy, как его хранит dates
+     */
+    public static String toLegacyString(int monthKey) {
+        int index = (year(monthKey) - CACHE_FROM_YEAR) * 12 + month(monthKey) - 1;
+        if (index < 0 || index >= legacyStrings.length) {
+            return formatDay(1, month(monthKey), year(monthKey));
+        }
+        // Гонка безопасна: строки неизменяемы, в худшем случае создадутся дважды
+        String cached = legacyStrings[index];
+        if (cached == null) {
+            cached = formatDay(1, month(monthKey), year(monthKey));
+            legacyStrings[index] = cached;
+        }
+        return cached;
+    }
+
+    /**
+     * Первое число месяца в формате yyyy-MM-dd (так пишет PredictionService)
+     */
+    public static String toIsoString(int monthKey) {
+        return formatIsoDay(year(monthKey), month(monthKey), 1);
+    }
+
+    /**
+     * Ключ месяца из строки dd.MM.yyyy или yyyy-MM-dd
+     * @return -1, если строка не дата
+     */
+    public static int parse(CharSequence value) {
+        if (value == null || value.length() != 10) {
+            return -1;
+        }
+        int year;
+        int month;
+        int day;
+        if (value.charAt(4) == '-' && value.charAt(7) == '-') {
+            year = digits(value, 0, 4);
+            month = digits(value, 5, 2);
+            day = digits(value, 8, 2);
+        } else if (value.charAt(2) == '.' && value.charAt(5) == '.') {
+            day = digits(value, 0, 2);
+            month = digits(value, 3, 2);
+            year = digits(value, 6, 4);
+        } else {
+            return -1;
+        }
+        if (!isValid(year, month, day)) {
+            return -1;
+        }
+        return of(year, month);
+    }
+
+    // ---- Дни ----
+
+    /**
+     * Номер календарного дня (по локальной дате) начиная с 01.01.1970
+     */
+    public static int epochDay(long epochMillis) {
+        long local = epochMillis + zone.getOffset(epochMillis);
+        return (int) Math.floorDiv(local, MILLIS_PER_DAY);
+    }
+
+    public static int fromEpochDay(int epochDay) {
+        long ymd = civilFromDays(epochDay);
+        return (int) (ymd / 100);
+    }
+
+    /**
+     * Дата и время выписки: dd.MM.yyyy HH:mm или только dd.MM.yyyy
+     * @return epoch millis или Long.MIN_VALUE, если строка не разобрана
+     */
+    public static long parseDateTime(CharSequence value) {
+        if (value == null || (value.length() != 10 && value.length() != 16)
+                || value.charAt(2) != '.' || value.charAt(5) != '.') {
+            return Long.MIN_VALUE;
+        }
+        int day = digits(value, 0, 2);
+        int month = digits(value, 3, 2);
+        int year = digits(value, 6, 4);
+        if (!isValid(year, month, day)) {
+            return Long.MIN_VALUE;
+        }
+
+        int minutes = 0;
+        if (value.length() == 16) {
+            if (value.charAt(10) != ' ' || value.charAt(13) != ':') {
+                return Long.MIN_VALUE;
+            }
+            int hour = digits(value, 11, 2);
+            int minute = digits(value, 14, 2);
+            if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+                return Long.MIN_VALUE;
+            }
+            minutes = hour * 60 + minute;
+        }
+
+        long local = daysFromCivil(year, month, day) * MILLIS_PER_DAY + minutes * 60_000L;
+        return localToUtc(local);
+    }
+
+    /**
+     * День в формате dd.MM.yyyy
+     */
+    public static String formatDay(int epochDay) {
+        long ymd = civilFromDays(epochDay);
+        return formatDay((int) (ymd % 100), (int) (ymd / 100 % 100), (int) (ymd / 10_000));
+    }
+
+    /**
+     * День в формате yyyy-MM-dd
+     */
+    public static String formatIsoDay(int epochDay) {
+        long ymd = civilFromDays(epochDay);
+        return formatIsoDay((int) (ymd / 10_000), (int) (ymd / 100 % 100), (int) (ymd % 100));
+    }
+
+    // ---- Календарная арифметика ----
+
+    private static int ordinal(int monthKey) {
+        return year(monthKey) * 12 + month(monthKey) - 1;
+    }
+
+    /**
+     * Локальное время в UTC по смещениям до и после возможного перевода часов
+     * Неоднозначное время считается более поздним, несуществующее сдвигается
+     * вперед - как в GregorianCalendar
+     */
+    private static long localToUtc(long localMillis) {
+        TimeZone tz = zone;
+        long before = localMillis - tz.getOffset(localMillis - MILLIS_PER_DAY);
+        long after = localMillis - tz.getOffset(localMillis + MILLIS_PER_DAY);
+        boolean beforeValid = before + tz.getOffset(before) == localMillis;
+        boolean afterValid = after + tz.getOffset(after) == localMillis;
+        if (beforeValid && afterValid) {
+            return Math.max(before, after);
+        }
+        if (afterValid) {
+            return after;
+        }
+        return before;
+    }
+
+    private static boolean isValid(int year, int month, int day) {
+        return year >= 0 && month >= 1 && month <= 12
+                && day >= 1 && day <= daysInMonth(year, month);
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Номер дня от 01.01.1970 по дате григорианского календаря
+     */
+    static long daysFromCivil(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yoe = y - era * 400;
+        int doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146_097L + doe - 719_468L;
+    }
+
+    /**
+     * Дата по номеру дня, упакованная в yyyyMMdd
+     */
+    static long civilFromDays(long epochDay) {
+        long z = epochDay + 719_468L;
+        long era = Math.floorDiv(z, 146_097L);
+        long doe = z - era * 146_097L;
+        long yoe = (doe - doe / 1460 + doe / 36_524 - doe / 146_096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        long day = doy - (153 * mp + 2) / 5 + 1;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        return year * 10_000 + month * 100 + day;
+    }
+
+    /**
+     * Число из цифр строки; -1, если встретилась не цифра
+     */
+    private static int digits(CharSequence value, int start, int count) {
+        int result = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    private static String formatDay(int day, int month, int year) {
+        char[] chars = new char[10];
+        put2(chars, 0, day);
+        chars[2] = '.';
+        put2(chars, 3, month);
+        chars[5] = '.';
+        put4(chars, 6, year);
+        return new String(chars);
+    }
+
+    private static String formatIsoDay(int year, int month, int day) {
+        char[] chars = new char[10];
+        put4(chars, 0, year);
+        chars[4] = '-';
+        put2(chars, 5, month);
+        chars[7] = '-';
+        put2(chars, 8, day);
+        return new String(chars);
+    }
+
+    private static void put2(char[] chars, int at, int value) {
+        chars[at] = (char) ('0' + value / 10 % 10);
+        chars[at + 1] = (char) ('0' + value % 10);
+    }
+
+    private static void put4(char[] chars, int at, int value) {
+        chars[at] = (char) ('0' + value / 1000 % 10);
+        chars[at + 1] = (char) ('0' + value / 100 % 10);
+        chars[at + 2] = (char) ('0' + value / 10 % 10);
+        chars[at + 3] = (char) ('0' + value % 10);
+    }
+}
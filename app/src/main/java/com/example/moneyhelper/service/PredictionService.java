@@ -7,9 +7,7 @@ import android.util.Log;
 
 import com.example.moneyhelper.DatabaseHelper;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -24,10 +22,12 @@ public class PredictionService {
 
     private final Context context;
     private final DatabaseHelper dbHelper;
+    private final UserSession session;
 
     public PredictionService(Context context) {
         this.context = context;
         this.dbHelper = DatabaseHelper.getInstance(context);
+        this.session = UserSession.getInstance(context);
     }
 
     /**
@@ -44,23 +44,23 @@ public class PredictionService {
             // Получаем ID следующего месяца
             long nextMonthDateId = getNextMonthDateId(db);
 
-            // Получаем все пользовательские категории
-            List<UserCategory> userCategories = getUserCategories(db);
+            // Категории пользователя из справочника сессии
+            List<UserSession.CategoryInfo> userCategories = session.getCategories();
 
-            for (UserCategory userCategory : userCategories) {
+            for (UserSession.CategoryInfo userCategory : userCategories) {
                 // Проверяем, нет ли уже прогноза для этой категории на следующий месяц
-                if (predictionExists(db, userCategory.id, nextMonthDateId)) {
+                if (predictionExists(db, userCategory.userCategoryId, nextMonthDateId)) {
                     Log.d(TAG, "Прогноз уже существует для категории: " + userCategory.name);
                     continue;
                 }
 
                 // Рассчитываем прогноз
-                double prediction = calculatePrediction(db, userCategory.id);
+                double prediction = calculatePrediction(db, userCategory.userCategoryId);
 
                 if (prediction > 0) {
                     // Сохраняем прогноз
                     ContentValues values = new ContentValues();
-                    values.put("user_cat_id", userCategory.id);
+                    values.put("user_cat_id", userCategory.userCategoryId);
                     values.put("predict", prediction);
 
                     long id = db.insert("predict", null, values);
@@ -82,6 +82,9 @@ public class PredictionService {
             db.endTransaction();
         }
 
+        if (predictionsCreated > 0) {
+            DataVersions.getInstance().bump(DataVersions.Table.PREDICTIONS);
+        }
         return predictionsCreated;
     }
 
@@ -165,12 +168,8 @@ public class PredictionService {
      * Получает date_id для следующего месяца
      */
     private long getNextMonthDateId(SQLiteDatabase db) {
-        Calendar cal = Calendar.getInstance();
-        cal.add(Calendar.MONTH, 1);
-        cal.set(Calendar.DAY_OF_MONTH, 1);
-
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        String dateStr = dateFormat.format(cal.getTime());
+        int nextMonth = MonthKeyCodec.plusMonths(MonthKeyCodec.fromMillis(System.currentTimeMillis()), 1);
+        String dateStr = MonthKeyCodec.toIsoString(nextMonth);
 
         // Ищем существующую запись
         Cursor cursor = db.query(
@@ -195,39 +194,6 @@ public class PredictionService {
         return dateId;
     }
 
-    /**
-     * Получает все пользовательские категории
-     */
-    private List<UserCategory> getUserCategories(SQLiteDatabase db) {
-        List<UserCategory> categories = new ArrayList<>();
-
-        Cursor cursor = db.query(
-                "user_categories",
-                new String[]{"id", "name", "fixed"},
-                null, null, null, null, null
-        );
-
-        while (cursor.moveToNext()) {
-            UserCategory category = new UserCategory();
-            category.id = cursor.getLong(0);
-            category.name = cursor.getString(1);
-            category.fixed = cursor.getInt(2) == 1;
-            categories.add(category);
-        }
-        cursor.close();
-
-        return categories;
-    }
-
-    /**
-     * Вспомогательный класс для категорий
-     */
-    private static class UserCategory {
-        long id;
-        String name;
-        boolean fixed;
-    }
-
     /**
      * Получает прогноз для категории
      */
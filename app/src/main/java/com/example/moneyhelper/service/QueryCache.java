@@ -0,0 +1,185 @@
+package com.example.moneyhelper.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU-кэш результатов чтения CategoryService
+ * Ключ - (вид запроса, пользователь, месяц). Вместе с результатом хранится штамп
+ * DataVersions его среза, взятый до запроса: если штамп изменился, запись считается
+ * устаревшей и удаляется. Размер ограничен числом записей и оценкой занимаемой памяти
+ */
+public final class QueryCache {
+
+    static final int DEFAULT_MAX_ENTRIES = 64;
+    static final long DEFAULT_MAX_BYTES = 512 * 1024;
+
+    private static volatile QueryCache instance;
+
+    // accessOrder = true: первой идет давно не использованная запись
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private int maxEntries;
+    private long maxBytes;
+    private long bytes;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    QueryCache(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    public static QueryCache getInstance() {
+        if (instance == null) {
+            synchronized (QueryCache.class) {
+                if (instance == null) {
+                    instance = new QueryCache(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Меняет ограничения; лишние записи вытесняются сразу
+     */
+    public synchronized void configure(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        trim();
+    }
+
+    /**
+     * Результат, если он есть и прочитан при том же штампе, иначе null
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T get(Key key, long stamp) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (entry.stamp != stamp) {
+            entries.remove(key);
+            bytes -= entry.bytes;
+            invalidations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return (T) entry.value;
+    }
+
+    /**
+     * Сохраняет результат
+     * @param stamp штамп среза, взятый до запроса
+     * @param estimatedBytes примерный размер результата в памяти
+     */
+    public synchronized void put(Key key, Object value, long stamp, long estimatedBytes) {
+        if (estimatedBytes > maxBytes) {
+            return;
+        }
+        Entry previous = entries.put(key, new Entry(value, stamp, estimatedBytes));
+        if (previous != null) {
+            bytes -= previous.bytes;
+        }
+        bytes += estimatedBytes;
+        trim();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, evictions, invalidations, entries.size(), bytes);
+    }
+
+    private void trim() {
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || bytes > maxBytes) && iterator.hasNext()) {
+            bytes -= iterator.next().getValue().bytes;
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Ключ результата; monthKey = -1 для запросов без месяца
+     */
+    public static final class Key {
+        private final String kind;
+        private final long userId;
+        private final int monthKey;
+
+        public Key(String kind, long userId, int monthKey) {
+            this.kind = kind;
+            this.userId = userId;
+            this.monthKey = monthKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return userId == other.userId && monthKey == other.monthKey
+                    && kind.equals(other.kind);
+        }
+
+        @Override
+        public int hashCode() {
+            return (kind.hashCode() * 31 + Long.hashCode(userId)) * 31 + monthKey;
+        }
+
+        @Override
+        public String toString() {
+            return kind + "/" + userId + "/" + monthKey;
+        }
+    }
+
+    /**
+     * Счетчики кэша для логов и тестов
+     */
+    public static final class Stats {
+        public final long hits;
+        public final long misses;
+        public final long evictions;
+        public final long invalidations;
+        public final int entries;
+        public final long bytes;
+
+        Stats(long hits, long misses, long evictions, long invalidations, int entries, long bytes) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.invalidations = invalidations;
+            this.entries = entries;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d, misses=%d, evictions=%d, invalidations=%d, entries=%d, bytes=%d",
+                    hits, misses, evictions, invalidations, entries, bytes);
+        }
+    }
+
+    private static final class Entry {
+        final Object value;
+        final long stamp;
+        final long bytes;
+
+        Entry(Object value, long stamp, long bytes) {
+            this.value = value;
+            this.stamp = stamp;
+            this.bytes = bytes;
+        }
+    }
+}
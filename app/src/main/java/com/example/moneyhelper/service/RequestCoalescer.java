@@ -0,0 +1,94 @@
+package com.example.moneyhelper.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Объединение одинаковых одновременных чтений
+ * Первый запрос с ключом выполняет загрузку, остальные, пришедшие до ее конца,
+ * ждут тот же результат. Ключ должен включать штамп DataVersions: запрос,
+ * сделанный после записи, не присоединится к загрузке старых данных
+ */
+public final class RequestCoalescer {
+
+    /**
+     * Загрузка; вызывается в потоке первого запроса
+     */
+    public interface Loader<T> {
+        T load();
+    }
+
+    private static volatile RequestCoalescer instance;
+
+    private final ConcurrentHashMap<Object, FutureTask<?>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong collapsed = new AtomicLong();
+
+    RequestCoalescer() {
+    }
+
+    public static RequestCoalescer getInstance() {
+        if (instance == null) {
+            synchronized (RequestCoalescer.class) {
+                if (instance == null) {
+                    instance = new RequestCoalescer();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Выполняет загрузку или присоединяется к уже идущей с тем же ключом
+     * Исключение загрузки получают все ожидавшие запросы
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T load(Object key, Loader<T> loader) {
+        FutureTask<T> task = new FutureTask<>(loader::load);
+        FutureTask<T> running = (FutureTask<T>) inFlight.putIfAbsent(key, task);
+        if (running == null) {
+            executed.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                inFlight.remove(key, task);
+            }
+            running = task;
+        } else {
+            collapsed.incrementAndGet();
+        }
+
+        try {
+            return running.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            // Ждать больше нельзя - читаем сами
+            Thread.currentThread().interrupt();
+            return loader.load();
+        }
+    }
+
+    /**
+     * Сколько загрузок действительно выполнено
+     */
+    public long getExecutedCount() {
+        return executed.get();
+    }
+
+    /**
+     * Сколько запросов получили результат чужой загрузки
+     */
+    public long getCollapsedCount() {
+        return collapsed.get();
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.moneyhelper.service;
+
+import java.util.Arrays;
+
+/**
+ * Плотная матрица расходов категория x месяц в копейках
+ * Ячейки хранятся одним массивом long по строкам, пропуски заполнены нулями.
+ * Итоги по строкам, столбцам и общий считаются один раз при сборке
+ */
+public final class SpendMatrix {
+
+    private final long[] categoryIds;
+    private final String[] categoryNames;
+    private final int fromMonthKey;
+    private final int monthCount;
+    private final long[] cells;
+    private final long[] rowTotals;
+    private final long[] columnTotals;
+    private final long total;
+
+    private SpendMatrix(long[] categoryIds, String[] categoryNames, int fromMonthKey,
+                        int monthCount, long[] cells) {
+        this.categoryIds = categoryIds;
+        this.categoryNames = categoryNames;
+        this.fromMonthKey = fromMonthKey;
+        this.monthCount = monthCount;
+        this.cells = cells;
+        this.rowTotals = new long[categoryIds.length];
+        this.columnTotals = new long[monthCount];
+
+        long sum = 0;
+        for (int row = 0; row < categoryIds.length; row++) {
+            int offset = row * monthCount;
+            long rowSum = 0;
+            for (int col = 0; col < monthCount; col++) {
+                long value = cells[offset + col];
+                rowSum += value;
+                columnTotals[col] += value;
+            }
+            rowTotals[row] = rowSum;
+            sum += rowSum;
+        }
+        this.total = sum;
+    }
+
+    public int getCategoryCount() {
+        return categoryIds.length;
+    }
+
+    public int getMonthCount() {
+        return monthCount;
+    }
+
+    public long getCategoryId(int row) {
+        return categoryIds[row];
+    }
+
+    public String getCategoryName(int row) {
+        return categoryNames[row];
+    }
+
+    /**
+     * Строка категории или -1, если ее нет в матрице
+     */
+    public int rowOf(long categoryId) {
+        for (int row = 0; row < categoryIds.length; row++) {
+            if (categoryIds[row] == categoryId) return row;
+        }
+        return -1;
+    }
+
+    /**
+     * Ключ месяца (yyyyMM) столбца
+     */
+    public int getMonthKey(int col) {
+        return MonthKeyCodec.plusMonths(fromMonthKey, col);
+    }
+
+    public long get(int row, int col) {
+        return cells[row * monthCount + col];
+    }
+
+    /**
+     * Копия строки категории, например для графика
+     */
+    public long[] copyRow(int row) {
+        return Arrays.copyOfRange(cells, row * monthCount, (row + 1) * monthCount);
+    }
+
+    public long getRowTotal(int row) {
+        return rowTotals[row];
+    }
+
+    public long getColumnTotal(int col) {
+        return columnTotals[col];
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Сборка матрицы; ячейки можно добавлять вперемешку с категориями
+     */
+    public static class Builder {
+        private final int fromMonthKey;
+        private final int monthCount;
+
+        private long[] categoryIds = new long[16];
+        private String[] categoryNames = new String[16];
+        private int categoryCount;
+
+        private long[] cells = new long[0];
+
+        public Builder(int fromMonthKey, int toMonthKey) {
+            if (toMonthKey < fromMonthKey) {
+                throw new IllegalArgumentException("toMonthKey < fromMonthKey");
+            }
+            this.fromMonthKey = fromMonthKey;
+            this.monthCount = MonthKeyCodec.monthsBetween(fromMonthKey, toMonthKey) + 1;
+        }
+
+        /**
+         * Добавляет строку категории
+         * @return номер строки
+         */
+        public int addCategory(long categoryId, String name) {
+            if (categoryCount == categoryIds.length) {
+                categoryIds = Arrays.copyOf(categoryIds, categoryCount * 2);
+                categoryNames = Arrays.copyOf(categoryNames, categoryCount * 2);
+            }
+            if ((categoryCount + 1) * monthCount > cells.length) {
+                cells = Arrays.copyOf(cells, categoryIds.length * monthCount);
+            }
+            categoryIds[categoryCount] = categoryId;
+            categoryNames[categoryCount] = name;
+            return categoryCount++;
+        }
+
+        /**
+         * Прибавляет сумму в ячейку; месяцы вне диапазона пропускаются
+         */
+        public void add(int row, int monthKey, long kopecks) {
+            int col = MonthKeyCodec.monthsBetween(fromMonthKey, monthKey);
+            if (row < 0 || row >= categoryCount || col < 0 || col >= monthCount) {
+                return;
+            }
+            cells[row * monthCount + col] += kopecks;
+        }
+
+        public SpendMatrix build() {
+            return new SpendMatrix(Arrays.copyOf(categoryIds, categoryCount),
+                    Arrays.copyOf(categoryNames, categoryCount),
+                    fromMonthKey, monthCount,
+                    Arrays.copyOf(cells, categoryCount * monthCount));
+        }
+    }
+}
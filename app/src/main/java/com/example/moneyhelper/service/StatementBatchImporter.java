@@ -0,0 +1,141 @@
+package com.example.moneyhelper.service;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.net.Uri;
+import android.os.CancellationSignal;
+import android.util.Log;
+
+import com.example.moneyhelper.DatabaseHelper;
+import com.example.moneyhelper.parser.SberbankStatementParser;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пакетный импорт нескольких выписок
+ * Файлы разбирают несколько потоков (по одному на ядро), разобранные выписки
+ * проходят через ограниченную очередь, а в БД пишет один поток - тот, что вызвал
+ * importStatements. Если запись не успевает, парсеры ждут места в очереди,
+ * поэтому в памяти одновременно находится ограниченное число выписок.
+ * При отмене файлы, уже записанные целиком, остаются в БД, а текущий откатывается
+ */
+public class StatementBatchImporter {
+    private static final String TAG = "StatementBatchImporter";
+
+    private final Context context;
+    private final DatabaseHelper dbHelper;
+    private final StatementImportService importService;
+    private final int workerCount;
+
+    // Как часто писатель, ожидая очередной файл, проверяет отмену
+    private static final long CANCEL_POLL_MS = 100;
+
+    public StatementBatchImporter(Context context) {
+        this(context, Runtime.getRuntime().availableProcessors());
+    }
+
+    public StatementBatchImporter(Context context, int workerCount) {
+        this.context = context.getApplicationContext();
+        this.dbHelper = DatabaseHelper.getInstance(context);
+        this.importService = new StatementImportService(context);
+        this.workerCount = Math.max(1, workerCount);
+    }
+
+    /**
+     * Импортирует выписки; блокирует вызывающий поток до окончания записи
+     * @param cancellationSignal проверяется между страницами, пачками строк и файлами;
+     *                           может быть null
+     * @param listener получает события прогресса в главном потоке; может быть null
+     */
+    public BatchImportResult importStatements(List<Uri> uris,
+                                              CancellationSignal cancellationSignal,
+                                              ImportProgress.Listener listener) {
+        BatchImportResult batch = new BatchImportResult(uris.size());
+        if (uris.isEmpty()) {
+            return batch;
+        }
+
+        long start = System.currentTimeMillis();
+        ImportProgressReporter progress = new ImportProgressReporter(listener, uris.size());
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        StatementPeriodIndex periodIndex = importService.loadPeriodIndex(db);
+
+        int threads = Math.min(workerCount, uris.size());
+        BlockingQueue<StatementImportService.ParsedStatement> parsedQueue =
+                new ArrayBlockingQueue<>(threads);
+        // Парсер не потокобезопасен - у каждого потока свой
+        ThreadLocal<SberbankStatementParser> parsers =
+                ThreadLocal.withInitial(() -> new SberbankStatementParser(context));
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try {
+            for (Uri uri : uris) {
+                workers.execute(() -> {
+                    // Писатель ждет ровно один результат на файл, поэтому результат кладется
+                    // в очередь всегда. Ошибка создается заранее: при Error (например, OOM)
+                    // на нее может не хватить памяти
+                    StatementImportService.ParsedStatement parsed =
+                            new StatementImportService.ParsedStatement(uri);
+                    parsed.error = "Разбор файла завершился аварийно";
+                    try {
+                        parsed = importService.parseStatement(parsers.get(), uri, periodIndex,
+                                cancellationSignal, progress);
+                    } finally {
+                        try {
+                            parsedQueue.put(parsed);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                });
+            }
+
+            // Единственный писатель: каждая выписка - одна транзакция
+            for (int done = 0; done < uris.size(); done++) {
+                StatementImportService.ParsedStatement parsed = null;
+                while (parsed == null && !isCanceled(cancellationSignal)) {
+                    parsed = parsedQueue.poll(CANCEL_POLL_MS, TimeUnit.MILLISECONDS);
+                }
+                if (parsed == null) {
+                    batch.cancelled = true;
+                    break;
+                }
+
+                StatementImportService.ImportResult result = importService.writeStatement(
+                        db, parsed, periodIndex, cancellationSignal, progress);
+
+                BatchImportResult.FileResult fileResult =
+                        batch.add(parsed.uri, result, parsed.reconciler.getRowCount());
+                batch.elapsedMs = System.currentTimeMillis() - start;
+
+                Log.d(TAG, String.format("Файл %d/%d: %s, строк %d",
+                        done + 1, uris.size(), parsed.uri, fileResult.rowsParsed));
+                if (result.cancelled) {
+                    batch.cancelled = true;
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            batch.error = "Импорт прерван";
+        } finally {
+            workers.shutdownNow();
+            progress.finish();
+        }
+
+        batch.elapsedMs = System.currentTimeMillis() - start;
+        Log.d(TAG, String.format("Пакет: файлов %d, строк %d за %d мс (%.0f строк/с)",
+                batch.getCompletedFiles(), batch.rowsParsed, batch.elapsedMs,
+                batch.getRowsPerSecond()));
+        return batch;
+    }
+
+    private static boolean isCanceled(CancellationSignal cancellationSignal) {
+        return cancellationSignal != null && cancellationSignal.isCanceled();
+    }
+}
@@ -2,7 +2,9 @@ package com.example.moneyhelper.service;
 import static android.webkit.ConsoleMessage.MessageLevel.LOG;
 
 import com.example.moneyhelper.DatabaseHelper;
+import com.example.moneyhelper.parser.BalanceReconciler;
 import com.example.moneyhelper.parser.SberbankStatementParser;
+import com.example.moneyhelper.parser.StatementHeader;
 
 
 
@@ -12,57 +14,224 @@ import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.net.Uri;
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
 import android.util.Log;
 
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 
 public class StatementImportService {
     private static final String TAG = "StatementImportService";
 
+    // Через сколько строк при записи проверять отмену и отправлять прогресс
+    static final int WRITE_BATCH_SIZE = 100;
+
     private final Context context;
     private final DatabaseHelper dbHelper;
     private final SberbankStatementParser parser;
     private final PredictionService predictionService;
+    private final UpcomingExpenseService upcomingExpenseService;
+    private final UserSession session;
+    private final DataVersions versions;
 
     public StatementImportService(Context context) {
         this.context = context;
         this.dbHelper =  DatabaseHelper.getInstance(context);
         this.parser = new SberbankStatementParser(context);
         this.predictionService = new PredictionService(context);
+        this.upcomingExpenseService = new UpcomingExpenseService(context);
+        this.session = UserSession.getInstance(context);
+        this.versions = DataVersions.getInstance();
     }
 
     /**
      * Импортирует выписку из PDF
      */
     public ImportResult importStatement(Uri pdfUri) {
-        ImportResult result = new ImportResult();
+        return importStatement(pdfUri, null, null);
+    }
+
+    /**
+     * Импортирует выписку из PDF с отменой и событиями прогресса
+     * @param cancellationSignal проверяется между страницами и пачками строк;
+     *                           при отмене транзакция откатывается целиком
+     * @param listener получает события в главном потоке
+     */
+    public ImportResult importStatement(Uri pdfUri, CancellationSignal cancellationSignal,
+                                        ImportProgress.Listener listener) {
+        ImportProgressReporter progress = new ImportProgressReporter(listener, 1);
         SQLiteDatabase db = dbHelper.getWritableDatabase();
+        StatementPeriodIndex periodIndex = loadPeriodIndex(db);
+
+        ParsedStatement parsed = parseStatement(parser, pdfUri, periodIndex,
+                cancellationSignal, progress);
+        ImportResult result = writeStatement(db, parsed, periodIndex, cancellationSignal, progress);
+        progress.finish();
+        return result;
+    }
+
+    /**
+     * Разбирает PDF, сверяя остатки по ходу разбора
+     * Если период выписки уже импортирован целиком, разбор останавливается после шапки.
+     * К БД не обращается, поэтому может выполняться параллельно для разных файлов
+     */
+    ParsedStatement parseStatement(SberbankStatementParser parser, Uri pdfUri,
+                                   StatementPeriodIndex periodIndex,
+                                   CancellationSignal cancellationSignal,
+                                   ImportProgressReporter progress) {
+        ParsedStatement parsed = new ParsedStatement(pdfUri);
+        long start = System.nanoTime();
+        // Сколько страниц и строк уже учтено в прогрессе, доля файла в тысячных
+        long[] reported = {0, 0, 0};
 
         try {
-            db.beginTransaction();
+            parsed.transactions = parser.parseStatement(pdfUri, parsed.reconciler,
+                    new SberbankStatementParser.Listener() {
+                        @Override
+                        public boolean onHeader(StatementHeader header) {
+                            if (!header.isComplete()) {
+                                return true;
+                            }
+                            parsed.header = header;
+                            synchronized (periodIndex) {
+                                parsed.alreadyImported = periodIndex.uncovered(header.account,
+                                        StatementPeriodIndex.toEpochDay(header.periodFrom),
+                                        StatementPeriodIndex.toEpochDay(header.periodTo)).isEmpty();
+                            }
+                            if (parsed.alreadyImported) {
+                                Log.d(TAG, "Период выписки уже импортирован: " + header);
+                            }
+                            return !parsed.alreadyImported;
+                        }
+
+                        @Override
+                        public void onPage(int pageNo, int pageCount, int rowCount) {
+                            if (reported[0] == 0) {
+                                progress.onFileOpened(pageCount);
+                            }
+                            int pages = (int) (pageNo - reported[0]);
+                            int rows = (int) (rowCount - reported[1]);
+                            progress.onPagesExtracted(pages, rows, pageCount);
+                            reported[0] = pageNo;
+                            reported[1] = rowCount;
+                            reported[2] += pages * 1000L / pageCount;
+                        }
+                    }, cancellationSignal);
+        } catch (OperationCanceledException e) {
+            Log.d(TAG, "Разбор отменен: " + pdfUri);
+            parsed.cancelled = true;
+        } catch (Exception e) {
+            Log.e(TAG, "Ошибка разбора выписки", e);
+            parsed.error = e.getMessage() != null ? e.getMessage() : e.toString();
+        }
+
+        // Последняя строка отдается после последней страницы
+        progress.onPagesExtracted(0, (int) (parsed.reconciler.getRowCount() - reported[1]), 0);
+        progress.onFileParsed(reported[2], System.nanoTime() - start);
+        return parsed;
+    }
+
+    /**
+     * Записывает разобранную выписку в БД одной транзакцией
+     */
+    ImportResult writeStatement(SQLiteDatabase db, ParsedStatement parsed,
+                                StatementPeriodIndex periodIndex,
+                                CancellationSignal cancellationSignal,
+                                ImportProgressReporter progress) {
+        ImportResult result = new ImportResult();
+        if (parsed.cancelled || parsed.error != null) {
+            result.cancelled = parsed.cancelled;
+            result.error = parsed.error;
+            progress.onFileWritten();
+            return result;
+        }
 
-            // 1. Парсим PDF
-            List<SberbankStatementParser.Transaction> transactions =
-                    parser.parseStatement(pdfUri);
+        List<SberbankStatementParser.Transaction> transactions = parsed.transactions;
+        BalanceReconciler reconciler = parsed.reconciler;
+        StatementHeader header = parsed.header;
+
+        result.statementAlreadyImported = parsed.alreadyImported;
+        result.totalTransactions = transactions.size();
+        result.balanceChecked = reconciler.getCheckedCount();
+        result.balanceGapCount = reconciler.getGapCount();
+        result.balanceGaps.addAll(reconciler.getGaps());
+
+        // Покрытие пересчитываем при записи: в пакетном импорте
+        // предыдущие файлы могли закрыть часть этого периода
+        List<StatementPeriodIndex.Range> uncovered = new ArrayList<>();
+        int periodFromDay = 0;
+        int periodToDay = -1;
+        if (header != null) {
+            periodFromDay = StatementPeriodIndex.toEpochDay(header.periodFrom);
+            periodToDay = StatementPeriodIndex.toEpochDay(header.periodTo);
+            synchronized (periodIndex) {
+                uncovered.addAll(periodIndex.uncovered(header.account, periodFromDay, periodToDay));
+            }
+        }
 
-            result.totalTransactions = transactions.size();
+        // Продавцы с новыми расходами - для них пересчитываются регулярные платежи
+        Set<Long> touchedMerchants = new HashSet<>();
+        // Месяцы с новыми строками - для уведомления экранов после коммита
+        Set<Integer> touchedMonths = new HashSet<>();
+        // Пользователь и его категории берутся из сессии один раз на файл
+        long userId = session.getUserId();
+        Map<Long, Long> userCategoryIds = getUserCategoryIds();
+        boolean categoriesCreated = false;
+        boolean committed = false;
+        try {
+            db.beginTransaction();
 
-            // 2. Получаем или создаем категории пользователя
+            // 1. Получаем или создаем категории пользователя
             Map<String, Long> categoryMap = getCategoryMap(db);
+            // Кэш справочника живет в пределах транзакции: при откате id продавцов пропадут
+            MerchantDictionary merchants = new MerchantDictionary();
+
+            // 2. Импортируем транзакции пачками, между пачками проверяем отмену
+            int batchRows = 0;
+            int batchDuplicates = 0;
+            long dedupNanos = 0;
+            long batchStart = System.nanoTime();
 
-            // 3. Импортируем транзакции
             for (SberbankStatementParser.Transaction transaction : transactions) {
+                if (batchRows == WRITE_BATCH_SIZE) {
+                    long elapsed = System.nanoTime() - batchStart;
+                    progress.onRowsDeduped(batchDuplicates, dedupNanos);
+                    progress.onRowsWritten(batchRows - batchDuplicates, elapsed - dedupNanos);
+                    if (cancellationSignal != null) {
+                        cancellationSignal.throwIfCanceled();
+                    }
+                    batchRows = 0;
+                    batchDuplicates = 0;
+                    dedupNanos = 0;
+                    batchStart = System.nanoTime();
+                }
+                batchRows++;
+
+                // Дни из уже импортированных периодов пропускаем без запросов к БД.
+                // Строки вне периода из шапки индекс не описывает - их проверяет isDuplicate
+                long dedupStart = System.nanoTime();
+                int day = StatementPeriodIndex.toEpochDay(transaction.date);
+                boolean covered = day >= periodFromDay && day <= periodToDay
+                        && !StatementPeriodIndex.contains(uncovered, day);
+
                 // Проверяем, не импортирована ли уже эта транзакция
-                if (isDuplicate(db, transaction)) {
+                boolean duplicate = covered || isDuplicate(db, transaction);
+                dedupNanos += System.nanoTime() - dedupStart;
+
+                if (duplicate) {
                     result.duplicateTransactions++;
+                    if (covered) {
+                        result.coveredTransactions++;
+                    }
+                    batchDuplicates++;
                     continue;
                 }
 
@@ -70,15 +239,28 @@ public class StatementImportService {
                 if (categoryId == null) {
                     // Создаем новую категорию
                     Log.d(TAG,"Create category: " + transaction.category + "Tx: " + transaction.toString());
-                    categoryId = createCategory(db, transaction.category);
+                    categoryId = createCategory(db, userId, transaction.category);
                     categoryMap.put(transaction.category, categoryId);
+                    categoriesCreated = true;
                 }
 
                 // Получаем user_cat_id
-                long userCatId = getUserCategoryId(db, categoryId);
+                Long userCatId = userCategoryIds.get(categoryId);
+                if (userCatId == null) {
+                    userCatId = getUserCategoryId(db, userId, categoryId);
+                    userCategoryIds.put(categoryId, userCatId);
+                }
 
                 // Добавляем транзакцию (расход или доход)
-                long expenseId = insertExpense(db, userCatId, transaction);
+                // Без продавца merchant_id остается пустым: категория банка продавцом не считается
+                long merchantId = merchants.getOrCreate(db, transaction.merchant);
+                long expenseId = insertExpense(db, userCatId, merchantId, transaction);
+                if (expenseId > 0 && merchantId > 0 && !transaction.isIncome) {
+                    touchedMerchants.add(merchantId);
+                }
+                if (expenseId > 0) {
+                    touchedMonths.add(MonthKeyCodec.fromDate(transaction.date));
+                }
 
                 if (expenseId > 0) {
                     result.importedTransactions++;
@@ -88,23 +270,100 @@ public class StatementImportService {
                 }
             }
 
+            if (cancellationSignal != null) {
+                cancellationSignal.throwIfCanceled();
+            }
+            long elapsed = System.nanoTime() - batchStart;
+            progress.onRowsDeduped(batchDuplicates, dedupNanos);
+            progress.onRowsWritten(batchRows - batchDuplicates, elapsed - dedupNanos);
+
+            // Период запоминаем, только если остатки сошлись:
+            // иначе пропущенные строки нельзя будет доимпортировать
+            boolean savePeriod = header != null && !parsed.alreadyImported
+                    && reconciler.isConsistent();
+            if (savePeriod) {
+                savePeriod(db, header);
+            }
+
             db.setTransactionSuccessful();
+            committed = true;
+
+            if (savePeriod) {
+                synchronized (periodIndex) {
+                    periodIndex.add(header.account,
+                            StatementPeriodIndex.toEpochDay(header.periodFrom),
+                            StatementPeriodIndex.toEpochDay(header.periodTo));
+                }
+            }
 
-            // 4. Проверяем, нужно ли создавать прогнозы
+            // 3. Проверяем, нужно ли создавать прогнозы
 //            if (shouldCreatePredictions(db)) {
 //                result.predictionsCreated = predictionService.createMonthlyPredictions();
 //            }
 
+        } catch (OperationCanceledException e) {
+            // Транзакция не помечена успешной - все строки файла откатываются
+            Log.d(TAG, "Импорт отменен, изменения откатываются: " + parsed.uri);
+            result.cancelled = true;
+            result.importedTransactions = 0;
         } catch (Exception e) {
             Log.e(TAG, "Ошибка импорта выписки", e);
             result.error = e.getMessage();
         } finally {
             db.endTransaction();
+            if (categoriesCreated) {
+                versions.bump(DataVersions.Table.CATEGORIES);
+            }
         }
 
+        if (committed) {
+            versions.bumpMonths(touchedMonths);
+        }
+
+        if (committed && !touchedMerchants.isEmpty()) {
+            try {
+                upcomingExpenseService.refreshMerchants(touchedMerchants);
+            } catch (Exception e) {
+                Log.e(TAG, "Ошибка пересчета регулярных платежей", e);
+            }
+        }
+
+        progress.onFileWritten();
         return result;
     }
 
+    /**
+     * Загружает индекс импортированных периодов выписок
+     */
+    StatementPeriodIndex loadPeriodIndex(SQLiteDatabase db) {
+        StatementPeriodIndex index = new StatementPeriodIndex();
+
+        Cursor cursor = db.query(
+                "statement_periods",
+                new String[]{"account", "day_from", "day_to"},
+                null, null, null, null, null
+        );
+
+        while (cursor.moveToNext()) {
+            index.add(cursor.getString(0), cursor.getInt(1), cursor.getInt(2));
+        }
+        cursor.close();
+
+        return index;
+    }
+
+    /**
+     * Запоминает период импортированной выписки
+     */
+    private void savePeriod(SQLiteDatabase db, StatementHeader header) {
+        ContentValues values = new ContentValues();
+        values.put("account", header.account);
+        values.put("day_from", StatementPeriodIndex.toEpochDay(header.periodFrom));
+        values.put("day_to", StatementPeriodIndex.toEpochDay(header.periodTo));
+        values.put("imported_at", System.currentTimeMillis());
+        db.insert("statement_periods", null, values);
+    }
+
     /**
      * Получает маппинг категорий
      */
@@ -130,7 +389,7 @@ public class StatementImportService {
     /**
      * Создает новую категорию
      */
-    private long createCategory(SQLiteDatabase db, String categoryName) {
+    private long createCategory(SQLiteDatabase db, long userId, String categoryName) {
         ContentValues values = new ContentValues();
         values.put("name", categoryName);
         Log.d(TAG, "Create category: " + categoryName);
@@ -139,8 +398,6 @@ public class StatementImportService {
         long categoryId = db.insert("categories", null, values);
 
         // Создаем запись в user_categories для текущего пользователя
-        long userId = getCurrentUserId(db);
-
         ContentValues userCatValues = new ContentValues();
         userCatValues.put("user_id", userId);
         userCatValues.put("cat_id", categoryId);
@@ -153,11 +410,24 @@ public class StatementImportService {
     }
 
     /**
-     * Получает user_category_id
+     * user_category_id по id категории из справочника сессии
+     * При нескольких записях на одну категорию берется первая, как в запросе
      */
-    private long getUserCategoryId(SQLiteDatabase db, long categoryId) {
-        long userId = getCurrentUserId(db);
+    private Map<Long, Long> getUserCategoryIds() {
+        Map<Long, Long> map = new HashMap<>();
+        for (UserSession.CategoryInfo info : session.getCategories()) {
+            Long existing = map.get(info.categoryId);
+            if (existing == null || info.userCategoryId < existing) {
+                map.put(info.categoryId, info.userCategoryId);
+            }
+        }
+        return map;
+    }
 
+    /**
+     * Получает user_category_id
+     */
+    private long getUserCategoryId(SQLiteDatabase db, long userId, long categoryId) {
         Cursor cursor = db.query(
                 "user_categories",
                 new String[]{"id"},
@@ -178,7 +448,7 @@ public class StatementImportService {
     /**
      * Добавляет транзакцию (расход или доход) в БД
      */
-    private long insertExpense(SQLiteDatabase db, long userCatId,
+    private long insertExpense(SQLiteDatabase db, long userCatId, long merchantId,
                                SberbankStatementParser.Transaction transaction) {
 
         // Получаем date_id для месяца транзакции
@@ -196,6 +466,11 @@ public class StatementImportService {
         values.put("date_id", dateId);
         values.put("transaction_id", transactionId);
         values.put("is_income", transaction.isIncome ? 1 : 0); // 0 - расход, 1 - доход
+        values.put("tx_day", MonthKeyCodec.epochDay(transaction.date.getTime()));
+        values.put("month_key", MonthKeyCodec.fromDate(transaction.date));
+        if (merchantId > 0) {
+            values.put("merchant_id", merchantId);
+        }
 
         return db.insert("monthly_expenses", null, values);
     }
@@ -226,8 +501,7 @@ public class StatementImportService {
         }
 
         // Fallback: проверка по дате и сумме
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        String dateStr = dateFormat.format(transaction.date);
+        String dateStr = MonthKeyCodec.formatIsoDay(MonthKeyCodec.epochDay(transaction.date.getTime()));
 
         Cursor cursor = db.rawQuery(
                 "SELECT COUNT(*) FROM monthly_expenses me " +
@@ -249,15 +523,8 @@ public class StatementImportService {
      * Получает или создает date_id для месяца
      */
     private long getOrCreateDateId(SQLiteDatabase db, Date transactionDate) {
-        Calendar cal = Calendar.getInstance();
-        cal.setTime(transactionDate);
-
-        // Устанавливаем 1 число месяца
-        cal.set(Calendar.DAY_OF_MONTH, 1);
-
-//        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        SimpleDateFormat dateFormat = new SimpleDateFormat("dd.MM.yyyy", Locale.getDefault());
-        String dateStr = dateFormat.format(cal.getTime());
+        // Первое число месяца
+        String dateStr = MonthKeyCodec.toLegacyString(MonthKeyCodec.fromDate(transactionDate));
 
         // Ищем существующую запись
         Cursor cursor = db.query(
@@ -304,21 +571,6 @@ public class StatementImportService {
         return monthCount > 1;
     }
 
-    /**
-     * Получает ID текущего пользователя
-     */
-    private long getCurrentUserId(SQLiteDatabase db) {
-        // В вашей реализации может быть SharedPreferences или другой механизм
-        // Пока возвращаем первого пользователя
-        Cursor cursor = db.query("users", new String[]{"id"}, null, null, null, null, null, "1");
-        long userId = 1;
-        if (cursor.moveToFirst()) {
-            userId = cursor.getLong(0);
-        }
-        cursor.close();
-        return userId;
-    }
-
     /**
      * Возвращает иконку по умолчанию для категории
      */
@@ -337,6 +589,23 @@ public class StatementImportService {
 
 
 
+    /**
+     * Выписка после разбора, до записи в БД
+     */
+    static class ParsedStatement {
+        final Uri uri;
+        final BalanceReconciler reconciler = new BalanceReconciler();
+        List<SberbankStatementParser.Transaction> transactions = new ArrayList<>();
+        StatementHeader header;
+        boolean alreadyImported;
+        boolean cancelled;
+        String error;
+
+        ParsedStatement(Uri uri) {
+            this.uri = uri;
+        }
+    }
+
     /**
      * Результат импорта
      */
@@ -344,19 +613,40 @@ public class StatementImportService {
         public int totalTransactions;
         public int importedTransactions;
         public int duplicateTransactions;
+        public int coveredTransactions;
+        public boolean statementAlreadyImported;
+        public boolean cancelled;
         public int skippedTransactions;
         public int predictionsCreated;
+        public int balanceChecked;
+        public int balanceGapCount;
+        public final List<BalanceReconciler.Gap> balanceGaps = new ArrayList<>();
         public String error;
 
         public boolean isSuccess() {
             return error == null;
         }
 
+        /**
+         * Все соседние строки выписки сошлись по остатку
+         */
+        public boolean isBalanceConsistent() {
+            return balanceGapCount == 0;
+        }
+
         public String getMessage() {
             if (!isSuccess()) {
                 return "Ошибка: " + error;
             }
 
+            if (cancelled) {
+                return "Импорт отменен, изменения не сохранены";
+            }
+
+            if (statementAlreadyImported) {
+                return "Выписка за этот период уже импортирована";
+            }
+
             StringBuilder sb = new StringBuilder();
             sb.append("Импорт завершен!\n");
             sb.append("Всего транзакций: ").append(totalTransactions).append("\n");
@@ -371,7 +661,15 @@ public class StatementImportService {
             }
 
             if (predictionsCreated > 0) {
-                sb.append("Создано прогнозов: ").append(predictionsCreated);
+                sb.append("Создано прогнозов: ").append(predictionsCreated).append("\n");
+            }
+
+            if (balanceGapCount > 0) {
+                sb.append("Расхождений остатка: ").append(balanceGapCount)
+                        .append(" - возможно, часть операций не распознана\n");
+                for (BalanceReconciler.Gap gap : balanceGaps.subList(0, Math.min(3, balanceGaps.size()))) {
+                    sb.append("  ").append(gap).append("\n");
+                }
             }
 
             return sb.toString();
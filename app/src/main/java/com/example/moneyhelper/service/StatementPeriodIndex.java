@@ -0,0 +1,129 @@
+package com.example.moneyhelper.service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Индекс уже импортированных периодов выписок по счетам
+ * Хранит непересекающиеся отрезки дней (смежные и пересекающиеся склеиваются),
+ * поэтому проверка даты или периода не зависит от количества импортов
+ */
+public class StatementPeriodIndex {
+
+    // ключ счета (StatementHeader.account) -> (первый день отрезка -> последний день отрезка)
+    private final Map<String, TreeMap<Integer, Integer>> rangesByAccount = new HashMap<>();
+
+    /**
+     * Добавляет покрытый период, склеивая его с соседними
+     */
+    public void add(String account, int fromDay, int toDay) {
+        if (fromDay > toDay) {
+            return;
+        }
+        TreeMap<Integer, Integer> ranges = rangesByAccount.get(account);
+        if (ranges == null) {
+            ranges = new TreeMap<>();
+            rangesByAccount.put(account, ranges);
+        }
+
+        // Отрезок слева, который пересекается или касается нового
+        Map.Entry<Integer, Integer> left = ranges.floorEntry(fromDay);
+        if (left != null && left.getValue() >= fromDay - 1) {
+            fromDay = left.getKey();
+            toDay = Math.max(toDay, left.getValue());
+            ranges.remove(left.getKey());
+        }
+
+        // Поглощаем все отрезки, начинающиеся внутри нового
+        Map.Entry<Integer, Integer> next = ranges.ceilingEntry(fromDay);
+        while (next != null && next.getKey() <= toDay + 1) {
+            toDay = Math.max(toDay, next.getValue());
+            ranges.remove(next.getKey());
+            next = ranges.ceilingEntry(fromDay);
+        }
+
+        ranges.put(fromDay, toDay);
+    }
+
+    /**
+     * Покрыт ли день уже импортированной выпиской
+     */
+    public boolean isCovered(String account, int day) {
+        TreeMap<Integer, Integer> ranges = rangesByAccount.get(account);
+        if (ranges == null) {
+            return false;
+        }
+        Map.Entry<Integer, Integer> range = ranges.floorEntry(day);
+        return range != null && range.getValue() >= day;
+    }
+
+    /**
+     * Части периода [fromDay, toDay], которые еще не импортированы
+     * Пустой список - период покрыт целиком
+     */
+    public List<Range> uncovered(String account, int fromDay, int toDay) {
+        List<Range> result = new ArrayList<>();
+        TreeMap<Integer, Integer> ranges = rangesByAccount.get(account);
+        if (ranges == null) {
+            result.add(new Range(fromDay, toDay));
+            return result;
+        }
+
+        int cursor = fromDay;
+        Map.Entry<Integer, Integer> range = ranges.floorEntry(fromDay);
+        if (range == null || range.getValue() < fromDay) {
+            range = ranges.higherEntry(fromDay);
+        }
+
+        while (range != null && range.getKey() <= toDay && cursor <= toDay) {
+            if (range.getKey() > cursor) {
+                result.add(new Range(cursor, range.getKey() - 1));
+            }
+            cursor = Math.max(cursor, range.getValue() + 1);
+            range = ranges.higherEntry(range.getKey());
+        }
+
+        if (cursor <= toDay) {
+            result.add(new Range(cursor, toDay));
+        }
+        return result;
+    }
+
+    /**
+     * Попадает ли день в один из отрезков
+     * Отрезков у одной выписки единицы, поэтому проверка строки почти бесплатна
+     */
+    public static boolean contains(List<Range> ranges, int day) {
+        for (int i = 0; i < ranges.size(); i++) {
+            Range range = ranges.get(i);
+            if (day >= range.fromDay && day <= range.toDay) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Номер календарного дня (по локальной дате) начиная с 01.01.1970
+     */
+    public static int toEpochDay(Date date) {
+        return MonthKeyCodec.epochDay(date.getTime());
+    }
+
+    /**
+     * Отрезок дней включительно
+     */
+    public static class Range {
+        public final int fromDay;
+        public final int toDay;
+
+        public Range(int fromDay, int toDay) {
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+        }
+    }
+}
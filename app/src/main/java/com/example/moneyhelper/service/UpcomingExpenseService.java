@@ -0,0 +1,180 @@
+package com.example.moneyhelper.service;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import com.example.moneyhelper.DataTypes.UpcomingExpense;
+import com.example.moneyhelper.DatabaseHelper;
+import com.example.moneyhelper.predict.RecurringPaymentDetector;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Ожидаемые регулярные платежи
+ * Детектор прогоняется по истории, результат хранится в upcoming_expenses.
+ * После импорта пересчитываются только продавцы, по которым пришли новые операции
+ */
+public class UpcomingExpenseService {
+    private static final String TAG = "UpcomingExpenseService";
+
+    // Расходы текущего пользователя с известным продавцом и днем
+    private static final String CHARGES_QUERY =
+            "SELECT me.merchant_id, me.user_cat_id, me.tx_day, me.expenses " +
+                    "FROM monthly_expenses me " +
+                    "JOIN user_categories uc ON me.user_cat_id = uc.id " +
+                    "WHERE uc.user_id = ? " +
+                    "AND me.merchant_id IS NOT NULL AND me.tx_day IS NOT NULL " +
+                    "AND COALESCE(me.is_income, 0) = 0";
+    // Строки upcoming_expenses текущего пользователя
+    private static final String USER_FILTER =
+            "user_cat_id IN (SELECT id FROM user_categories WHERE user_id = ?)";
+
+    private final DatabaseHelper dbHelper;
+    private final UserSession session;
+    private final RecurringPaymentDetector detector = new RecurringPaymentDetector();
+
+    public UpcomingExpenseService(Context context) {
+        this.dbHelper = DatabaseHelper.getInstance(context);
+        this.session = UserSession.getInstance(context);
+    }
+
+    /**
+     * Полный пересчет по всей истории текущего пользователя
+     * @return количество найденных регулярных платежей
+     */
+    public int rebuild() {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        long start = System.currentTimeMillis();
+        String[] userArgs = {String.valueOf(session.getUserId())};
+
+        List<RecurringPaymentDetector.Charge> charges = loadCharges(db, CHARGES_QUERY, userArgs);
+        List<RecurringPaymentDetector.RecurringPayment> payments =
+                detector.detect(charges, today());
+
+        db.beginTransaction();
+        try {
+            db.delete("upcoming_expenses", USER_FILTER, userArgs);
+            insertPayments(db, payments);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+
+        DataVersions.getInstance().bump(DataVersions.Table.UPCOMING);
+
+        Log.d(TAG, String.format("Пересчет: %d операций, %d регулярных платежей за %d мс",
+                charges.size(), payments.size(), System.currentTimeMillis() - start));
+        return payments.size();
+    }
+
+    /**
+     * Пересчет только для указанных продавцов - после импорта
+     */
+    public void refreshMerchants(Collection<Long> merchantIds) {
+        if (merchantIds.isEmpty()) {
+            return;
+        }
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+
+        StringBuilder in = new StringBuilder();
+        for (Long id : merchantIds) {
+            if (in.length() > 0) in.append(',');
+            in.append(id.longValue());
+        }
+        String merchantFilter = "merchant_id IN (" + in + ")";
+        String[] userArgs = {String.valueOf(session.getUserId())};
+
+        List<RecurringPaymentDetector.Charge> charges =
+                loadCharges(db, CHARGES_QUERY + " AND me." + merchantFilter, userArgs);
+        List<RecurringPaymentDetector.RecurringPayment> payments =
+                detector.detect(charges, today());
+
+        db.beginTransaction();
+        try {
+            db.delete("upcoming_expenses", merchantFilter + " AND " + USER_FILTER, userArgs);
+            insertPayments(db, payments);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        DataVersions.getInstance().bump(DataVersions.Table.UPCOMING);
+
+        Log.d(TAG, String.format("Обновлено продавцов: %d, регулярных платежей: %d",
+                merchantIds.size(), payments.size()));
+    }
+
+    /**
+     * Ближайшие ожидаемые списания текущего пользователя
+     * Ошибки БД не перехватываются: их показывает вызывающий экран
+     */
+    public List<UpcomingExpense> getUpcomingExpenses(int limit) {
+        List<UpcomingExpense> result = new ArrayList<>();
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+
+        String query =
+                "SELECT ue.id, m.name, ue.amount, ue.next_day, ue.period_days, ue.occurrences " +
+                        "FROM upcoming_expenses ue " +
+                        "JOIN merchants m ON ue.merchant_id = m.id " +
+                        "JOIN user_categories uc ON ue.user_cat_id = uc.id " +
+                        "WHERE uc.user_id = ? AND ue.next_day >= ? " +
+                        "ORDER BY ue.next_day " +
+                        "LIMIT ?";
+
+        try (Cursor cursor = db.rawQuery(query,
+                new String[]{String.valueOf(session.getUserId()),
+                        String.valueOf(today() - 3), String.valueOf(limit)})) {
+            while (cursor.moveToNext()) {
+                long id = cursor.getLong(0);
+                String title = cursor.getString(1);
+                int amount = (int) Math.round(cursor.getLong(2) / 100.0);
+                String date = MonthKeyCodec.formatDay(cursor.getInt(3));
+                String period = cursor.getInt(4) == RecurringPaymentDetector.PERIOD_WEEKLY
+                        ? "Еженедельно" : "Ежемесячно";
+                String note = period + ", списаний: " + cursor.getInt(5);
+                result.add(new UpcomingExpense(id, title, amount, date, note));
+            }
+        }
+
+        return result;
+    }
+
+    private List<RecurringPaymentDetector.Charge> loadCharges(SQLiteDatabase db, String query,
+                                                              String[] args) {
+        List<RecurringPaymentDetector.Charge> charges = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery(query, args)) {
+            while (cursor.moveToNext()) {
+                charges.add(new RecurringPaymentDetector.Charge(
+                        cursor.getLong(0),
+                        cursor.getLong(1),
+                        cursor.getInt(2),
+                        Math.round(cursor.getDouble(3) * 100)));
+            }
+        }
+        return charges;
+    }
+
+    private void insertPayments(SQLiteDatabase db,
+                                List<RecurringPaymentDetector.RecurringPayment> payments) {
+        ContentValues values = new ContentValues();
+        for (RecurringPaymentDetector.RecurringPayment payment : payments) {
+            values.clear();
+            values.put("merchant_id", payment.merchantId);
+            values.put("user_cat_id", payment.userCategoryId);
+            values.put("amount", payment.amountKopecks);
+            values.put("period_days", payment.periodDays);
+            values.put("occurrences", payment.occurrences);
+            values.put("last_day", payment.lastDay);
+            values.put("next_day", payment.nextDay);
+            db.insert("upcoming_expenses", null, values);
+        }
+    }
+
+    private static int today() {
+        return MonthKeyCodec.epochDay(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.moneyhelper.service;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import com.example.moneyhelper.DataTypes.Category;
+import com.example.moneyhelper.DatabaseHelper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Контекст текущего пользователя
+ * id пользователя определяется один раз за процесс, справочник его категорий
+ * (user_categories + categories) кэшируется до первой записи в категории:
+ * снимок перечитывается, когда меняется версия CATEGORIES в DataVersions
+ */
+public final class UserSession {
+
+    private static final String TAG = "UserSession";
+
+    private static volatile UserSession instance;
+
+    private final DatabaseHelper dbHelper;
+    private final DataVersions versions;
+
+    private volatile long userId = -1;
+
+    private volatile CategorySnapshot categories;
+
+    private UserSession(Context context) {
+        this.dbHelper = DatabaseHelper.getInstance(context);
+        this.versions = DataVersions.getInstance();
+    }
+
+    public static UserSession getInstance(Context context) {
+        if (instance == null) {
+            synchronized (UserSession.class) {
+                if (instance == null) {
+                    instance = new UserSession(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * ID текущего пользователя
+     * TODO: Заменить на реальную логику получения текущего пользователя
+     */
+    public long getUserId() {
+        long id = userId;
+        if (id < 0) {
+            synchronized (this) {
+                id = userId;
+                if (id < 0) {
+                    id = loadUserId();
+                    userId = id;
+                }
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Категории пользователя, отсортированные по имени (список неизменяемый)
+     */
+    public List<CategoryInfo> getCategories() {
+        return snapshot().list;
+    }
+
+    /**
+     * Категория пользователя по id из user_categories или null
+     */
+    public CategoryInfo getCategory(long userCategoryId) {
+        return snapshot().byId.get(userCategoryId);
+    }
+
+    private CategorySnapshot snapshot() {
+        long version = versions.getVersion(DataVersions.Table.CATEGORIES);
+        CategorySnapshot snapshot = categories;
+        if (snapshot != null && snapshot.version == version) {
+            return snapshot;
+        }
+
+        // Версия взята до запроса: запись во время загрузки вызовет еще одну
+        snapshot = loadCategories(getUserId(), version);
+        categories = snapshot;
+        return snapshot;
+    }
+
+    private long loadUserId() {
+        // Пока возвращаем первого пользователя
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        try (Cursor cursor = db.query("users", new String[]{"id"},
+                null, null, null, null, null, "1")) {
+            if (cursor.moveToFirst()) {
+                return cursor.getLong(0);
+            }
+        }
+        return 1; // Fallback
+    }
+
+    private CategorySnapshot loadCategories(long userId, long version) {
+        List<CategoryInfo> list = new ArrayList<>();
+        Map<Long, CategoryInfo> byId = new HashMap<>();
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+
+        String query =
+                "SELECT uc.id, uc.cat_id, uc.name, c.icon, uc.fixed " +
+                        "FROM user_categories uc " +
+                        "JOIN categories c ON uc.cat_id = c.id " +
+                        "WHERE uc.user_id = ? " +
+                        "ORDER BY uc.name";
+
+        try (Cursor cursor = db.rawQuery(query, new String[]{String.valueOf(userId)})) {
+            while (cursor.moveToNext()) {
+                CategoryInfo info = new CategoryInfo(
+                        cursor.getLong(0),
+                        cursor.getLong(1),
+                        cursor.getString(2),
+                        cursor.getString(3),
+                        cursor.getInt(4) == 1);
+                list.add(info);
+                byId.put(info.userCategoryId, info);
+            }
+        }
+
+        Log.d(TAG, String.format("Загружен справочник: %d категорий", list.size()));
+        return new CategorySnapshot(Collections.unmodifiableList(list), byId, version);
+    }
+
+    /**
+     * Неизменяемые данные категории пользователя
+     */
+    public static final class CategoryInfo {
+        public final long userCategoryId;
+        public final long categoryId;
+        public final String name;
+        public final String icon;
+        public final boolean fixed;
+
+        CategoryInfo(long userCategoryId, long categoryId, String name, String icon,
+                     boolean fixed) {
+            this.userCategoryId = userCategoryId;
+            this.categoryId = categoryId;
+            this.name = name;
+            this.icon = icon;
+            this.fixed = fixed;
+        }
+
+        /**
+         * Новая модель категории с нулевыми суммами
+         */
+        public Category toCategory() {
+            return new Category(userCategoryId, categoryId, name, icon, fixed, 0, 0);
+        }
+    }
+
+    private static final class CategorySnapshot {
+        final List<CategoryInfo> list;
+        final Map<Long, CategoryInfo> byId;
+        final long version;
+
+        CategorySnapshot(List<CategoryInfo> list, Map<Long, CategoryInfo> byId, long version) {
+            this.list = list;
+            this.byId = byId;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.moneyhelper;
+
+import com.example.moneyhelper.DataTypes.Category;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+public class CategoryRowModelTest {
+
+    private Locale previous;
+
+    @Before
+    public void setLocale() {
+        previous = Locale.getDefault();
+        Locale.setDefault(Locale.US);
+    }
+
+    @After
+    public void restoreLocale() {
+        Locale.setDefault(previous);
+    }
+
+    @Test
+    public void overBudget_isRedWithFullProgress() {
+        CategoryRowModel row = CategoryRowModel.of(
+                new Category(7, 1, "Кафе", "☕", false, 1500, 1000));
+
+        assertEquals(7, row.userCategoryId);
+        assertEquals("1500 ₽", row.expenseText);
+        assertEquals("150%", row.percentText);
+        assertEquals(CategoryRowModel.COLOR_RED, row.percentColor);
+        assertEquals("Бюджет: 1000 ₽", row.budgetText);
+        assertEquals("+500 ₽", row.differenceText);
+        assertEquals(CategoryRowModel.COLOR_RED, row.differenceColor);
+        assertEquals(100, row.progress);
+        assertEquals(CategoryRowModel.COLOR_RED, row.progressColor);
+    }
+
+    @Test
+    public void thresholds_matchPreviousBindColors() {
+        CategoryRowModel near = CategoryRowModel.of(
+                new Category(1, 1, "Еда", "🍞", false, 850, 1000));
+        assertEquals(CategoryRowModel.COLOR_GREEN, near.percentColor);
+        assertEquals(CategoryRowModel.COLOR_ORANGE, near.progressColor);
+        assertEquals("-150 ₽", near.differenceText);
+        assertEquals(CategoryRowModel.COLOR_GREEN, near.differenceColor);
+
+        CategoryRowModel exact = CategoryRowModel.of(
+                new Category(1, 1, "Еда", "🍞", false, 1000, 1000));
+        assertEquals(CategoryRowModel.COLOR_YELLOW, exact.percentColor);
+        assertEquals("±0 ₽", exact.differenceText);
+    }
+
+    @Test
+    public void noBudget_hidesBudgetViews_andEqualityIgnoresSourceObject() {
+        CategoryRowModel row = CategoryRowModel.of(
+                new Category(3, 2, "Такси", "🚕", true, 400, 0));
+        assertFalse(row.hasBudget);
+        assertEquals("", row.percentText);
+        assertNull(row.budgetText);
+        assertNull(row.differenceText);
+
+        CategoryRowModel same = CategoryRowModel.of(
+                new Category(3, 2, "Такси", "🚕", true, 400.2, 0));
+        assertEquals(row, same);
+        assertNotEquals(row, CategoryRowModel.of(
+                new Category(3, 2, "Такси", "🚕", true, 450, 0)));
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.moneyhelper.concurrent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class TaskScopeTest {
+
+    // Фоновые задачи и главный поток выполняются вручную по очереди
+    private final List<Runnable> background = new ArrayList<>();
+    private final List<Runnable> main = new ArrayList<>();
+    private final Executor backgroundExecutor = background::add;
+    private final TaskScope scope =
+            new TaskScope("test", backgroundExecutor, backgroundExecutor, main::add);
+
+    @Test
+    public void result_isDeliveredOnMain() {
+        List<String> results = new ArrayList<>();
+        scope.launch("load", () -> "данные", results::add);
+
+        run(background);
+        assertTrue(results.isEmpty());
+        run(main);
+        assertEquals(1, results.size());
+        assertEquals("данные", results.get(0));
+    }
+
+    @Test
+    public void cancelledScope_skipsQueuedTasks_andDropsResults() {
+        int[] calls = new int[1];
+        List<Object> results = new ArrayList<>();
+        scope.launch("queued", () -> {
+            calls[0]++;
+            return 1;
+        }, results::add);
+        scope.launch("running", () -> 2, results::add);
+
+        // Вторая задача успела выполниться, но экран закрыт до доставки
+        background.remove(1).run();
+        scope.cancel();
+        run(background);
+        run(main);
+
+        assertEquals(0, calls[0]);
+        assertTrue(results.isEmpty());
+        assertFalse(scope.isActive());
+        assertTrue(scope.launch("late", () -> 3, results::add).isCancelled());
+        assertTrue(background.isEmpty());
+    }
+
+    @Test
+    public void write_runsAfterCancel_butResultIsDropped() {
+        int[] writes = new int[1];
+        List<Object> results = new ArrayList<>();
+        scope.launchWrite("save", () -> ++writes[0], results::add);
+
+        scope.cancel();
+        run(background);
+        run(main);
+
+        assertEquals(1, writes[0]);
+        assertTrue(results.isEmpty());
+    }
+
+    @Test
+    public void error_isDeliveredToErrorCallback() {
+        List<Exception> errors = new ArrayList<>();
+        scope.launch("fail", () -> {
+            throw new IllegalStateException("нет данных");
+        }, result -> fail(), errors::add);
+
+        run(background);
+        run(main);
+        assertEquals(1, errors.size());
+        assertEquals("нет данных", errors.get(0).getMessage());
+    }
+
+    private static void run(List<Runnable> queue) {
+        List<Runnable> tasks = new ArrayList<>(queue);
+        queue.clear();
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.moneyhelper.parser;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BalanceReconcilerTest {
+
+    @Test
+    public void chronologicalRows_areConsistent() {
+        BalanceReconciler reconciler = new BalanceReconciler();
+        assertTrue(reconciler.accept(1, -10_000, 90_000));
+        assertTrue(reconciler.accept(1, +50_000, 140_000));
+        assertTrue(reconciler.accept(2, -4_000, 136_000));
+
+        assertTrue(reconciler.isConsistent());
+        assertEquals(2, reconciler.getCheckedCount());
+    }
+
+    @Test
+    public void newestFirstRows_areConsistent() {
+        BalanceReconciler reconciler = new BalanceReconciler();
+        reconciler.accept(1, -4_000, 136_000);
+        reconciler.accept(1, +50_000, 140_000);
+        reconciler.accept(1, -10_000, 90_000);
+
+        assertTrue(reconciler.isConsistent());
+        assertEquals(2, reconciler.getCheckedCount());
+    }
+
+    @Test
+    public void missingRow_isReportedAsGap() {
+        BalanceReconciler reconciler = new BalanceReconciler();
+        reconciler.accept(1, -10_000, 90_000);
+        reconciler.accept(1, -5_000, 85_000);
+        // Пропущена операция на -20,00
+        assertFalse(reconciler.accept(2, -1_000, 82_000));
+
+        assertEquals(1, reconciler.getGapCount());
+        BalanceReconciler.Gap gap = reconciler.getGaps().get(0);
+        assertEquals(1, gap.fromPage);
+        assertEquals(2, gap.toPage);
+        assertEquals(84_000, gap.expectedBalanceKopecks);
+        assertEquals(-2_000, gap.getDifferenceKopecks());
+    }
+
+    @Test
+    public void unparsedRow_breaksChain() {
+        BalanceReconciler reconciler = new BalanceReconciler();
+        reconciler.accept(1, -10_000, 90_000);
+        reconciler.breakChain(1);
+        // После разрыва следующая строка не сравнивается с предыдущей
+        assertTrue(reconciler.accept(1, -1_000, 12_345));
+
+        assertEquals(1, reconciler.getGapCount());
+        assertTrue(reconciler.getGaps().get(0).unparsed);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.moneyhelper.parser;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class StatementHeaderTest {
+
+    @Test
+    public void accountNumber_isPreferredOverCardSuffix() {
+        StatementHeader header = StatementHeader.parse(Arrays.asList(
+                "Выписка по счёту дебетовой карты",
+                "МИР Классическая •••• 9876",
+                "Номер счёта 40817 810 5 3800 1234567",
+                "за период с 01.10.2025 по 31.10.2025"));
+
+        assertTrue(header.isComplete());
+        assertEquals("40817810538001234567", header.account);
+        assertTrue(header.toString().contains("account=*4567"));
+        assertFalse(header.toString().contains("40817"));
+    }
+
+    @Test
+    public void cardSuffix_isFallbackKey() {
+        StatementHeader header = StatementHeader.parse(Arrays.asList(
+                "Visa **** 1234",
+                "01.10.2025 — 31.10.2025"));
+
+        assertEquals("card*1234", header.account);
+        assertTrue(header.isComplete());
+    }
+}
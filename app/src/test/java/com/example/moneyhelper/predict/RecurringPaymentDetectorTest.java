@@ -0,0 +1,109 @@
+package com.example.moneyhelper.predict;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RecurringPaymentDetectorTest {
+
+    // 15.01.2025
+    private static final int START = 20103;
+
+    @Test
+    public void monthlySubscription_isDetected() {
+        List<RecurringPaymentDetector.Charge> charges = new ArrayList<>();
+        int day = START;
+        for (int i = 0; i < 6; i++) {
+            charges.add(new RecurringPaymentDetector.Charge(7, 3, day, 29_900));
+            day = RecurringPaymentDetector.nextOccurrence(day, RecurringPaymentDetector.PERIOD_MONTHLY);
+        }
+        int lastDay = charges.get(5).day;
+
+        List<RecurringPaymentDetector.RecurringPayment> payments =
+                new RecurringPaymentDetector().detect(charges, lastDay + 3);
+
+        assertEquals(1, payments.size());
+        RecurringPaymentDetector.RecurringPayment payment = payments.get(0);
+        assertEquals(RecurringPaymentDetector.PERIOD_MONTHLY, payment.periodDays);
+        assertEquals(29_900, payment.amountKopecks);
+        assertEquals(6, payment.occurrences);
+        assertEquals(day, payment.nextDay);
+    }
+
+    @Test
+    public void amountsAroundOldBandEdge_stayOnePayment_otherTierIsSeparate() {
+        List<RecurringPaymentDetector.Charge> charges = new ArrayList<>();
+        int day = START;
+        for (int i = 0; i < 6; i++) {
+            // 309 и 311 ₽ лежали по разные стороны границы диапазона 1.15^74 ≈ 310,20 ₽
+            charges.add(new RecurringPaymentDetector.Charge(7, 3, day, i % 2 == 0 ? 30_900 : 31_100));
+            // Второй тариф того же продавца - отдельный платеж
+            charges.add(new RecurringPaymentDetector.Charge(7, 3, day + 10, 99_000));
+            day = RecurringPaymentDetector.nextOccurrence(day, RecurringPaymentDetector.PERIOD_MONTHLY);
+        }
+
+        List<RecurringPaymentDetector.RecurringPayment> payments =
+                new RecurringPaymentDetector().detect(charges, charges.get(11).day);
+
+        assertEquals(2, payments.size());
+        payments.sort((a, b) -> Long.compare(a.amountKopecks, b.amountKopecks));
+        assertEquals(6, payments.get(0).occurrences);
+        assertEquals(RecurringPaymentDetector.PERIOD_MONTHLY, payments.get(0).periodDays);
+        assertEquals(31_100, payments.get(0).amountKopecks);
+        assertEquals(99_000, payments.get(1).amountKopecks);
+    }
+
+    @Test
+    public void irregularAndStoppedPayments_areIgnored() {
+        List<RecurringPaymentDetector.Charge> charges = new ArrayList<>();
+        // Случайные покупки у одного продавца
+        int[] offsets = {0, 3, 17, 18, 60, 61, 95};
+        for (int offset : offsets) {
+            charges.add(new RecurringPaymentDetector.Charge(1, 1, START + offset, 50_000));
+        }
+        // Еженедельный платеж, прекратившийся полгода назад
+        for (int i = 0; i < 10; i++) {
+            charges.add(new RecurringPaymentDetector.Charge(2, 1, START + i * 7, 10_000));
+        }
+
+        List<RecurringPaymentDetector.RecurringPayment> payments =
+                new RecurringPaymentDetector().detect(charges, START + 250);
+
+        assertTrue(payments.isEmpty());
+    }
+
+    @Test
+    public void fiveYearsOfHistory_findsOnlySubscriptions() {
+        Random random = new Random(42);
+        List<RecurringPaymentDetector.Charge> charges = new ArrayList<>();
+        int days = 5 * 365;
+        // ~40 случайных покупок в день у 2000 продавцов
+        for (int day = 0; day < days; day++) {
+            for (int i = 0; i < 40; i++) {
+                charges.add(new RecurringPaymentDetector.Charge(random.nextInt(2000), 1,
+                        START + day, 10_000 + random.nextInt(500_000)));
+            }
+        }
+        // Плюс 20 ежемесячных подписок
+        for (int merchant = 5000; merchant < 5020; merchant++) {
+            int day = START;
+            while (day < START + days) {
+                charges.add(new RecurringPaymentDetector.Charge(merchant, 1, day, 19_900));
+                day = RecurringPaymentDetector.nextOccurrence(day, RecurringPaymentDetector.PERIOD_MONTHLY);
+            }
+        }
+
+        List<RecurringPaymentDetector.RecurringPayment> payments =
+                new RecurringPaymentDetector().detect(charges, START + days);
+
+        int subscriptions = 0;
+        for (RecurringPaymentDetector.RecurringPayment payment : payments) {
+            if (payment.merchantId >= 5000) subscriptions++;
+        }
+        assertEquals(20, subscriptions);
+    }
+}
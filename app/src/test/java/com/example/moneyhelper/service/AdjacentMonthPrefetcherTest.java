@@ -0,0 +1,100 @@
+package com.example.moneyhelper.service;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class AdjacentMonthPrefetcherTest {
+
+    private static final int MARCH = MonthKeyCodec.of(2024, 3);
+
+    private final List<Runnable> queued = new ArrayList<>();
+    private final List<Integer> loaded = new ArrayList<>();
+    private final Map<Integer, Long> stamps = new HashMap<>();
+
+    private AdjacentMonthPrefetcher<String> prefetcher(int capacity) {
+        return new AdjacentMonthPrefetcher<>(queued::add, monthKey -> {
+            loaded.add(monthKey);
+            return MonthKeyCodec.toIsoString(monthKey);
+        }, monthKey -> stamps.getOrDefault(monthKey, 0L), capacity);
+    }
+
+    private void runQueued() {
+        List<Runnable> tasks = new ArrayList<>(queued);
+        queued.clear();
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+
+    @Test
+    public void neighboursArePrefetchedOnce_andServedFromMemory() {
+        AdjacentMonthPrefetcher<String> prefetcher = prefetcher(5);
+
+        prefetcher.prefetchAround(MARCH);
+        prefetcher.prefetchAround(MARCH);
+        assertEquals(2, queued.size());
+        runQueued();
+
+        AdjacentMonthPrefetcher.Prefetched<String> february = prefetcher.take(MonthKeyCodec.of(2024, 2));
+        assertEquals(MonthKeyCodec.toIsoString(MonthKeyCodec.of(2024, 2)), february.data);
+        assertEquals(0, february.stamp);
+        assertNotNull(prefetcher.take(MonthKeyCodec.of(2024, 4)));
+        assertNull(prefetcher.take(MonthKeyCodec.of(2024, 6)));
+
+        // Уже загруженные соседи повторно не читаются
+        prefetcher.prefetchAround(MARCH);
+        assertTrue(queued.isEmpty());
+        assertEquals(2, loaded.size());
+
+        AdjacentMonthPrefetcher.Stats stats = prefetcher.getStats();
+        assertEquals(2, stats.hits);
+        assertEquals(1, stats.misses);
+        assertEquals(2, stats.prefetched);
+        assertEquals(2.0 / 3, stats.hitRate(), 1e-9);
+    }
+
+    @Test
+    public void writeToMonth_makesPrefetchedDataStale() {
+        AdjacentMonthPrefetcher<String> prefetcher = prefetcher(5);
+        int april = MonthKeyCodec.of(2024, 4);
+
+        prefetcher.prefetchAround(MARCH);
+        // Запись в апрель во время загрузки
+        stamps.put(april, 1L);
+        runQueued();
+
+        assertNull(prefetcher.take(april));
+        prefetcher.prefetchAround(MARCH);
+        assertEquals(1, queued.size());
+        runQueued();
+        // Штамп выдается из записи, а не читается заново
+        assertEquals(1L, prefetcher.take(april).stamp);
+    }
+
+    @Test
+    public void clear_dropsInFlightLoads_andCapacityEvictsOldest() {
+        AdjacentMonthPrefetcher<String> prefetcher = prefetcher(2);
+
+        prefetcher.prefetchAround(MARCH);
+        prefetcher.clear();
+        runQueued();
+        assertEquals(0, prefetcher.getStats().entries);
+
+        prefetcher.prefetchAround(MARCH);
+        runQueued();
+        prefetcher.put(MonthKeyCodec.of(2024, 5), 0, "май");
+
+        AdjacentMonthPrefetcher.Stats stats = prefetcher.getStats();
+        assertEquals(2, stats.entries);
+        // Февраль вытеснен первым и так и не был показан
+        assertEquals(1, stats.unused);
+        assertNull(prefetcher.take(MonthKeyCodec.of(2024, 2)));
+        assertEquals("май", prefetcher.take(MonthKeyCodec.of(2024, 5)).data);
+    }
+}
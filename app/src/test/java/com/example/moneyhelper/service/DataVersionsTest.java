@@ -0,0 +1,82 @@
+package com.example.moneyhelper.service;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DataVersionsTest {
+
+    // Отложенные рассылки выполняются вручную, как если бы подошла очередь главного потока
+    private final List<Runnable> pending = new ArrayList<>();
+    private final DataVersions versions = new DataVersions((task, delay) -> pending.add(task));
+
+    @Test
+    public void burstOfWrites_isDeliveredOnce_onlyToAffectedSlices() {
+        int[] categories = new int[1];
+        int[] upcoming = new int[1];
+        versions.subscribe(DataVersions.slice(DataVersions.Table.CATEGORIES, DataVersions.Table.EXPENSES),
+                () -> categories[0]++);
+        versions.subscribe(DataVersions.slice(DataVersions.Table.UPCOMING), () -> upcoming[0]++);
+
+        for (int i = 0; i < 50; i++) {
+            versions.bumpMonth(202501);
+        }
+        versions.bump(DataVersions.Table.CATEGORIES);
+        assertEquals(1, pending.size());
+
+        runPending();
+        assertEquals(1, categories[0]);
+        assertEquals(0, upcoming[0]);
+
+        // Без новых записей повторная рассылка никого не будит
+        versions.bump(DataVersions.Table.USERS);
+        runPending();
+        assertEquals(1, categories[0]);
+        assertEquals(0, upcoming[0]);
+    }
+
+    @Test
+    public void monthStamp_changesOnlyForItsMonth_orForUnknownMonths() {
+        DataVersions.Slice january = DataVersions.slice(DataVersions.Table.CATEGORIES).withMonth(202501);
+        DataVersions.Slice february = DataVersions.slice(DataVersions.Table.CATEGORIES).withMonth(202502);
+        long januaryStamp = versions.stamp(january);
+        long februaryStamp = versions.stamp(february);
+
+        versions.bumpMonths(Arrays.asList(202502, 202503));
+        assertEquals(januaryStamp, versions.stamp(january));
+        assertNotEquals(februaryStamp, versions.stamp(february));
+        assertEquals(1, versions.getVersion(DataVersions.Table.EXPENSES));
+
+        februaryStamp = versions.stamp(february);
+        versions.bumpAllMonths();
+        assertNotEquals(januaryStamp, versions.stamp(january));
+        assertNotEquals(februaryStamp, versions.stamp(february));
+
+        januaryStamp = versions.stamp(january);
+        versions.bump(DataVersions.Table.CATEGORIES);
+        assertEquals(januaryStamp + 1, versions.stamp(january));
+    }
+
+    @Test
+    public void unsubscribed_listenerIsNotCalled() {
+        int[] calls = new int[1];
+        DataVersions.Subscription subscription =
+                versions.subscribe(DataVersions.slice(DataVersions.Table.PREDICTIONS), () -> calls[0]++);
+        versions.bump(DataVersions.Table.PREDICTIONS);
+        subscription.unsubscribe();
+        runPending();
+        assertEquals(0, calls[0]);
+    }
+
+    private void runPending() {
+        List<Runnable> tasks = new ArrayList<>(pending);
+        pending.clear();
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+}
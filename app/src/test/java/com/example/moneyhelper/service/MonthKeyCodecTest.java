@@ -0,0 +1,150 @@
+package com.example.moneyhelper.service;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class MonthKeyCodecTest {
+
+    private static final long FROM_MILLIS = -2_000_000_000_000L;  // 1906 год
+    private static final long TO_MILLIS = 4_000_000_000_000L;     // 2096 год
+
+    @After
+    public void restoreZone() {
+        MonthKeyCodec.setTimeZone(TimeZone.getDefault());
+    }
+
+    @Test
+    public void matchesSimpleDateFormat_inZonesWithAndWithoutDst() throws Exception {
+        for (String zoneId : new String[]{"Europe/Moscow", "America/New_York", "Asia/Kolkata", "UTC"}) {
+            TimeZone zone = TimeZone.getTimeZone(zoneId);
+            MonthKeyCodec.setTimeZone(zone);
+            SimpleDateFormat day = format("dd.MM.yyyy", zone);
+            SimpleDateFormat iso = format("yyyy-MM-dd", zone);
+            SimpleDateFormat dateTime = format("dd.MM.yyyy HH:mm", zone);
+            Calendar cal = Calendar.getInstance(zone);
+
+            Random random = new Random(zoneId.hashCode());
+            for (int i = 0; i < 10_000; i++) {
+                long millis = FROM_MILLIS + (long) (random.nextDouble() * (TO_MILLIS - FROM_MILLIS));
+                millis -= millis % 60_000;
+                cal.setTimeInMillis(millis);
+                int expectedKey = cal.get(Calendar.YEAR) * 100 + cal.get(Calendar.MONTH) + 1;
+
+                int monthKey = MonthKeyCodec.fromMillis(millis);
+                assertEquals(zoneId + " " + millis, expectedKey, monthKey);
+
+                int epochDay = MonthKeyCodec.epochDay(millis);
+                assertEquals(day.format(cal.getTime()), MonthKeyCodec.formatDay(epochDay));
+                assertEquals(iso.format(cal.getTime()), MonthKeyCodec.formatIsoDay(epochDay));
+
+                String text = dateTime.format(cal.getTime());
+                assertEquals(text, dateTime.parse(text).getTime(), MonthKeyCodec.parseDateTime(text));
+
+                cal.set(Calendar.DAY_OF_MONTH, 1);
+                cal.set(Calendar.HOUR_OF_DAY, 0);
+                cal.set(Calendar.MINUTE, 0);
+                cal.set(Calendar.SECOND, 0);
+                cal.set(Calendar.MILLISECOND, 0);
+                assertEquals(day.format(cal.getTime()), MonthKeyCodec.toLegacyString(monthKey));
+                assertEquals(iso.format(cal.getTime()), MonthKeyCodec.toIsoString(monthKey));
+                assertEquals(cal.getTimeInMillis(), MonthKeyCodec.toMillis(monthKey));
+            }
+        }
+    }
+
+    @Test
+    public void parse_acceptsBothFormats_andRejectsGarbage() {
+        assertEquals(202402, MonthKeyCodec.parse("29.02.2024"));
+        assertEquals(202402, MonthKeyCodec.parse("2024-02-01"));
+        assertEquals(-1, MonthKeyCodec.parse("29.02.2023"));
+        assertEquals(-1, MonthKeyCodec.parse("01.13.2024"));
+        assertEquals(-1, MonthKeyCodec.parse("1.1.2024"));
+        assertEquals(-1, MonthKeyCodec.parse("ab.cd.efgh"));
+        assertEquals(-1, MonthKeyCodec.parse(null));
+        assertEquals(Long.MIN_VALUE, MonthKeyCodec.parseDateTime("01.01.2024 24:00"));
+        assertEquals(Long.MIN_VALUE, MonthKeyCodec.parseDateTime("01.01.2024T10:00"));
+
+        assertEquals(202501, MonthKeyCodec.plusMonths(202412, 1));
+        assertEquals(202312, MonthKeyCodec.plusMonths(202401, -1));
+        assertEquals(119, MonthKeyCodec.monthsBetween(201501, 202412));
+    }
+
+    @Test
+    public void sharedCodec_isSafeUnderConcurrency() throws Exception {
+        MonthKeyCodec.setTimeZone(TimeZone.getTimeZone("Europe/Moscow"));
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int seed = t;
+                Callable<Integer> task = () -> {
+                    Random random = new Random(seed);
+                    int checked = 0;
+                    for (int i = 0; i < 50_000; i++) {
+                        int year = 1990 + random.nextInt(60);
+                        int month = 1 + random.nextInt(12);
+                        int key = MonthKeyCodec.of(year, month);
+                        String legacy = MonthKeyCodec.toLegacyString(key);
+                        if (MonthKeyCodec.parse(legacy) != key
+                                || MonthKeyCodec.fromMillis(MonthKeyCodec.toMillis(key)) != key) {
+                            throw new AssertionError("Несовпадение для " + key + ": " + legacy);
+                        }
+                        checked++;
+                    }
+                    return checked;
+                };
+                futures.add(executor.submit(task));
+            }
+            for (Future<Integer> future : futures) {
+                assertEquals(50_000, (int) future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void importPath_matchesSimpleDateFormat() throws Exception {
+        TimeZone zone = TimeZone.getTimeZone("Europe/Moscow");
+        MonthKeyCodec.setTimeZone(zone);
+        SimpleDateFormat dateTime = format("dd.MM.yyyy HH:mm", zone);
+        SimpleDateFormat day = format("dd.MM.yyyy", zone);
+        Calendar cal = Calendar.getInstance(zone);
+
+        // Строка выписки -> месяц операции, как при импорте
+        Random random = new Random(3);
+        for (int i = 0; i < 20_000; i++) {
+            String sample = String.format(Locale.ROOT, "%02d.%02d.%04d %02d:%02d",
+                    1 + random.nextInt(28), 1 + random.nextInt(12), 2000 + random.nextInt(30),
+                    random.nextInt(24), random.nextInt(60));
+
+            cal.setTime(dateTime.parse(sample));
+            cal.set(Calendar.DAY_OF_MONTH, 1);
+            String expected = day.format(cal.getTime());
+
+            long millis = MonthKeyCodec.parseDateTime(sample);
+            assertEquals(sample, expected, MonthKeyCodec.toLegacyString(MonthKeyCodec.fromMillis(millis)));
+        }
+    }
+
+    private static SimpleDateFormat format(String pattern, TimeZone zone) {
+        SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.ROOT);
+        format.setTimeZone(zone);
+        return format;
+    }
+}
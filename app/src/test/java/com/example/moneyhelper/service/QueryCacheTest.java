@@ -0,0 +1,65 @@
+package com.example.moneyhelper.service;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class QueryCacheTest {
+
+    @Test
+    public void sameStamp_isHit_changedStamp_isInvalidated() {
+        QueryCache cache = new QueryCache(10, 10_000);
+        QueryCache.Key january = new QueryCache.Key("categories_for_month", 1, 202501);
+
+        assertNull(cache.get(january, 5));
+        cache.put(january, "январь", 5, 100);
+
+        assertEquals("январь", cache.get(january, 5));
+        assertEquals("январь", cache.get(new QueryCache.Key("categories_for_month", 1, 202501), 5));
+        assertNull(cache.get(new QueryCache.Key("categories_for_month", 2, 202501), 5));
+
+        // Данные месяца изменились - запись выбрасывается
+        assertNull(cache.get(january, 6));
+        assertNull(cache.get(january, 5));
+
+        QueryCache.Stats stats = cache.getStats();
+        assertEquals(2, stats.hits);
+        assertEquals(4, stats.misses);
+        assertEquals(1, stats.invalidations);
+        assertEquals(0, stats.entries);
+        assertEquals(0, stats.bytes);
+    }
+
+    @Test
+    public void leastRecentlyUsed_isEvicted_byEntriesAndBytes() {
+        QueryCache cache = new QueryCache(3, 1_000);
+        QueryCache.Key a = new QueryCache.Key("dashboard", 1, 202501);
+        QueryCache.Key b = new QueryCache.Key("dashboard", 1, 202502);
+        QueryCache.Key c = new QueryCache.Key("dashboard", 1, 202503);
+        QueryCache.Key d = new QueryCache.Key("dashboard", 1, 202504);
+
+        cache.put(a, "a", 0, 100);
+        cache.put(b, "b", 0, 100);
+        cache.put(c, "c", 0, 100);
+        cache.get(a, 0);                   // a стал самым свежим
+        cache.put(d, "d", 0, 100);         // по числу записей вытесняется b
+
+        assertNull(cache.get(b, 0));
+        assertEquals("a", cache.get(a, 0));
+        assertEquals(1, cache.getStats().evictions);
+
+        cache.put(b, "b", 0, 800);         // по памяти вытесняется c
+        assertNull(cache.get(c, 0));
+        assertEquals("d", cache.get(d, 0));
+        assertEquals("a", cache.get(a, 0));
+        assertEquals(1_000, cache.getStats().bytes);
+
+        // Результат больше всего кэша не сохраняется
+        cache.put(c, "c", 0, 5_000);
+        assertNull(cache.get(c, 0));
+
+        cache.configure(1, 1_000);
+        assertEquals(1, cache.getStats().entries);
+        assertEquals(4, cache.getStats().evictions);
+    }
+}
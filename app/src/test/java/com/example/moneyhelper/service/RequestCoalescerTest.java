@@ -0,0 +1,74 @@
+package com.example.moneyhelper.service;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class RequestCoalescerTest {
+
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+
+    @Test
+    public void concurrentSameKey_sharesOneLoad() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        AtomicReference<String> joined = new AtomicReference<>();
+
+        Thread leader = new Thread(() -> coalescer.load("dashboard@1", () -> {
+            loads.incrementAndGet();
+            await(release);
+            return "снимок";
+        }));
+        leader.start();
+        while (coalescer.getExecutedCount() == 0) {
+            Thread.sleep(1);
+        }
+
+        Thread follower = new Thread(() -> joined.set(coalescer.load("dashboard@1", () -> {
+            loads.incrementAndGet();
+            return "повтор";
+        })));
+        follower.start();
+        while (coalescer.getCollapsedCount() == 0) {
+            Thread.sleep(1);
+        }
+
+        release.countDown();
+        leader.join();
+        follower.join();
+
+        assertEquals(1, loads.get());
+        assertEquals("снимок", joined.get());
+        assertEquals(1, coalescer.getExecutedCount());
+        assertEquals(1, coalescer.getCollapsedCount());
+    }
+
+    @Test
+    public void finishedLoad_isNotReused_andErrorsPropagate() {
+        assertEquals("a", coalescer.load("k@1", () -> "a"));
+        assertEquals("b", coalescer.load("k@1", () -> "b"));
+        assertEquals(2, coalescer.getExecutedCount());
+        assertEquals(0, coalescer.getCollapsedCount());
+
+        try {
+            coalescer.load("k@2", () -> {
+                throw new IllegalStateException("ошибка БД");
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("ошибка БД", e.getMessage());
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
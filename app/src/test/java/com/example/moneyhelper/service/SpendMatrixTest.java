@@ -0,0 +1,72 @@
+package com.example.moneyhelper.service;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SpendMatrixTest {
+
+    @Test
+    public void gapsAreZeroFilled_andTotalsMatch() {
+        SpendMatrix.Builder builder = new SpendMatrix.Builder(202411, 202502);
+        int food = builder.addCategory(10, "Продукты");
+        builder.add(food, 202411, 150_000);
+        builder.add(food, 202502, 50_000);
+        int taxi = builder.addCategory(20, "Такси");
+        builder.add(taxi, 202412, 30_000);
+        builder.add(taxi, 202412, 5_000);
+        // Вне периода - пропускается
+        builder.add(taxi, 202503, 99_999);
+        builder.addCategory(30, "Кино");
+
+        SpendMatrix matrix = builder.build();
+
+        assertEquals(3, matrix.getCategoryCount());
+        assertEquals(4, matrix.getMonthCount());
+        assertEquals(202411, matrix.getMonthKey(0));
+        assertEquals(202501, matrix.getMonthKey(2));
+        assertEquals(202502, matrix.getMonthKey(3));
+
+        assertArrayEquals(new long[]{150_000, 0, 0, 50_000}, matrix.copyRow(food));
+        assertArrayEquals(new long[]{0, 35_000, 0, 0}, matrix.copyRow(taxi));
+        assertArrayEquals(new long[4], matrix.copyRow(matrix.rowOf(30)));
+
+        assertEquals(200_000, matrix.getRowTotal(food));
+        assertEquals(35_000, matrix.getColumnTotal(1));
+        assertEquals(235_000, matrix.getTotal());
+        assertEquals(-1, matrix.rowOf(40));
+    }
+
+    @Test
+    public void tenYearsOfTwoHundredCategories_totalsAgree() {
+        int categories = 200;
+        int months = 120;
+        SpendMatrix matrix = build(categories, months, new Random(7));
+
+        assertEquals(categories, matrix.getCategoryCount());
+        assertEquals(months, matrix.getMonthCount());
+        assertEquals(202412, matrix.getMonthKey(months - 1));
+
+        long rowSum = 0;
+        for (int row = 0; row < categories; row++) rowSum += matrix.getRowTotal(row);
+        long columnSum = 0;
+        for (int col = 0; col < months; col++) columnSum += matrix.getColumnTotal(col);
+        assertEquals(matrix.getTotal(), rowSum);
+        assertEquals(matrix.getTotal(), columnSum);
+    }
+
+    // Строки приходят так же, как из запроса: по категориям, с пропусками месяцев
+    private static SpendMatrix build(int categories, int months, Random random) {
+        SpendMatrix.Builder builder = new SpendMatrix.Builder(201501, 202412);
+        for (int c = 0; c < categories; c++) {
+            int row = builder.addCategory(c + 1, "Категория " + c);
+            for (int m = 0; m < months; m++) {
+                if (random.nextInt(4) == 0) continue;
+                builder.add(row, MonthKeyCodec.plusMonths(201501, m), random.nextInt(1_000_000));
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.moneyhelper.service;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StatementPeriodIndexTest {
+
+    private static final String ACCOUNT = "40817810538001234567";
+
+    @Test
+    public void adjacentRanges_areMerged() {
+        StatementPeriodIndex index = new StatementPeriodIndex();
+        index.add(ACCOUNT, 10, 19);
+        index.add(ACCOUNT, 20, 29);
+        // Смежный слева
+        index.add(ACCOUNT, 0, 9);
+
+        assertRanges(index.uncovered(ACCOUNT, -5, 35), -5, -1, 30, 35);
+        assertTrue(index.uncovered(ACCOUNT, 0, 29).isEmpty());
+    }
+
+    @Test
+    public void overlappingRanges_areMerged() {
+        StatementPeriodIndex index = new StatementPeriodIndex();
+        index.add(ACCOUNT, 10, 20);
+        index.add(ACCOUNT, 15, 25);
+        index.add(ACCOUNT, 5, 12);
+
+        assertTrue(index.uncovered(ACCOUNT, 5, 25).isEmpty());
+        assertRanges(index.uncovered(ACCOUNT, 0, 30), 0, 4, 26, 30);
+    }
+
+    @Test
+    public void nestedRange_changesNothing_andEnclosingRangeAbsorbsAll() {
+        StatementPeriodIndex index = new StatementPeriodIndex();
+        index.add(ACCOUNT, 10, 30);
+        index.add(ACCOUNT, 15, 20);
+        assertRanges(index.uncovered(ACCOUNT, 0, 40), 0, 9, 31, 40);
+
+        // Новый отрезок накрывает несколько старых
+        index.add(ACCOUNT, 35, 36);
+        index.add(ACCOUNT, 38, 39);
+        index.add(ACCOUNT, 0, 50);
+        assertTrue(index.uncovered(ACCOUNT, 0, 50).isEmpty());
+        assertRanges(index.uncovered(ACCOUNT, 0, 51), 51, 51);
+    }
+
+    @Test
+    public void disjointRanges_leaveGaps() {
+        StatementPeriodIndex index = new StatementPeriodIndex();
+        index.add(ACCOUNT, 30, 39);
+        index.add(ACCOUNT, 10, 19);
+        // Между отрезками один день - не смежные
+        index.add(ACCOUNT, 41, 50);
+
+        assertRanges(index.uncovered(ACCOUNT, 0, 60), 0, 9, 20, 29, 40, 40, 51, 60);
+        assertTrue(index.isCovered(ACCOUNT, 19));
+        assertFalse(index.isCovered(ACCOUNT, 20));
+        assertFalse(index.isCovered(ACCOUNT, 40));
+        assertTrue(index.isCovered(ACCOUNT, 41));
+    }
+
+    @Test
+    public void partialOverlap_returnsOnlyUncoveredParts() {
+        StatementPeriodIndex index = new StatementPeriodIndex();
+        index.add(ACCOUNT, 10, 19);
+        index.add(ACCOUNT, 30, 39);
+
+        // Начинается внутри отрезка
+        assertRanges(index.uncovered(ACCOUNT, 15, 25), 20, 25);
+        // Заканчивается внутри отрезка
+        assertRanges(index.uncovered(ACCOUNT, 25, 35), 25, 29);
+        // Целиком внутри отрезка
+        assertTrue(index.uncovered(ACCOUNT, 12, 18).isEmpty());
+        // Целиком между отрезками
+        assertRanges(index.uncovered(ACCOUNT, 21, 28), 21, 28);
+    }
+
+    @Test
+    public void accounts_areIndependent() {
+        StatementPeriodIndex index = new StatementPeriodIndex();
+        index.add(ACCOUNT, 10, 19);
+        index.add("card*4567", 0, 100);
+
+        assertRanges(index.uncovered(ACCOUNT, 0, 19), 0, 9);
+        assertRanges(index.uncovered("40817810538009994567", 0, 5), 0, 5);
+    }
+
+    @Test
+    public void invertedRange_isIgnored() {
+        StatementPeriodIndex index = new StatementPeriodIndex();
+        index.add(ACCOUNT, 20, 10);
+
+        assertRanges(index.uncovered(ACCOUNT, 0, 30), 0, 30);
+    }
+
+    // Ожидаемые отрезки парами: from1, to1, from2, to2, ...
+    private static void assertRanges(List<StatementPeriodIndex.Range> actual, int... expected) {
+        assertEquals(expected.length / 2, actual.size());
+        for (int i = 0; i < actual.size(); i++) {
+            assertEquals(expected[2 * i], actual.get(i).fromDay);
+            assertEquals(expected[2 * i + 1], actual.get(i).toDay);
+        }
+    }
+}